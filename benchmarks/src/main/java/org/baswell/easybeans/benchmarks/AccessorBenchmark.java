@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.baswell.easybeans.EasyBeanWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Attribute reads and operation invocations through each accessor backend. The backend is chosen once per process so the
+ * reflection benchmarks run in a fork with easybeans.accessors=reflection. The Method.invoke baseline is the path used
+ * before accessors were bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark
+{
+  static final String[] ADD_SIGNATURE = new String[] {"long", "long"};
+
+  BenchmarkBeans.Report report;
+
+  EasyBeanWrapper easyBean;
+
+  Method getCount;
+
+  Object[] addParams;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    report = new BenchmarkBeans.Report();
+    easyBean = new EasyBeanWrapper(report);
+    getCount = BenchmarkBeans.Report.class.getMethod("getCount");
+    addParams = new Object[] {1L, 2L};
+  }
+
+  @Benchmark
+  public Object methodInvoke() throws Exception
+  {
+    return getCount.invoke(report);
+  }
+
+  @Benchmark
+  public Object defaultGetter() throws Exception
+  {
+    return easyBean.getAttribute("Count");
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Deasybeans.accessors=reflection")
+  public Object reflectionGetter() throws Exception
+  {
+    return easyBean.getAttribute("Count");
+  }
+
+  @Benchmark
+  public Object defaultInvoker() throws Exception
+  {
+    return easyBean.invoke("add", addParams, ADD_SIGNATURE);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Deasybeans.accessors=reflection")
+  public Object reflectionInvoker() throws Exception
+  {
+    return easyBean.invoke("add", addParams, ADD_SIGNATURE);
+  }
+}
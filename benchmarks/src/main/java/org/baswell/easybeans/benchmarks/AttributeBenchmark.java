@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.StandardMBean;
+
+import org.baswell.easybeans.EasyBeanWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Attribute reads of a primitive, a string, an enum, a nested composite, a large list (array type) and a large map
+ * (tabular type). The StandardMBean baseline returns the raw value, the MXBean baseline performs the JDK's own open type
+ * conversion of the same value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeBenchmark
+{
+  @Param({"Count", "Name", "Status", "Order", "Samples", "Totals"})
+  public String attribute;
+
+  EasyBeanWrapper easyBean;
+
+  StandardMBean standardMBean;
+
+  StandardMBean mxBean;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    BenchmarkBeans.Report report = new BenchmarkBeans.Report();
+    easyBean = new EasyBeanWrapper(report);
+    standardMBean = new StandardMBean(report, BenchmarkBeans.ReportMBean.class);
+    mxBean = new StandardMBean(report, BenchmarkBeans.ReportMXBean.class, true);
+  }
+
+  @Benchmark
+  public Object easyBean() throws Exception
+  {
+    return easyBean.getAttribute(attribute);
+  }
+
+  @Benchmark
+  public Object standardMBean() throws Exception
+  {
+    return standardMBean.getAttribute(attribute);
+  }
+
+  @Benchmark
+  public Object mxBean() throws Exception
+  {
+    return mxBean.getAttribute(attribute);
+  }
+}
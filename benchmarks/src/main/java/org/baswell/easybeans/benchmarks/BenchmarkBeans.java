@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.baswell.easybeans.EasyBean;
+import org.baswell.easybeans.EasyBeanExposure;
+import org.baswell.easybeans.EasyBeanOpenType;
+
+/*
+ * The bean measured by every benchmark. The same instance is exposed through EasyBeanWrapper, through StandardMBean
+ * with ReportMBean (no open type conversion) and through StandardMBean with ReportMXBean (the JDK open type conversion)
+ * so each benchmark compares the same work across the three paths.
+ */
+public class BenchmarkBeans
+{
+  static final int COLLECTION_SIZE = 1000;
+
+  public enum Status
+  {
+    PENDING,
+    SHIPPED,
+    DELIVERED
+  }
+
+  @EasyBeanOpenType
+  public static class Address
+  {
+    private final String street;
+
+    private final String city;
+
+    public Address(String street, String city)
+    {
+      this.street = street;
+      this.city = city;
+    }
+
+    public String getStreet()
+    {
+      return street;
+    }
+
+    public String getCity()
+    {
+      return city;
+    }
+  }
+
+  @EasyBeanOpenType
+  public static class Order
+  {
+    private final long id;
+
+    private final String customer;
+
+    private final Status status;
+
+    private final Address shipping;
+
+    public Order(long id, String customer, Status status, Address shipping)
+    {
+      this.id = id;
+      this.customer = customer;
+      this.status = status;
+      this.shipping = shipping;
+    }
+
+    public long getId()
+    {
+      return id;
+    }
+
+    public String getCustomer()
+    {
+      return customer;
+    }
+
+    public Status getStatus()
+    {
+      return status;
+    }
+
+    public Address getShipping()
+    {
+      return shipping;
+    }
+  }
+
+  public interface ReportMBean
+  {
+    long getCount();
+
+    String getName();
+
+    Status getStatus();
+
+    Order getOrder();
+
+    List<Long> getSamples();
+
+    Map<String, Long> getTotals();
+
+    long add(long a, long b);
+
+    long add(long a, long b, long c);
+
+    String add(String a, String b);
+  }
+
+  public interface ReportMXBean
+  {
+    long getCount();
+
+    String getName();
+
+    Status getStatus();
+
+    Order getOrder();
+
+    List<Long> getSamples();
+
+    Map<String, Long> getTotals();
+
+    long add(long a, long b);
+
+    long add(long a, long b, long c);
+
+    String add(String a, String b);
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class Report implements ReportMBean, ReportMXBean
+  {
+    private final Order order = new Order(42, "customer", Status.SHIPPED, new Address("1 Main Street", "Springfield"));
+
+    private final List<Long> samples = new ArrayList<Long>();
+
+    private final Map<String, Long> totals = new HashMap<String, Long>();
+
+    public Report()
+    {
+      for (int i = 0; i < COLLECTION_SIZE; i++)
+      {
+        samples.add((long)i);
+        totals.put("key" + i, (long)i);
+      }
+    }
+
+    public long getCount()
+    {
+      return 42;
+    }
+
+    public String getName()
+    {
+      return "report";
+    }
+
+    public Status getStatus()
+    {
+      return Status.SHIPPED;
+    }
+
+    public Order getOrder()
+    {
+      return order;
+    }
+
+    public List<Long> getSamples()
+    {
+      return samples;
+    }
+
+    public Map<String, Long> getTotals()
+    {
+      return totals;
+    }
+
+    public long add(long a, long b)
+    {
+      return a + b;
+    }
+
+    public long add(long a, long b, long c)
+    {
+      return a + b + c;
+    }
+
+    public String add(String a, String b)
+    {
+      return a + b;
+    }
+  }
+}
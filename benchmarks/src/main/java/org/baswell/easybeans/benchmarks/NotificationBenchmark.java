@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationListener;
+
+import org.baswell.easybeans.EasyBeanNotificationWrapper;
+import org.baswell.easybeans.EasyBeansNotifier;
+import org.baswell.easybeans.EasyBeansNotifierUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Synchronous delivery of one notification to a number of listeners. The baseline is NotificationBroadcasterSupport,
+ * which is what StandardMBean and MXBean implementations use to emit notifications.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationBenchmark
+{
+  @Param({"1", "10", "100"})
+  public int listeners;
+
+  EasyBeanNotificationWrapper easyBean;
+
+  NotificationBroadcasterSupport broadcasterSupport;
+
+  CountingListener listener;
+
+  long sequenceNumber;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    easyBean = new EasyBeanNotificationWrapper(new Emitter());
+    broadcasterSupport = new NotificationBroadcasterSupport();
+    listener = new CountingListener();
+
+    for (int i = 0; i < listeners; i++)
+    {
+      /*
+       * Listener registrations are keyed by listener and handback so the same listener is added once per handback.
+       */
+      Object handback = i;
+      easyBean.addNotificationListener(listener, null, handback);
+      broadcasterSupport.addNotificationListener(listener, null, handback);
+    }
+  }
+
+  @Benchmark
+  public long easyBean()
+  {
+    easyBean.notify(new Notification("benchmark", "benchmark", ++sequenceNumber, "message"));
+    return listener.count;
+  }
+
+  @Benchmark
+  public long broadcasterSupport()
+  {
+    broadcasterSupport.sendNotification(new Notification("benchmark", "benchmark", ++sequenceNumber, "message"));
+    return listener.count;
+  }
+
+  public static class Emitter implements EasyBeansNotifierUser
+  {
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {}
+  }
+
+  static class CountingListener implements NotificationListener
+  {
+    long count;
+
+    public void handleNotification(Notification notification, Object handback)
+    {
+      count++;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.StandardMBean;
+
+import org.baswell.easybeans.EasyBeanWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Invocation of the three overloads of add, each resolved by its signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationBenchmark
+{
+  @Param({"long,long", "long,long,long", "java.lang.String,java.lang.String"})
+  public String overload;
+
+  EasyBeanWrapper easyBean;
+
+  StandardMBean standardMBean;
+
+  StandardMBean mxBean;
+
+  String[] signature;
+
+  Object[] params;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    BenchmarkBeans.Report report = new BenchmarkBeans.Report();
+    easyBean = new EasyBeanWrapper(report);
+    standardMBean = new StandardMBean(report, BenchmarkBeans.ReportMBean.class);
+    mxBean = new StandardMBean(report, BenchmarkBeans.ReportMXBean.class, true);
+
+    signature = overload.split(",");
+    params = new Object[signature.length];
+    for (int i = 0; i < signature.length; i++)
+    {
+      params[i] = signature[i].equals("long") ? (Object)(long)i : "p" + i;
+    }
+  }
+
+  @Benchmark
+  public Object easyBean() throws Exception
+  {
+    return easyBean.invoke("add", params, signature);
+  }
+
+  @Benchmark
+  public Object standardMBean() throws Exception
+  {
+    return standardMBean.invoke("add", params, signature);
+  }
+
+  @Benchmark
+  public Object mxBean() throws Exception
+  {
+    return mxBean.invoke("add", params, signature);
+  }
+}
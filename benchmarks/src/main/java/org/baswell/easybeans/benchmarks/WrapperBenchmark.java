@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanInfo;
+import javax.management.StandardMBean;
+
+import org.baswell.easybeans.EasyBeanWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Wrapping a bean and building its MBeanInfo, the cost paid once per registered bean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperBenchmark
+{
+  BenchmarkBeans.Report report;
+
+  @Setup
+  public void setup()
+  {
+    report = new BenchmarkBeans.Report();
+  }
+
+  @Benchmark
+  public MBeanInfo easyBean() throws Exception
+  {
+    return new EasyBeanWrapper(report).getMBeanInfo();
+  }
+
+  @Benchmark
+  public MBeanInfo standardMBean() throws Exception
+  {
+    return new StandardMBean(report, BenchmarkBeans.ReportMBean.class).getMBeanInfo();
+  }
+
+  @Benchmark
+  public MBeanInfo mxBean() throws Exception
+  {
+    return new StandardMBean(report, BenchmarkBeans.ReportMXBean.class, true).getMBeanInfo();
+  }
+}
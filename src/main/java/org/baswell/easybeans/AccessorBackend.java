@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/*
+ * Binds getters, setters and fields to Getter and Setter objects and operation methods to Invoker objects. The backend is
+ * chosen once for the process. If the runtime has java.lang.invoke.LambdaMetafactory (1.8+) getter, setter and operation
+ * methods are bound to classes spun by the metafactory that call the method directly, otherwise reflection is used. The
+ * system property easybeans.accessors can be set to reflection to force the reflection backend.
+ */
+abstract class AccessorBackend
+{
+  static final String ACCESSORS_PROPERTY = "easybeans.accessors";
+
+  static final AccessorBackend backend = loadBackend();
+
+  abstract Getter getter(Method getter);
+
+  abstract Setter setter(Method setter);
+
+  abstract Invoker invoker(Method method);
+
+  Getter getter(final Field field)
+  {
+    makeAccessible(field);
+    return new Getter()
+    {
+      public Object get(Object pojo) throws Exception
+      {
+        return field.get(pojo);
+      }
+    };
+  }
+
+  Setter setter(final Field field)
+  {
+    makeAccessible(field);
+    return new Setter()
+    {
+      public void set(Object pojo, Object value) throws Exception
+      {
+        field.set(pojo, value);
+      }
+    };
+  }
+
+  /*
+   * Skips the access checks on every call. Only public members are exposed so this doesn't open anything up.
+   */
+  static void makeAccessible(AccessibleObject accessibleObject)
+  {
+    try
+    {
+      accessibleObject.setAccessible(true);
+    }
+    catch (RuntimeException e)
+    {}
+  }
+
+  /*
+   * The bind methods use the accessors generated by EasyBeansProcessor for the declaring class if there are any, otherwise
+   * the process backend.
+   */
+  static Getter bindGetter(Field field)
+  {
+    Getter getter = EasyBeanGeneratedAccessors.getter(field);
+    return (getter == null) ? backend.getter(field) : getter;
+  }
+
+  static Getter bindGetter(Method method)
+  {
+    Getter getter = EasyBeanGeneratedAccessors.getter(method);
+    return (getter == null) ? backend.getter(method) : getter;
+  }
+
+  static Setter bindSetter(Field field)
+  {
+    Setter setter = EasyBeanGeneratedAccessors.setter(field);
+    return (setter == null) ? backend.setter(field) : setter;
+  }
+
+  static Setter bindSetter(Method method)
+  {
+    Setter setter = EasyBeanGeneratedAccessors.setter(method);
+    return (setter == null) ? backend.setter(method) : setter;
+  }
+
+  static Invoker bindInvoker(Method method)
+  {
+    Invoker invoker = EasyBeanGeneratedAccessors.invoker(method);
+    return (invoker == null) ? backend.invoker(method) : invoker;
+  }
+
+  static AccessorBackend loadBackend()
+  {
+    if (!"reflection".equalsIgnoreCase(System.getProperty(ACCESSORS_PROPERTY)))
+    {
+      try
+      {
+        Class.forName("java.lang.invoke.LambdaMetafactory");
+        return (AccessorBackend)Class.forName("org.baswell.easybeans.LambdaAccessorBackend").newInstance();
+      }
+      catch (Throwable e)
+      {}
+    }
+
+    return new ReflectionAccessorBackend();
+  }
+}
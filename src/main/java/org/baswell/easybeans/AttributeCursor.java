@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenMBeanOperationInfo;
+import javax.management.openmbean.OpenMBeanOperationInfoSupport;
+import javax.management.openmbean.OpenMBeanParameterInfo;
+import javax.management.openmbean.OpenMBeanParameterInfoSupport;
+import javax.management.openmbean.SimpleType;
+
+/*
+ * A server side cursor over the elements of an array, Iterable or Map attribute (see EasyBeanAttribute#cursor()). Each
+ * page is converted as it's fetched so a huge collection is never converted all at once. Collections are iterated live,
+ * a cursor over a collection that isn't safe to iterate while it's changed can fail with a ConcurrentModificationException.
+ */
+class AttributeCursor
+{
+  static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  static final String CLOSE_OPERATION_NAME = "closeCursor";
+
+  /*
+   * The most cursors a single wrapper keeps open at once.
+   */
+  static final int MAX_OPEN_CURSORS = 16;
+
+  private static final AtomicLong nextId = new AtomicLong();
+
+  final long id = nextId.incrementAndGet();
+
+  final EasyBeanAttributeStructure attribute;
+
+  /*
+   * Either elements are taken from iterator or from array (starting at arrayIndex).
+   */
+  private final Iterator<?> iterator;
+
+  private final Object array;
+
+  private int arrayIndex;
+
+  private volatile long lastUsed = System.currentTimeMillis();
+
+  AttributeCursor(EasyBeanAttributeStructure attribute, Object value) throws OpenDataException
+  {
+    this.attribute = attribute;
+
+    if (value instanceof Map)
+    {
+      iterator = ((Map<?, ?>)value).entrySet().iterator();
+      array = null;
+    }
+    else if ((value instanceof Iterable) && (attribute.typeMapping.getPrimitiveArraySource() == null))
+    {
+      iterator = ((Iterable<?>)value).iterator();
+      array = null;
+    }
+    else if ((value != null) && !value.getClass().isArray())
+    {
+      /*
+       * A primitive specialized collection, its own primitive array is as compact as it gets. Taken with the unlimited
+       * converter, the attribute's limits only apply to each page.
+       */
+      iterator = null;
+      array = attribute.typeMapping.getConverter().convert(value);
+    }
+    else
+    {
+      iterator = null;
+      array = value;
+    }
+  }
+
+  /*
+   * The next page of up to count elements (or map entries) converted to the attribute's OpenType. Pages are no bigger than
+   * the attribute's maximum elements so the page itself is never truncated.
+   */
+  synchronized Object fetch(int count) throws OpenDataException
+  {
+    lastUsed = System.currentTimeMillis();
+    count = Math.max(0, (attribute.limits == null) ? count : Math.min(count, attribute.limits.maxElements));
+
+    Object page;
+    if (array != null)
+    {
+      int length = Math.min(count, Array.getLength(array) - arrayIndex);
+      page = Array.newInstance(array.getClass().getComponentType(), length);
+      System.arraycopy(array, arrayIndex, page, 0, length);
+      arrayIndex += length;
+    }
+    else if (attribute.typeMapping.isTabularType())
+    {
+      Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+      for (int i = 0; (i < count) && (iterator != null) && iterator.hasNext(); i++)
+      {
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>)iterator.next();
+        map.put(entry.getKey(), entry.getValue());
+      }
+      page = map;
+    }
+    else
+    {
+      List<Object> list = new ArrayList<Object>();
+      for (int i = 0; (i < count) && (iterator != null) && iterator.hasNext(); i++)
+      {
+        list.add(iterator.next());
+      }
+      page = list;
+    }
+
+    return attribute.converter().convert(page);
+  }
+
+  boolean isIdle(long now)
+  {
+    return (now - lastUsed) > IDLE_TIMEOUT_MILLIS;
+  }
+
+  /*
+   * Cursor operations are invoked by name, so their parameters aren't checked against the signature before they get here.
+   */
+  static void checkParameters(Object[] params, Class<?>... types)
+  {
+    if ((params == null) || (params.length != types.length))
+    {
+      throw new IllegalArgumentException("Expected " + types.length + " parameter(s) but got " + ((params == null) ? 0 : params.length) + ".");
+    }
+
+    for (int i = 0; i < types.length; i++)
+    {
+      if (!types[i].isInstance(params[i]))
+      {
+        throw new IllegalArgumentException("Expected parameter " + (i + 1) + " to be of type " + types[i].getSimpleName() + " but got " + params[i] + ".");
+      }
+    }
+  }
+
+  static String openOperationName(EasyBeanAttributeStructure attribute)
+  {
+    return "open" + attribute.name + "Cursor";
+  }
+
+  static String fetchOperationName(EasyBeanAttributeStructure attribute)
+  {
+    return "fetch" + attribute.name + "Cursor";
+  }
+
+  /*
+   * Adds the cursor operations of the given readable attributes to the given operation info and cursorOperationIndex.
+   */
+  static OpenMBeanOperationInfo[] addOperationInfo(OpenMBeanOperationInfo[] operationInfo, Collection<EasyBeanAttributeStructure> readableAttributes, Map<OperationSignature, Operation> cursorOperationIndex)
+  {
+    List<OpenMBeanOperationInfo> operationsInfo = new ArrayList<OpenMBeanOperationInfo>(Arrays.asList(operationInfo));
+    OpenMBeanParameterInfo cursorParameter = new OpenMBeanParameterInfoSupport("cursor", "The cursor id", SimpleType.LONG);
+    OpenMBeanParameterInfo countParameter = new OpenMBeanParameterInfoSupport("count", "The maximum number of elements to fetch", SimpleType.INTEGER);
+
+    for (EasyBeanAttributeStructure attribute : readableAttributes)
+    {
+      if (attribute.cursor)
+      {
+        String openName = openOperationName(attribute);
+        operationsInfo.add(new OpenMBeanOperationInfoSupport(openName, "Opens a cursor over " + attribute.name + ".", new OpenMBeanParameterInfo[0], SimpleType.LONG, OperationImpact.ACTION.getMBeanImpact()));
+        cursorOperationIndex.put(new OperationSignature(openName, new Class<?>[0]), new Operation(Operation.Kind.OPEN, attribute));
+
+        String fetchName = fetchOperationName(attribute);
+        operationsInfo.add(new OpenMBeanOperationInfoSupport(fetchName, "Fetches the next elements of a cursor over " + attribute.name + ". Returns an empty page once the end is reached.",
+            new OpenMBeanParameterInfo[] {cursorParameter, countParameter}, attribute.typeMapping.getOpenType(), OperationImpact.ACTION_INFO.getMBeanImpact()));
+        cursorOperationIndex.put(new OperationSignature(fetchName, new Class<?>[] {long.class, int.class}), new Operation(Operation.Kind.FETCH, attribute));
+      }
+    }
+
+    if (!cursorOperationIndex.isEmpty())
+    {
+      operationsInfo.add(new OpenMBeanOperationInfoSupport(CLOSE_OPERATION_NAME, "Closes a cursor.", new OpenMBeanParameterInfo[] {cursorParameter}, SimpleType.VOID, OperationImpact.ACTION.getMBeanImpact()));
+      cursorOperationIndex.put(new OperationSignature(CLOSE_OPERATION_NAME, new Class<?>[] {long.class}), new Operation(Operation.Kind.CLOSE, null));
+    }
+
+    return operationsInfo.toArray(new OpenMBeanOperationInfo[operationsInfo.size()]);
+  }
+
+  /*
+   * A generated cursor operation.
+   */
+  static class Operation
+  {
+    enum Kind
+    {
+      OPEN,
+      FETCH,
+      CLOSE
+    }
+
+    final Kind kind;
+
+    final EasyBeanAttributeStructure attribute;
+
+    Operation(Kind kind, EasyBeanAttributeStructure attribute)
+    {
+      this.kind = kind;
+      this.attribute = attribute;
+    }
+  }
+}
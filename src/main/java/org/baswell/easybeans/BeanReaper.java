@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+
+/*
+ * The single daemon thread that unregisters weakly registered beans once they have been garbage collected (see
+ * EasyBeansRegistery#registerWeakly(Object)). Started on first use.
+ */
+class BeanReaper implements Runnable
+{
+  private static ReferenceQueue<Object> queue;
+
+  static synchronized ReferenceQueue<Object> getQueue()
+  {
+    if (queue == null)
+    {
+      queue = new ReferenceQueue<Object>();
+      Thread thread = new Thread(new BeanReaper(queue), "EasyBeans-Reaper");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    return queue;
+  }
+
+  private final ReferenceQueue<Object> referenceQueue;
+
+  BeanReaper(ReferenceQueue<Object> referenceQueue)
+  {
+    this.referenceQueue = referenceQueue;
+  }
+
+  @Override
+  public void run()
+  {
+    while (true)
+    {
+      try
+      {
+        Reference reference = referenceQueue.remove();
+        if (reference instanceof EasyBeansRegistery.WeakRegistration)
+        {
+          ((EasyBeansRegistery.WeakRegistration) reference).reap();
+        }
+      }
+      catch (Throwable exc)
+      {}
+    }
+  }
+}
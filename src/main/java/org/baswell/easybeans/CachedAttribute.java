@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * The cached (already converted) value of an attribute annotated with EasyBeanAttribute#cacheMillis(). One of these per
+ * wrapper and cached attribute. If the value has expired only one reader loads it, other readers of the attribute wait
+ * for that value instead of all calling the getter at once.
+ */
+class CachedAttribute
+{
+  final long cacheNanos;
+
+  final AtomicLong hits = new AtomicLong();
+
+  final AtomicLong misses = new AtomicLong();
+
+  private volatile CachedValue cachedValue;
+
+  /*
+   * Incremented on every invalidation so a value loaded while being invalidated isn't cached.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  CachedAttribute(long cacheMillis)
+  {
+    cacheNanos = cacheMillis * 1000000L;
+  }
+
+  Object get(EasyBeanWrapper wrapper, EasyBeanAttributeStructure beanAttribute) throws Exception
+  {
+    CachedValue cachedValue = this.cachedValue;
+    if ((cachedValue != null) && cachedValue.isValid())
+    {
+      hits.incrementAndGet();
+      return cachedValue.value;
+    }
+
+    synchronized (this)
+    {
+      cachedValue = this.cachedValue;
+      if ((cachedValue != null) && cachedValue.isValid())
+      {
+        hits.incrementAndGet();
+        return cachedValue.value;
+      }
+
+      misses.incrementAndGet();
+      long loadGeneration = generation.get();
+      Object value = wrapper.readAttribute(beanAttribute);
+      if (loadGeneration == generation.get())
+      {
+        this.cachedValue = new CachedValue(value, System.nanoTime() + cacheNanos);
+        if (loadGeneration != generation.get())
+        {
+          this.cachedValue = null;
+        }
+      }
+      return value;
+    }
+  }
+
+  void invalidate()
+  {
+    generation.incrementAndGet();
+    cachedValue = null;
+  }
+
+  static class CachedValue
+  {
+    final Object value;
+
+    final long expiresAt;
+
+    CachedValue(Object value, long expiresAt)
+    {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isValid()
+    {
+      return (System.nanoTime() - expiresAt) < 0;
+    }
+  }
+}
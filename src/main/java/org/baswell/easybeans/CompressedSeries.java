@@ -0,0 +1,328 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/*
+ * A time series of doubles compressed the way Facebook's Gorilla compresses them. Timestamps are stored as the difference
+ * between consecutive deltas (zero for samples taken on schedule, which costs a single bit). Values are stored as the XOR
+ * of their bits with the previous value's bits, which is zero (one bit) for an unchanged value and otherwise usually has
+ * few meaningful bits between long runs of leading and trailing zeros.
+ *
+ * Samples are appended to blocks of SAMPLES_PER_BLOCK samples so old samples can be dropped a block at a time. Times must
+ * be appended in increasing order. Not thread safe, EasyBeansHistory synchronizes on each series.
+ */
+class CompressedSeries
+{
+  static final int SAMPLES_PER_BLOCK = 1024;
+
+  private final List<Block> blocks = new ArrayList<Block>();
+
+  void append(long time, double value)
+  {
+    Block current = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+    if ((current == null) || (current.count == SAMPLES_PER_BLOCK))
+    {
+      if (current != null)
+      {
+        current.seal();
+      }
+      current = new Block();
+      blocks.add(current);
+    }
+    current.append(time, value);
+  }
+
+  /*
+   * Drops the blocks with only samples taken before the given time.
+   */
+  void dropBefore(long time)
+  {
+    while ((blocks.size() > 1) && (blocks.get(0).lastTime < time))
+    {
+      blocks.remove(0);
+    }
+  }
+
+  /*
+   * The samples taken between from and to (inclusive) by time.
+   */
+  SortedMap<Long, Double> read(long from, long to)
+  {
+    SortedMap<Long, Double> samples = new TreeMap<Long, Double>();
+    for (Block block : blocks)
+    {
+      if ((block.count > 0) && (block.firstTime <= to) && (block.lastTime >= from))
+      {
+        block.read(from, to, samples);
+      }
+    }
+    return samples;
+  }
+
+  int getSampleCount()
+  {
+    int count = 0;
+    for (Block block : blocks)
+    {
+      count += block.count;
+    }
+    return count;
+  }
+
+  /*
+   * The bytes used by the encoded samples.
+   */
+  int getCompressedSize()
+  {
+    int size = 0;
+    for (Block block : blocks)
+    {
+      size += (block.bitPosition + 7) >>> 3;
+    }
+    return size;
+  }
+
+  static class Block
+  {
+    byte[] bytes = new byte[64];
+
+    int bitPosition;
+
+    int count;
+
+    long firstTime;
+
+    long lastTime;
+
+    long lastDelta;
+
+    long lastValueBits;
+
+    int lastLeadingZeros = -1;
+
+    int lastTrailingZeros;
+
+    void append(long time, double value)
+    {
+      long valueBits = Double.doubleToRawLongBits(value);
+
+      if (count == 0)
+      {
+        firstTime = time;
+        writeBits(time, 64);
+        writeBits(valueBits, 64);
+      }
+      else
+      {
+        long delta = time - lastTime;
+        writeDeltaOfDelta(delta - lastDelta);
+        writeXor(valueBits ^ lastValueBits);
+        lastDelta = delta;
+      }
+
+      lastTime = time;
+      lastValueBits = valueBits;
+      count++;
+    }
+
+    /*
+     * Trims the buffer once no more samples will be appended.
+     */
+    void seal()
+    {
+      bytes = Arrays.copyOf(bytes, (bitPosition + 7) >>> 3);
+    }
+
+    void read(long from, long to, SortedMap<Long, Double> samples)
+    {
+      BitReader reader = new BitReader(bytes);
+      long time = reader.readBits(64);
+      long valueBits = reader.readBits(64);
+      long delta = 0;
+      int leadingZeros = 0;
+      int trailingZeros = 0;
+
+      for (int i = 0; (i < count) && (time <= to); i++)
+      {
+        if (i > 0)
+        {
+          delta += readDeltaOfDelta(reader);
+          time += delta;
+
+          if (reader.readBits(1) == 1)
+          {
+            if (reader.readBits(1) == 1)
+            {
+              leadingZeros = (int)reader.readBits(5);
+              int significantBits = (int)reader.readBits(6) + 1;
+              trailingZeros = 64 - leadingZeros - significantBits;
+            }
+            valueBits ^= reader.readBits(64 - leadingZeros - trailingZeros) << trailingZeros;
+          }
+        }
+
+        if ((time >= from) && (time <= to))
+        {
+          samples.put(time, Double.longBitsToDouble(valueBits));
+        }
+      }
+    }
+
+    /*
+     * 0 for no change in the delta, otherwise a prefix for how many bits the change takes followed by the change
+     * (offset so it's never negative).
+     */
+    void writeDeltaOfDelta(long deltaOfDelta)
+    {
+      if (deltaOfDelta == 0)
+      {
+        writeBits(0, 1);
+      }
+      else if ((deltaOfDelta >= -63) && (deltaOfDelta <= 64))
+      {
+        writeBits(0x2, 2);
+        writeBits(deltaOfDelta + 63, 7);
+      }
+      else if ((deltaOfDelta >= -255) && (deltaOfDelta <= 256))
+      {
+        writeBits(0x6, 3);
+        writeBits(deltaOfDelta + 255, 9);
+      }
+      else if ((deltaOfDelta >= -2047) && (deltaOfDelta <= 2048))
+      {
+        writeBits(0xE, 4);
+        writeBits(deltaOfDelta + 2047, 12);
+      }
+      else
+      {
+        writeBits(0xF, 4);
+        writeBits(deltaOfDelta, 64);
+      }
+    }
+
+    static long readDeltaOfDelta(BitReader reader)
+    {
+      if (reader.readBits(1) == 0)
+      {
+        return 0;
+      }
+      else if (reader.readBits(1) == 0)
+      {
+        return reader.readBits(7) - 63;
+      }
+      else if (reader.readBits(1) == 0)
+      {
+        return reader.readBits(9) - 255;
+      }
+      else if (reader.readBits(1) == 0)
+      {
+        return reader.readBits(12) - 2047;
+      }
+      else
+      {
+        return reader.readBits(64);
+      }
+    }
+
+    /*
+     * 0 for an unchanged value. Otherwise 1 followed by either 0 and the meaningful bits if they fit in the previous
+     * value's meaningful bits, or 1, the number of leading zeros, the number of meaningful bits and the meaningful bits.
+     */
+    void writeXor(long xor)
+    {
+      if (xor == 0)
+      {
+        writeBits(0, 1);
+        return;
+      }
+
+      writeBits(1, 1);
+      int leadingZeros = Math.min(31, Long.numberOfLeadingZeros(xor));
+      int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+      if ((lastLeadingZeros >= 0) && (leadingZeros >= lastLeadingZeros) && (trailingZeros >= lastTrailingZeros))
+      {
+        writeBits(0, 1);
+        writeBits(xor >>> lastTrailingZeros, 64 - lastLeadingZeros - lastTrailingZeros);
+      }
+      else
+      {
+        int significantBits = 64 - leadingZeros - trailingZeros;
+        writeBits(1, 1);
+        writeBits(leadingZeros, 5);
+        writeBits(significantBits - 1, 6);
+        writeBits(xor >>> trailingZeros, significantBits);
+        lastLeadingZeros = leadingZeros;
+        lastTrailingZeros = trailingZeros;
+      }
+    }
+
+    /*
+     * Writes the low numberBits of value, most significant first.
+     */
+    void writeBits(long value, int numberBits)
+    {
+      while (numberBits > 0)
+      {
+        int byteIndex = bitPosition >>> 3;
+        if (byteIndex == bytes.length)
+        {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        int free = 8 - (bitPosition & 7);
+        int written = Math.min(free, numberBits);
+        int chunk = (int)(value >>> (numberBits - written)) & ((1 << written) - 1);
+        bytes[byteIndex] |= chunk << (free - written);
+        bitPosition += written;
+        numberBits -= written;
+      }
+    }
+  }
+
+  static class BitReader
+  {
+    final byte[] bytes;
+
+    int bitPosition;
+
+    BitReader(byte[] bytes)
+    {
+      this.bytes = bytes;
+    }
+
+    long readBits(int numberBits)
+    {
+      long value = 0;
+      while (numberBits > 0)
+      {
+        int available = 8 - (bitPosition & 7);
+        int read = Math.min(available, numberBits);
+        int chunk = ((bytes[bitPosition >>> 3] & 0xFF) >>> (available - read)) & ((1 << read) - 1);
+        value = (value << read) | chunk;
+        bitPosition += read;
+        numberBits -= read;
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Random;
+
+/*
+ * The most elements (or map entries) converted of each array, collection and map in an attribute value and the most levels
+ * of them (and composites) nested in the value. Attributes set their own limits with EasyBeanAttribute#maxElements()
+ * and EasyBeanAttribute#maxDepth(), every other attribute is converted under the global limits. The global limits are
+ * read once for the process from the system properties easybeans.maxElements, easybeans.maxDepth and easybeans.truncation
+ * (the EasyBeanTruncationPolicy name), without any of them set attributes are converted in full. A limit that isn't a
+ * positive number fails the loading of this class, an unknown policy name falls back to TRUNCATE_TAIL.
+ */
+class ConversionLimits
+{
+  static final String MAX_ELEMENTS_PROPERTY = "easybeans.maxElements";
+
+  static final String MAX_DEPTH_PROPERTY = "easybeans.maxDepth";
+
+  static final String TRUNCATION_PROPERTY = "easybeans.truncation";
+
+  /*
+   * Null if there are no global limits.
+   */
+  static final ConversionLimits global = loadGlobal();
+
+  private static final Random random = new Random();
+
+  final int maxElements;
+
+  final int maxDepth;
+
+  final EasyBeanTruncationPolicy policy;
+
+  ConversionLimits(int maxElements, int maxDepth, EasyBeanTruncationPolicy policy)
+  {
+    this.maxElements = maxElements;
+    this.maxDepth = maxDepth;
+    this.policy = policy;
+  }
+
+  /*
+   * The limits the given attribute is converted under, null if it's converted in full.
+   */
+  static ConversionLimits forAttribute(Class clazz, String name, EasyBeanAttribute attMeta) throws InvalidEasyBeanAnnotation
+  {
+    if ((attMeta == null) || ((attMeta.maxElements() == -1) && (attMeta.maxDepth() == -1)))
+    {
+      return global;
+    }
+    else if ((attMeta.maxElements() == 0) || (attMeta.maxElements() < -1) || (attMeta.maxDepth() == 0) || (attMeta.maxDepth() < -1))
+    {
+      throw new InvalidEasyBeanAnnotation(clazz, "Attribute " + name + " has a maxElements or maxDepth that is not positive.");
+    }
+
+    int maxElements = (attMeta.maxElements() != -1) ? attMeta.maxElements() : (global == null) ? Integer.MAX_VALUE : global.maxElements;
+    int maxDepth = (attMeta.maxDepth() != -1) ? attMeta.maxDepth() : (global == null) ? Integer.MAX_VALUE : global.maxDepth;
+    return new ConversionLimits(maxElements, maxDepth, attMeta.truncation());
+  }
+
+  static ConversionLimits loadGlobal()
+  {
+    return loadGlobal(System.getProperty(MAX_ELEMENTS_PROPERTY), System.getProperty(MAX_DEPTH_PROPERTY), System.getProperty(TRUNCATION_PROPERTY));
+  }
+
+  /*
+   * Each property is parsed on its own so a bad one never drops the others.
+   */
+  static ConversionLimits loadGlobal(String maxElements, String maxDepth, String truncation)
+  {
+    if ((maxElements == null) && (maxDepth == null))
+    {
+      return null;
+    }
+
+    return new ConversionLimits(parseLimit(MAX_ELEMENTS_PROPERTY, maxElements), parseLimit(MAX_DEPTH_PROPERTY, maxDepth), parsePolicy(truncation));
+  }
+
+  static int parseLimit(String property, String value)
+  {
+    if (value == null)
+    {
+      return Integer.MAX_VALUE;
+    }
+
+    int limit;
+    try
+    {
+      limit = Integer.parseInt(value.trim());
+    }
+    catch (NumberFormatException e)
+    {
+      limit = 0;
+    }
+
+    if (limit < 1)
+    {
+      throw new IllegalArgumentException("The system property " + property + " must be a positive number but is " + value + ".");
+    }
+    return limit;
+  }
+
+  static EasyBeanTruncationPolicy parsePolicy(String truncation)
+  {
+    if (truncation != null)
+    {
+      for (EasyBeanTruncationPolicy policy : EasyBeanTruncationPolicy.values())
+      {
+        if (policy.name().equalsIgnoreCase(truncation.trim()))
+        {
+          return policy;
+        }
+      }
+    }
+    return EasyBeanTruncationPolicy.TRUNCATE_TAIL;
+  }
+
+  /*
+   * The indexes (in ascending order) of an array of the given length that are kept, null if all of them are.
+   */
+  int[] keptIndexes(int length)
+  {
+    if (length <= maxElements)
+    {
+      return null;
+    }
+
+    int[] indexes = new int[maxElements];
+    int first = (policy == EasyBeanTruncationPolicy.TRUNCATE_HEAD) ? length - maxElements : 0;
+    for (int i = 0; i < maxElements; i++)
+    {
+      indexes[i] = first + i;
+    }
+
+    if (policy == EasyBeanTruncationPolicy.RESERVOIR_SAMPLE)
+    {
+      for (int i = maxElements; i < length; i++)
+      {
+        int slot = random.nextInt(i + 1);
+        if (slot < maxElements)
+        {
+          indexes[slot] = i;
+        }
+      }
+      Arrays.sort(indexes);
+    }
+
+    return indexes;
+  }
+
+  /*
+   * The elements of the given Iterable that are kept. Iterables are iterated in full to find their size (except Collections
+   * truncated at the tail) but no more than maxElements of them are ever held.
+   */
+  Object[] keep(Iterable iterable, Truncation truncation, boolean top)
+  {
+    int knownSize = (iterable instanceof Collection) ? ((Collection)iterable).size() : -1;
+    Object[] kept = new Object[Math.min(maxElements, (knownSize >= 0) ? knownSize : 16)];
+    int size = 0;
+    long count = 0;
+
+    for (Iterator iterator = iterable.iterator(); iterator.hasNext(); count++)
+    {
+      Object element = iterator.next();
+      if (size < maxElements)
+      {
+        if (size == kept.length)
+        {
+          kept = Arrays.copyOf(kept, (int)Math.min(maxElements, (kept.length * 2L) + 1));
+        }
+        kept[size++] = element;
+      }
+      else if (policy == EasyBeanTruncationPolicy.TRUNCATE_HEAD)
+      {
+        kept[(int)(count % maxElements)] = element;
+      }
+      else if (policy == EasyBeanTruncationPolicy.RESERVOIR_SAMPLE)
+      {
+        long slot = (long)(random.nextDouble() * (count + 1));
+        if (slot < maxElements)
+        {
+          kept[(int)slot] = element;
+        }
+      }
+      else if (knownSize > count)
+      {
+        count = knownSize;
+        break;
+      }
+    }
+
+    if (size < kept.length)
+    {
+      kept = Arrays.copyOf(kept, size);
+    }
+    else if ((policy == EasyBeanTruncationPolicy.TRUNCATE_HEAD) && (count > maxElements))
+    {
+      /*
+       * The ring of the last elements starts at the oldest.
+       */
+      Object[] ring = kept;
+      kept = new Object[size];
+      int oldest = (int)(count % maxElements);
+      for (int i = 0; i < size; i++)
+      {
+        kept[i] = ring[(oldest + i) % size];
+      }
+    }
+
+    if (truncation != null)
+    {
+      truncation.record(top, count, size);
+    }
+    return kept;
+  }
+}
@@ -45,4 +45,12 @@ public @interface EasyBean
    * The type of exposure for fields, methods and constructors of this easy bean. Defaults to {@link EasyBeanExposure#ANNOTATED}.
    */
   EasyBeanExposure exposure() default EasyBeanExposure.ANNOTATED;
+
+  /**
+   * If {@code true} the wrapper of this easy bean only resolves its {@link ObjectName} when created. The attributes,
+   * operations, their OpenType mappings and the MBeanInfo are loaded the first time the MBean is used (for example
+   * by a JMX client reading an attribute). Annotation and OpenType errors are then reported at that time instead of
+   * when the bean is registered. Defaults to {@code false}.
+   */
+  boolean lazy() default false;
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Dispatch the notifications of an {@link EasyBeansNotifierUser} asynchronously. Calls to {@link EasyBeansNotifier#notify(javax.management.Notification)}
+ * place the notification in a bounded buffer and return immediately. Dedicated dispatcher threads deliver the
+ * notifications from the buffer to the registered listeners.
+ * <p>
+ * The following attributes are added to the MBean of the annotated object:
+ * <ul>
+ *   <li>NotificationQueueDepth - The number of notifications waiting to be dispatched.</li>
+ *   <li>NotificationQueueCapacity - The size of the notification buffer.</li>
+ *   <li>NotificationsPublished - The number of notifications placed in the buffer.</li>
+ *   <li>NotificationsDropped - The number of notifications dropped because the buffer was full.</li>
+ * </ul>
+ *
+ * @see EasyBeanNotificationWrapper
+ */
+@Target({ElementType.TYPE})
+@Retention(value=RetentionPolicy.RUNTIME)
+public @interface EasyBeanAsyncNotifications
+{
+  /**
+   * The number of notifications the buffer can hold.
+   */
+  int bufferSize() default 1024;
+
+  /**
+   * The number of threads dispatching notifications to listeners. With more than one thread notifications may be
+   * delivered out of order.
+   */
+  int dispatcherThreads() default 1;
+
+  /**
+   * What happens to a notification when the buffer is full. Defaults to {@link NotificationOverflowPolicy#DROP_OLDEST}.
+   */
+  NotificationOverflowPolicy overflowPolicy() default NotificationOverflowPolicy.DROP_OLDEST;
+}
@@ -47,4 +47,45 @@ public @interface EasyBeanAttribute
    * Forces this attribute to be read-only even if the field or setter is available to write to.
    */
   boolean readOnly() default false;
+
+  /**
+   * The number of milliseconds a read value of this attribute is cached. Reads within this time are served the same
+   * (already converted) value without calling the getter or reading the field. Defaults to 0 (not cached).
+   *
+   * @see EasyBeansExtendedNotifier#invalidateCachedAttribute(String)
+   * @see EasyBeanWrapper#getCachedAttributeHits()
+   */
+  long cacheMillis() default 0;
+
+  /**
+   * Adds operations to read this (array, collection or map) attribute a page at a time through a server side cursor.
+   * For an attribute <code>Orders</code> the operations are <code>openOrdersCursor()</code>, which returns a cursor id,
+   * <code>fetchOrdersCursor(cursor, count)</code>, which returns the next page of up to count elements (or rows) in the
+   * attribute's own type, and <code>closeCursor(cursor)</code>. Only the elements of each page are converted so clients
+   * can read huge collections with bounded memory. Cursors not used for five minutes are closed.
+   */
+  boolean cursor() default false;
+
+  /**
+   * The most elements (or map entries) converted of this attribute's value and of each array, collection and map nested
+   * in it. Which elements are kept is decided by {@link #truncation()}. Attributes that can be truncated get a companion
+   * attribute (for <code>Orders</code> it's <code>OrdersTruncation</code>) that reports the original size of the last
+   * value read, how much of it was converted and if anything was left out. Defaults to -1, the global limit set with the
+   * system property <code>easybeans.maxElements</code> (unlimited if not set).
+   */
+  int maxElements() default -1;
+
+  /**
+   * The most levels of arrays, collections, maps and composites converted in this attribute's value, the value itself is
+   * level one. Deeper values are converted to null. Defaults to -1, the global limit set with the system property
+   * <code>easybeans.maxDepth</code> (unlimited if not set).
+   */
+  int maxDepth() default -1;
+
+  /**
+   * Which elements are kept when there are more than {@link #maxElements()}. Only used if this attribute sets its own
+   * maxElements or maxDepth, otherwise the global policy set with the system property <code>easybeans.truncation</code>
+   * is used.
+   */
+  EasyBeanTruncationPolicy truncation() default EasyBeanTruncationPolicy.TRUNCATE_TAIL;
 }
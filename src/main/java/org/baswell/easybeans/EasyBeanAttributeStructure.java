@@ -16,7 +16,6 @@
 package org.baswell.easybeans;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -34,6 +33,15 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
 
   final boolean wasWriteAnnotated;
 
+  final long cacheMillis;
+
+  final boolean cursor;
+
+  /*
+   * The limits this attribute is converted under, null if it's converted in full.
+   */
+  final ConversionLimits limits;
+
   private final Field field;
 
   private final Method getter;
@@ -42,6 +50,15 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
 
   private final boolean writeable;
 
+  /*
+   * Bound on first use so members that are never read or written (not exposed) don't get bound.
+   */
+  private Getter boundGetter;
+
+  private Setter boundSetter;
+
+  private volatile OpenTypeConverter converter;
+
   EasyBeanAttributeStructure(Class clazz, Field field)
   {
     super(clazz);
@@ -68,11 +85,19 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
 
     typeMapping = mapToOpenType(field);
     descriptor = getDescriptor(field);
+    cacheMillis = (attMeta == null) ? 0 : Math.max(0, attMeta.cacheMillis());
+    cursor = (attMeta != null) && attMeta.cursor();
+    validateCursor();
+    limits = ConversionLimits.forAttribute(clazz, name, attMeta);
 
     if (Modifier.isFinal(field.getModifiers()))
     {
       writeable = false;
     }
+    else if (EasyBeanCounter.class.isAssignableFrom(field.getType()) || EasyBeanGauge.class.isAssignableFrom(field.getType()) || EasyBeanTimer.class.isAssignableFrom(field.getType()))
+    {
+      writeable = false; // Updated by the bean, JMX clients only read them
+    }
     else if (attMeta != null)
     {
       writeable = !attMeta.readOnly();
@@ -127,8 +152,12 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
     }
 
     field = null;
+    cacheMillis = (getterMeta == null) ? 0 : Math.max(0, getterMeta.cacheMillis());
+    cursor = (getterMeta != null) && getterMeta.cursor();
     typeMapping = mapAttributeToOpenType(getter != null ? getter : setter);
     descriptor = getDescriptor(getter, setter);
+    validateCursor();
+    limits = ConversionLimits.forAttribute(clazz, name, getterMeta);
 
     if (setter == null)
     {
@@ -142,6 +171,39 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
     }
   }
 
+  /*
+   * Only arrays, collections and maps can be read through a cursor.
+   */
+  void validateCursor()
+  {
+    if (cursor && (typeMapping != null) && !typeMapping.isArrayType() && !typeMapping.isTabularType())
+    {
+      throw new InvalidEasyBeanAnnotation(clazz, "Attribute " + name + " is annotated with cursor but is not an array, collection or map.");
+    }
+  }
+
+  /*
+   * True if values of this attribute may not be converted in full (see Truncation).
+   */
+  boolean isTruncatable()
+  {
+    return (limits != null) && (typeMapping != null) && !typeMapping.isSimpleType() && !typeMapping.hasPresetConverter();
+  }
+
+  /*
+   * The converter of this attribute's values. Attributes with their own limits compile their own converter, all others
+   * share their mapping's converter.
+   */
+  OpenTypeConverter converter()
+  {
+    OpenTypeConverter converter = this.converter;
+    if (converter == null)
+    {
+      converter = this.converter = (limits == ConversionLimits.global) ? typeMapping.getConverter() : OpenTypeConverter.compile(typeMapping, limits, 0);
+    }
+    return converter;
+  }
+
   boolean isIs()
   {
     return (getter != null) ? getter.getName().startsWith("is") : false;
@@ -157,31 +219,47 @@ class EasyBeanAttributeStructure extends EasyBeanMemberStructure
     return writeable;
   }
 
-  Object get(Object pojo) throws IllegalAccessException, InvocationTargetException
+  Object get(Object pojo) throws Exception
   {
-    if (field != null)
-    {
-      return field.get(pojo);
-    }
-    else if (getter != null)
-    {
-      return getter.invoke(pojo);
-    }
-    else
+    Getter boundGetter = this.boundGetter;
+    if (boundGetter == null)
     {
-      return null;
+      if (field != null)
+      {
+        boundGetter = this.boundGetter = AccessorBackend.bindGetter(field);
+      }
+      else if (getter != null)
+      {
+        boundGetter = this.boundGetter = AccessorBackend.bindGetter(getter);
+      }
+      else
+      {
+        return null;
+      }
     }
+
+    return boundGetter.get(pojo);
   }
 
-  void set(Object pojo, Object value) throws IllegalAccessException, InvocationTargetException
+  void set(Object pojo, Object value) throws Exception
   {
-    if (field != null)
-    {
-      field.set(pojo, value);
-    }
-    else if (setter != null)
+    Setter boundSetter = this.boundSetter;
+    if (boundSetter == null)
     {
-      setter.invoke(pojo, value);
+      if (field != null)
+      {
+        boundSetter = this.boundSetter = AccessorBackend.bindSetter(field);
+      }
+      else if (setter != null)
+      {
+        boundSetter = this.boundSetter = AccessorBackend.bindSetter(setter);
+      }
+      else
+      {
+        return;
+      }
     }
+
+    boundSetter.set(pojo, value);
   }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.ObjectName;
+
+/**
+ * Thrown when an attribute is read or written or an operation is invoked on a weakly registered bean that has been garbage
+ * collected but not yet unregistered.
+ *
+ * @see org.baswell.easybeans.EasyBeansRegistery#registerWeakly(Object)
+ */
+public class EasyBeanCollectedException extends EasyBeanException
+{
+  public final Class beanClass;
+
+  public final ObjectName objectName;
+
+  public EasyBeanCollectedException(Class beanClass, ObjectName objectName)
+  {
+    super("The " + beanClass.getName() + " bean registered as " + objectName + " has been garbage collected.");
+    this.beanClass = beanClass;
+    this.objectName = objectName;
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count updated by many threads at once (requests served, bytes sent). Updates go to a single value until threads
+ * contend for it. From then on they are spread over a set of cells, kept on separate cache lines. The cells are summed
+ * only when the count is read, so updates stay cheap under contention and reads pay the cost. Exposed as a
+ * {@link javax.management.openmbean.SimpleType#LONG} attribute.
+ *
+ * <pre>
+ * &#64;EasyBeanAttribute(description = "The number of requests served.")
+ * public final EasyBeanCounter requests = new EasyBeanCounter();
+ * </pre>
+ *
+ * A counter created with <code>resetOnRead</code> is reset each time its attribute is read, so every JMX read returns
+ * the count since the previous read.
+ */
+public class EasyBeanCounter extends Number
+{
+  private static final long serialVersionUID = 1L;
+
+  /*
+   * Enough cells for every processor to update its own.
+   */
+  static final int MAX_CELLS = Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  /*
+   * Each thread's probe picks its cell. Seeded from the (mixed) thread id and rehashed each time the thread collides
+   * with another on a cell, so threads that keep colliding move apart.
+   */
+  private static final ThreadLocal<int[]> probe = new ThreadLocal<int[]>()
+  {
+    @Override
+    protected int[] initialValue()
+    {
+      int hash = (int)Thread.currentThread().getId() * 0x9E3779B9;
+      hash ^= hash >>> 16;
+      return new int[] {(hash == 0) ? 1 : hash};
+    }
+  };
+
+  private final boolean resetOnRead;
+
+  private final AtomicLong base = new AtomicLong();
+
+  private volatile Cell[] cells;
+
+  public EasyBeanCounter()
+  {
+    this(false);
+  }
+
+  /**
+   * @param resetOnRead If {@code true} the counter is reset each time its attribute is read.
+   */
+  public EasyBeanCounter(boolean resetOnRead)
+  {
+    this.resetOnRead = resetOnRead;
+  }
+
+  public void increment()
+  {
+    add(1);
+  }
+
+  public void decrement()
+  {
+    add(-1);
+  }
+
+  public void add(long delta)
+  {
+    Cell[] cells = this.cells;
+    if (cells == null)
+    {
+      long value = base.get();
+      if (base.compareAndSet(value, value + delta))
+      {
+        return;
+      }
+      cells = grow(null);
+    }
+
+    int[] threadProbe = probe.get();
+    while (true)
+    {
+      Cell cell = cells[threadProbe[0] & (cells.length - 1)];
+      long value = cell.get();
+      if (cell.compareAndSet(value, value + delta))
+      {
+        return;
+      }
+
+      /*
+       * Another thread is using this cell. Move this thread to another cell and, until there's a cell for every
+       * processor, spread the threads over more cells.
+       */
+      threadProbe[0] = rehash(threadProbe[0]);
+      if (cells.length < MAX_CELLS)
+      {
+        cells = grow(cells);
+      }
+    }
+  }
+
+  /**
+   * @return The current count. Updates made while summing may or may not be included.
+   */
+  public long sum()
+  {
+    long sum = base.get();
+    Cell[] cells = this.cells;
+    if (cells != null)
+    {
+      for (Cell cell : cells)
+      {
+        sum += cell.get();
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * @return The current count and resets the counter to zero. Updates made while resetting are either included in the
+   * returned count or remain in the counter, none are lost.
+   */
+  public long sumThenReset()
+  {
+    long sum = base.getAndSet(0);
+    Cell[] cells = this.cells;
+    if (cells != null)
+    {
+      for (Cell cell : cells)
+      {
+        sum += cell.getAndSet(0);
+      }
+    }
+    return sum;
+  }
+
+  public void reset()
+  {
+    sumThenReset();
+  }
+
+  /**
+   * @return {@code true} if the counter is reset each time its attribute is read.
+   */
+  public boolean isResetOnRead()
+  {
+    return resetOnRead;
+  }
+
+  /*
+   * The value reported to JMX clients.
+   */
+  long read()
+  {
+    return resetOnRead ? sumThenReset() : sum();
+  }
+
+  @Override
+  public long longValue()
+  {
+    return sum();
+  }
+
+  @Override
+  public int intValue()
+  {
+    return (int)sum();
+  }
+
+  @Override
+  public float floatValue()
+  {
+    return sum();
+  }
+
+  @Override
+  public double doubleValue()
+  {
+    return sum();
+  }
+
+  @Override
+  public String toString()
+  {
+    return Long.toString(sum());
+  }
+
+  /*
+   * Only the first thread to see contention on the given cells grows them. Existing cells are kept so no updates are lost.
+   */
+  private synchronized Cell[] grow(Cell[] contendedCells)
+  {
+    Cell[] cells = this.cells;
+    if ((cells == contendedCells) && ((cells == null) || (cells.length < MAX_CELLS)))
+    {
+      int length = (cells == null) ? 0 : cells.length;
+      Cell[] grown = new Cell[Math.max(2, length * 2)];
+      if (cells != null)
+      {
+        System.arraycopy(cells, 0, grown, 0, length);
+      }
+
+      for (int i = length; i < grown.length; i++)
+      {
+        grown[i] = new Cell();
+      }
+      this.cells = cells = grown;
+    }
+    return cells;
+  }
+
+  /*
+   * Marsaglia xorshift, never returns zero for a non-zero probe.
+   */
+  static int rehash(int probe)
+  {
+    probe ^= probe << 13;
+    probe ^= probe >>> 17;
+    probe ^= probe << 5;
+    return probe;
+  }
+
+  /*
+   * The padding keeps cells allocated next to each other off the same cache line.
+   */
+  static final class Cell extends AtomicLong
+  {
+    private static final long serialVersionUID = 1L;
+
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+}
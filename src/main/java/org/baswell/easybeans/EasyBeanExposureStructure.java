@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Descriptor;
+import javax.management.openmbean.*;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+import static org.baswell.easybeans.OpenTypeMapper.mapToOpenType;
+import static org.baswell.easybeans.SharedMethods.*;
+
+/*
+ * The structure of a class bean for a given EasyBeanExposure. Holds the MBean info and the attribute and operation lookup
+ * tables that are the same for every wrapper of the class with the same exposure. Once loaded nothing in here changes
+ * so it is shared by all these wrappers.
+ */
+class EasyBeanExposureStructure
+{
+  final EasyBeanExposure exposure;
+
+  final OpenMBeanConstructorInfo[] constructorInfo;
+
+  final OpenMBeanAttributeInfo[] attributeInfo;
+
+  final OpenMBeanOperationInfo[] operationInfo;
+
+  final Map<String, EasyBeanAttributeStructure> readableAttributeStructures;
+
+  final Map<String, EasyBeanAttributeStructure> writableAttributeStructures;
+
+  /*
+   * Operations keyed by name and parameter class names so overloaded operations are resolved with one lookup.
+   */
+  final Map<OperationSignature, EasyBeanOperationStructure> operationIndex;
+
+  /*
+   * The operations generated for attributes read through cursors (see EasyBeanAttribute#cursor()).
+   */
+  final Map<OperationSignature, AttributeCursor.Operation> cursorOperationIndex;
+
+  /*
+   * The attributes that can be truncated keyed by the name of their companion attribute (see Truncation).
+   */
+  final Map<String, EasyBeanAttributeStructure> truncationAttributeIndex;
+
+  EasyBeanExposureStructure(EasyBeanStructure beanStructure, EasyBeanExposure exposure) throws InvalidEasyBeanAnnotation
+  {
+    this.exposure = exposure;
+
+    constructorInfo = loadConstructorInfo(beanStructure.clazz, beanStructure.constructors, exposure);
+
+    Map<String, EasyBeanAttributeStructure> readableAttributeStructures = new HashMap<String, EasyBeanAttributeStructure>();
+    Map<String, EasyBeanAttributeStructure> writableAttributeStructures = new HashMap<String, EasyBeanAttributeStructure>();
+    Map<String, EasyBeanAttributeStructure> truncationAttributeIndex = new HashMap<String, EasyBeanAttributeStructure>();
+    attributeInfo = loadAttributeInfo(beanStructure.attributes, exposure, readableAttributeStructures, writableAttributeStructures, truncationAttributeIndex);
+    this.truncationAttributeIndex = Collections.unmodifiableMap(truncationAttributeIndex);
+    this.readableAttributeStructures = Collections.unmodifiableMap(readableAttributeStructures);
+    this.writableAttributeStructures = Collections.unmodifiableMap(writableAttributeStructures);
+
+    Map<OperationSignature, EasyBeanOperationStructure> operationIndex = new HashMap<OperationSignature, EasyBeanOperationStructure>();
+    OpenMBeanOperationInfo[] beanOperationInfo = loadOperationInfo(beanStructure.clazz, beanStructure.operations, exposure, operationIndex);
+    this.operationIndex = Collections.unmodifiableMap(operationIndex);
+
+    Map<OperationSignature, AttributeCursor.Operation> cursorOperationIndex = new HashMap<OperationSignature, AttributeCursor.Operation>();
+    operationInfo = AttributeCursor.addOperationInfo(beanOperationInfo, readableAttributeStructures.values(), cursorOperationIndex);
+    this.cursorOperationIndex = Collections.unmodifiableMap(cursorOperationIndex);
+  }
+
+  static OpenMBeanConstructorInfo[] loadConstructorInfo(Class beanClass, List<EasyBeanConstructorStructure> beanConstructors, EasyBeanExposure exposure)
+  {
+    List<OpenMBeanConstructorInfo> constructorsInfo = new ArrayList<OpenMBeanConstructorInfo>();
+
+    for (EasyBeanConstructorStructure beanConstructor : beanConstructors)
+    {
+      if (beanConstructor.wasAnnotated || (exposure == EasyBeanExposure.ALL))
+      {
+        OpenMBeanParameterInfo[] paramsInfo = getParameterInfo(beanClass, beanConstructor.constructor.getParameterTypes(), beanConstructor.constructor.getParameterAnnotations(), beanConstructor.parameterNames, beanConstructor.parameterDescriptions, null);
+        if (paramsInfo != null)
+        {
+          constructorsInfo.add(new OpenMBeanConstructorInfoSupport(beanConstructor.name, beanConstructor.description, paramsInfo, beanConstructor.descriptor));
+        }
+      }
+    }
+
+    return constructorsInfo.toArray(new OpenMBeanConstructorInfo[constructorsInfo.size()]);
+  }
+
+  static OpenMBeanAttributeInfo[] loadAttributeInfo(List<EasyBeanAttributeStructure> beanAttributes, EasyBeanExposure exposure, Map<String, EasyBeanAttributeStructure> readableAttributeStructures, Map<String, EasyBeanAttributeStructure> writableAttributeStructures,
+                                                    Map<String, EasyBeanAttributeStructure> truncationAttributeIndex)
+  {
+    List<OpenMBeanAttributeInfo> attributesInfo = new ArrayList<OpenMBeanAttributeInfo>();
+
+    for (EasyBeanAttributeStructure beanAttribute : beanAttributes)
+    {
+      if (beanAttribute.typeMapping != null)
+      {
+        boolean isReadable = beanAttribute.hasReadAccess() && (beanAttribute.wasReadAnnotated || (exposure != EasyBeanExposure.ANNOTATED));
+        boolean isWritable = beanAttribute.hasWriteAccess() && (beanAttribute.wasWriteAnnotated || (exposure == EasyBeanExposure.ALL));
+
+        if (isReadable || isWritable)
+        {
+          attributesInfo.add(new OpenMBeanAttributeInfoSupport(beanAttribute.name, beanAttribute.description, (OpenType<Long>) beanAttribute.typeMapping.getOpenType(), isReadable, isWritable, beanAttribute.isIs(), beanAttribute.descriptor));
+
+          if (isReadable)
+          {
+            readableAttributeStructures.put(beanAttribute.name, beanAttribute);
+          }
+
+          if (isWritable)
+          {
+            writableAttributeStructures.put(beanAttribute.name, beanAttribute);
+          }
+        }
+      }
+    }
+
+    Truncation.addAttributeInfo(attributesInfo, readableAttributeStructures, truncationAttributeIndex);
+
+    Collections.sort(attributesInfo, new Comparator<OpenMBeanAttributeInfo>()
+    {
+      public int compare(OpenMBeanAttributeInfo a1, OpenMBeanAttributeInfo a2)
+      {
+        return a1.getName().compareTo(a2.getName());
+      }
+    });
+
+    return attributesInfo.toArray(new OpenMBeanAttributeInfoSupport[attributesInfo.size()]);
+  }
+
+  static OpenMBeanOperationInfo[] loadOperationInfo(Class beanClass, List<EasyBeanOperationStructure> beanOperations, EasyBeanExposure exposure, Map<OperationSignature, EasyBeanOperationStructure> operationIndex)
+  {
+    List<OpenMBeanOperationInfo> operationsInfo = new ArrayList<OpenMBeanOperationInfo>();
+
+    for (EasyBeanOperationStructure beanOperation : beanOperations)
+    {
+      if (beanOperation.typeMapping != null)
+      {
+        if (beanOperation.wasAnnotated || (exposure == EasyBeanExposure.ALL))
+        {
+          OpenMBeanParameterInfo[] paramsInfo = getParameterInfo(beanClass, beanOperation.method.getParameterTypes(), beanOperation.method.getParameterAnnotations(), beanOperation.parameterNames, beanOperation.parameterDescriptions, beanOperation.parameterDefaultValues);
+          if (paramsInfo != null)
+          {
+            operationsInfo.add(new OpenMBeanOperationInfoSupport(beanOperation.name, beanOperation.description, paramsInfo, beanOperation.typeMapping.getOpenType(), beanOperation.impact.getMBeanImpact(), beanOperation.descriptor));
+
+            /*
+             * If two overloads have equivalent signatures (int and Integer) the first one wins. Indexed by both the
+             * canonical and binary parameter class names so either one is found with a single lookup.
+             */
+            if (!operationIndex.containsKey(beanOperation.signature))
+            {
+              operationIndex.put(beanOperation.signature, beanOperation);
+            }
+            if (!operationIndex.containsKey(beanOperation.binarySignature))
+            {
+              operationIndex.put(beanOperation.binarySignature, beanOperation);
+            }
+          }
+        }
+      }
+    }
+
+    Collections.sort(operationsInfo, new Comparator<OpenMBeanOperationInfo>()
+    {
+      public int compare(OpenMBeanOperationInfo o1, OpenMBeanOperationInfo o2)
+      {
+        int compare = o1.getName().compareTo(o2.getName());
+        if (compare == 0)
+        {
+          int numParams1 = o1.getSignature().length;
+          int numParams2 = o2.getSignature().length;
+
+          if (numParams1 < numParams2)
+          {
+            return -1;
+          }
+          else if (numParams1 == numParams2)
+          {
+            return 0;
+          }
+          else
+          {
+            return 1;
+          }
+        }
+        else
+        {
+          return compare;
+        }
+      }
+    });
+
+    return operationsInfo.toArray(new OpenMBeanOperationInfo[operationsInfo.size()]);
+  }
+
+  static OpenMBeanParameterInfo[] getParameterInfo(Class beanClass, Class<?>[] paramTypes, Annotation[][] annotations, String[] parameterNames, String[] parameterDescriptions, String[] parameterDefaultValues)
+  {
+    OpenMBeanParameterInfo[] paramsInfo = new OpenMBeanParameterInfo[paramTypes.length];
+    
+    for (int i = 0; i < paramTypes.length; i++)
+    {
+      String name = "arg" + i;
+      OpenTypeMapping typeMapping = mapToOpenType(paramTypes[i]);
+      
+      if (typeMapping == null)
+      {
+        return null;
+      }
+
+      if ((parameterNames != null) && (parameterNames.length > i))
+      {
+        name = parameterNames[i];
+      }
+
+      String description;
+      if ((parameterDescriptions != null) && (parameterDescriptions.length > i))
+      {
+        description = parameterDescriptions[i];
+      }
+      else
+      {
+        description = name;
+      }
+
+
+      String defaultValueString = null;
+      if ((parameterDefaultValues != null) && (parameterDefaultValues.length > i))
+      {
+        defaultValueString = parameterDefaultValues[i];
+      }
+
+      List<Pair<String, Object>> descriptorPairs = new ArrayList<Pair<String, Object>>();
+      for (Annotation annotation : annotations[i])
+      {
+        if (annotation instanceof P)
+        {
+          P jmxParameter = (P)annotation;
+          if (jmxParameter.value().trim().length() > 0) name = jmxParameter.value();
+          if (jmxParameter.description().trim().length() > 0) description = jmxParameter.description();
+          if (jmxParameter.defaultValue().length > 0) defaultValueString = jmxParameter.defaultValue()[0];
+
+          for (EasyBeanDescriptor easyBeanDescriptor : jmxParameter.descriptor())
+          {
+            int count = Math.min(easyBeanDescriptor.names().length, easyBeanDescriptor.values().length);
+            for (int j = 0; j < count; j++)
+            {
+              descriptorPairs.add(Pair.pair(easyBeanDescriptor.names()[i], (Object)easyBeanDescriptor.values()[i]));
+            }
+          }
+          break;
+        }
+      }
+
+      if ((defaultValueString != null) && typeMapping.isSimpleType())
+      {
+        /*
+         * We've got no way to specify null with annotations, so if the default parameter value is an empty string
+         * and this isn't a String parameter then treat that as null.
+         */
+        Class simpleClass = typeMapping.getSimpleClass();
+        if (hasContent(defaultValueString) || (simpleClass == String.class))
+        {
+          descriptorPairs.add(Pair.pair("defaultValue", mapSimpleType(defaultValueString, simpleClass)));
+        }
+      }
+      else if (defaultValueString != null)
+      {
+        throw new InvalidEasyBeanAnnotation(beanClass, "Default value " + defaultValueString + " for parameter " + paramTypes[i].getSimpleName() + " must be a simple type.");
+      }
+      Descriptor descriptor = descriptorPairs.isEmpty() ? null : getDescriptorFromPairs(descriptorPairs);
+      /*
+       * The (OpenType<Integer>) cast here is BS to get the compiler not to complain about the constructor being ambiguous.
+       */
+      paramsInfo[i] = new OpenMBeanParameterInfoSupport(name, description, (OpenType<Integer>)typeMapping.getOpenType(), descriptor);
+    }
+    
+    return paramsInfo;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value the bean sets (queue depth, pool utilization) that is exposed as a {@link javax.management.openmbean.SimpleType#DOUBLE}
+ * attribute. Reads and updates are atomic. Subclasses can override {@link #get()} to compute the value when it's read.
+ *
+ * <pre>
+ * &#64;EasyBeanAttribute(description = "The fraction of connections in use.")
+ * public final EasyBeanGauge utilization = new EasyBeanGauge();
+ * </pre>
+ */
+public class EasyBeanGauge extends Number
+{
+  private static final long serialVersionUID = 1L;
+
+  private final AtomicLong bits;
+
+  public EasyBeanGauge()
+  {
+    this(0);
+  }
+
+  public EasyBeanGauge(double initialValue)
+  {
+    bits = new AtomicLong(Double.doubleToRawLongBits(initialValue));
+  }
+
+  public double get()
+  {
+    return Double.longBitsToDouble(bits.get());
+  }
+
+  public void set(double value)
+  {
+    bits.set(Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Atomically adds the given delta to the value.
+   *
+   * @return The updated value.
+   */
+  public double add(double delta)
+  {
+    while (true)
+    {
+      long currentBits = bits.get();
+      double updated = Double.longBitsToDouble(currentBits) + delta;
+      if (bits.compareAndSet(currentBits, Double.doubleToRawLongBits(updated)))
+      {
+        return updated;
+      }
+    }
+  }
+
+  @Override
+  public double doubleValue()
+  {
+    return get();
+  }
+
+  @Override
+  public long longValue()
+  {
+    return (long)get();
+  }
+
+  @Override
+  public int intValue()
+  {
+    return (int)get();
+  }
+
+  @Override
+  public float floatValue()
+  {
+    return (float)get();
+  }
+
+  @Override
+  public String toString()
+  {
+    return Double.toString(get());
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Base class of the accessor classes generated by {@link org.baswell.easybeans.processor.EasyBeansProcessor}. A generated
+ * class reads and writes the fields and calls the methods of one bean class directly (switch on the member index)
+ * so no reflection is used to get or set attributes or invoke operations of that class. Generated classes are picked
+ * up automatically by {@link EasyBeanWrapper}. Members without a generated accessor fall back to reflection.
+ * <p>
+ * You shouldn't need to extend this class yourself.
+ */
+public abstract class EasyBeanGeneratedAccessors
+{
+  /**
+   * Appended to the binary name of the bean class (with <code>$</code> replaced by <code>_</code>) to get the name of the
+   * generated class.
+   */
+  public static final String GENERATED_CLASS_SUFFIX = "_EasyBeanAccessors";
+
+  private final Map<String, Integer> fieldIndexes;
+
+  private final Map<String, Integer> methodIndexes;
+
+  /**
+   * @param fields The field names in index order.
+   * @param methods The method keys (<code>name(parameter canonical type names separated by commas)</code>) in index order.
+   */
+  protected EasyBeanGeneratedAccessors(String[] fields, String[] methods)
+  {
+    fieldIndexes = indexes(fields);
+    methodIndexes = indexes(methods);
+  }
+
+  /**
+   * Reads the field with the given index.
+   */
+  protected abstract Object get(Object bean, int field) throws Exception;
+
+  /**
+   * Writes the field with the given index.
+   */
+  protected abstract void set(Object bean, int field, Object value) throws Exception;
+
+  /**
+   * Calls the method with the given index.
+   */
+  protected abstract Object invoke(Object bean, int method, Object[] parameters) throws Exception;
+
+  static Getter getter(Field field)
+  {
+    final EasyBeanGeneratedAccessors accessors = forClass(field.getDeclaringClass());
+    final Integer index = (accessors == null) ? null : accessors.fieldIndexes.get(field.getName());
+    if (index == null)
+    {
+      return null;
+    }
+
+    return new Getter()
+    {
+      public Object get(Object pojo) throws Exception
+      {
+        return accessors.get(pojo, index);
+      }
+    };
+  }
+
+  static Setter setter(Field field)
+  {
+    final EasyBeanGeneratedAccessors accessors = forClass(field.getDeclaringClass());
+    final Integer index = (accessors == null) ? null : accessors.fieldIndexes.get(field.getName());
+    if (index == null)
+    {
+      return null;
+    }
+
+    return new Setter()
+    {
+      public void set(Object pojo, Object value) throws Exception
+      {
+        accessors.set(pojo, index, value);
+      }
+    };
+  }
+
+  static Invoker invoker(Method method)
+  {
+    final EasyBeanGeneratedAccessors accessors = forClass(method.getDeclaringClass());
+    final Integer index = (accessors == null) ? null : accessors.methodIndexes.get(methodKey(method));
+    if (index == null)
+    {
+      return null;
+    }
+
+    return new Invoker()
+    {
+      public Object invoke(Object pojo, Object[] parameters) throws Exception
+      {
+        return accessors.invoke(pojo, index, parameters);
+      }
+    };
+  }
+
+  static Getter getter(Method method)
+  {
+    final Invoker invoker = invoker(method);
+    if (invoker == null)
+    {
+      return null;
+    }
+
+    return new Getter()
+    {
+      public Object get(Object pojo) throws Exception
+      {
+        return invoker.invoke(pojo, NO_PARAMETERS);
+      }
+    };
+  }
+
+  static Setter setter(Method method)
+  {
+    final Invoker invoker = invoker(method);
+    if (invoker == null)
+    {
+      return null;
+    }
+
+    return new Setter()
+    {
+      public void set(Object pojo, Object value) throws Exception
+      {
+        invoker.invoke(pojo, new Object[] {value});
+      }
+    };
+  }
+
+  static String methodKey(Method method)
+  {
+    StringBuilder key = new StringBuilder(method.getName()).append('(');
+    Class[] parameterTypes = method.getParameterTypes();
+    for (int i = 0; i < parameterTypes.length; i++)
+    {
+      if (i > 0)
+      {
+        key.append(',');
+      }
+      key.append(parameterTypes[i].getCanonicalName());
+    }
+    return key.append(')').toString();
+  }
+
+  /*
+   * Generated accessors by class, null values for classes that have none. Weakly held for the same reasons as
+   * EasyBeanStructureCache.
+   */
+  private static final Map<Class, WeakReference<EasyBeanGeneratedAccessors>> generatedAccessors = new WeakHashMap<Class, WeakReference<EasyBeanGeneratedAccessors>>();
+
+  private static final Object[] NO_PARAMETERS = new Object[0];
+
+  static EasyBeanGeneratedAccessors forClass(Class clazz)
+  {
+    synchronized (generatedAccessors)
+    {
+      if (generatedAccessors.containsKey(clazz))
+      {
+        WeakReference<EasyBeanGeneratedAccessors> reference = generatedAccessors.get(clazz);
+        EasyBeanGeneratedAccessors accessors = (reference == null) ? null : reference.get();
+        if ((reference == null) || (accessors != null))
+        {
+          return accessors;
+        }
+      }
+    }
+
+    EasyBeanGeneratedAccessors accessors = loadAccessors(clazz);
+    synchronized (generatedAccessors)
+    {
+      generatedAccessors.put(clazz, (accessors == null) ? null : new WeakReference<EasyBeanGeneratedAccessors>(accessors));
+    }
+    return accessors;
+  }
+
+  static EasyBeanGeneratedAccessors loadAccessors(Class clazz)
+  {
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null)
+    {
+      return null;
+    }
+
+    try
+    {
+      Class generatedClass = Class.forName(clazz.getName().replace('$', '_') + GENERATED_CLASS_SUFFIX, true, classLoader);
+      if (EasyBeanGeneratedAccessors.class.isAssignableFrom(generatedClass))
+      {
+        return (EasyBeanGeneratedAccessors) generatedClass.newInstance();
+      }
+    }
+    catch (Exception e)
+    {}
+    catch (LinkageError e)
+    {}
+
+    return null;
+  }
+
+  private static Map<String, Integer> indexes(String[] names)
+  {
+    Map<String, Integer> indexes = new HashMap<String, Integer>();
+    for (int i = 0; i < names.length; i++)
+    {
+      indexes.put(names[i], i);
+    }
+    return indexes;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often notifications of the given types are sent by an {@link EasyBeansNotifierUser}. Notifications that are
+ * held back are not lost. They are rolled up into one summary notification of the same type. The summary carries
+ * the number of suppressed notifications, the time stamps of the first and last suppressed notification and
+ * a few of their messages as {@link javax.management.openmbean.CompositeData} user data.
+ * <p>
+ * The MBean of the annotated object gets a NotificationsSuppressed attribute with the total number of suppressed notifications.
+ *
+ * @see EasyBeanNotificationLimits
+ */
+@Target({ElementType.TYPE})
+@Retention(value=RetentionPolicy.RUNTIME)
+public @interface EasyBeanNotificationLimit
+{
+  /**
+   * The notification types this limit applies to. Each type is limited separately. If not provided this limit applies to
+   * every type that doesn't have its own limit. The first 256 of those types are limited separately, any further types
+   * share one limit and their summaries have the type <code>easybeans.otherTypes</code>.
+   */
+  String[] types() default {};
+
+  /**
+   * After a notification is sent, other notifications of the same type within this many milliseconds are suppressed.
+   * The summary of the suppressed notifications is sent when the window ends. Defaults to 0 (no coalescing).
+   */
+  long coalesceMillis() default 0;
+
+  /**
+   * The sustained number of notifications of a type sent per second. Notifications over this rate are suppressed.
+   * Defaults to 0 (no rate limit).
+   */
+  double permitsPerSecond() default 0;
+
+  /**
+   * The number of notifications of a type that can be sent at once before {@link #permitsPerSecond()} applies.
+   */
+  int burst() default 1;
+
+  /**
+   * The number of suppressed messages kept as samples in the summary notification.
+   */
+  int sampleMessages() default 3;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Multiple {@link EasyBeanNotificationLimit}. Until 1.8 is minimum there can't be multiple annotations
+ * of the same type at the same location.
+ */
+@Target({ElementType.TYPE})
+@Retention(value=RetentionPolicy.RUNTIME)
+public @interface EasyBeanNotificationLimits
+{
+  EasyBeanNotificationLimit[] value();
+}
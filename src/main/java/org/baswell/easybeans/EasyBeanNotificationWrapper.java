@@ -17,10 +17,23 @@ package org.baswell.easybeans;
 
 import javax.management.*;
 import javax.management.modelmbean.ModelMBeanNotificationInfo;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.OpenMBeanAttributeInfoSupport;
+import javax.management.openmbean.SimpleType;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.baswell.easybeans.SharedMethods.getDescriptor;
@@ -30,12 +43,60 @@ import static org.baswell.easybeans.SharedMethods.getDescriptor;
  * bean needs to either implement {@link org.baswell.easybeans.EasyBeansNotifierUser} or {@link javax.management.NotificationBroadcaster}
  * or {@link javax.management.NotificationEmitter}.
  */
-public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements NotificationEmitter, EasyBeansNotifier
+public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements NotificationEmitter, EasyBeansExtendedNotifier
 {
-  private List<NotificationListenerDatum> notificationListenerData;
+  /*
+   * Copy on write. Adding and removing listeners (rare) replaces the array under listenerLock. Notifying (frequent) iterates
+   * whatever array is current without locking.
+   */
+  private volatile NotificationListenerDatum[] notificationListenerData;
+
+  private final Object listenerLock = new Object();
 
   private AtomicLong sequenceNumberGenerator;
 
+  private NotificationDispatcher dispatcher;
+
+  private ConcurrentMap<String, NotificationThrottle> notificationThrottles;
+
+  /*
+   * The throttles created for types without their own limit. Past MAX_DEFAULT_THROTTLES the types share one throttle.
+   */
+  private final AtomicInteger defaultThrottleCount = new AtomicInteger();
+
+  static final int MAX_DEFAULT_THROTTLES = 256;
+
+  static final String OTHER_NOTIFICATION_TYPES = "easybeans.otherTypes";
+
+  private EasyBeanNotificationLimit defaultNotificationLimit;
+
+  private EasyBeanNotificationBuffer notificationBufferMeta;
+
+  private final Queue<NotificationBuffer> notificationBuffers = new ConcurrentLinkedQueue<NotificationBuffer>();
+
+  private final ThreadLocal<NotificationBuffer> threadNotificationBuffer = new ThreadLocal<NotificationBuffer>()
+  {
+    @Override
+    protected NotificationBuffer initialValue()
+    {
+      NotificationBuffer buffer = new NotificationBuffer(Thread.currentThread(), notificationBufferMeta);
+      notificationBuffers.add(buffer);
+      return buffer;
+    }
+  };
+
+  private volatile BufferFlushTask bufferFlushTask;
+
+  static final String NOTIFICATION_QUEUE_DEPTH = "NotificationQueueDepth";
+
+  static final String NOTIFICATION_QUEUE_CAPACITY = "NotificationQueueCapacity";
+
+  static final String NOTIFICATIONS_PUBLISHED = "NotificationsPublished";
+
+  static final String NOTIFICATIONS_DROPPED = "NotificationsDropped";
+
+  static final String NOTIFICATIONS_SUPPRESSED = "NotificationsSuppressed";
+
   /**
    *
    * @param bean
@@ -46,9 +107,19 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
   public EasyBeanNotificationWrapper(EasyBeansNotifierUser bean) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType
   {
     super(bean);
-    bean.setNotifier(this);
     sequenceNumberGenerator = new AtomicLong();
-    notificationListenerData = new ArrayList<NotificationListenerDatum>();
+    notificationListenerData = new NotificationListenerDatum[0];
+
+    EasyBeanAsyncNotifications asyncMeta = bean.getClass().getAnnotation(EasyBeanAsyncNotifications.class);
+    if (asyncMeta != null)
+    {
+      dispatcher = new NotificationDispatcher(this, asyncMeta);
+    }
+
+    loadNotificationThrottles();
+    notificationBufferMeta = bean.getClass().getAnnotation(EasyBeanNotificationBuffer.class);
+
+    bean.setNotifier(this);
   }
 
   /**
@@ -66,27 +137,319 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
   @Override
   public void notify(String type, String message)
   {
-    notify(new Notification(type, bean.getClass().getName(), sequenceNumberGenerator.incrementAndGet(), message));
+    notify(new Notification(type, beanClass.getName(), nextSequenceNumber(), message));
   }
 
   @Override
   public void notify(Notification notification)
   {
-    for (NotificationListenerDatum notificationListenerDatum : notificationListenerData)
+    if (notificationThrottles != null)
+    {
+      NotificationThrottle throttle = getNotificationThrottle(notification.getType());
+      if ((throttle != null) && !throttle.admit(notification))
+      {
+        return;
+      }
+    }
+
+    deliver(notification);
+  }
+
+  @Override
+  public void notifyBatch(String type, Collection<String> messages)
+  {
+    Notification[] notifications = new Notification[messages.size()];
+    String source = beanClass.getName();
+    long sequenceNumber = nextSequenceNumbers(notifications.length);
+    int i = 0;
+    for (String message : messages)
+    {
+      notifications[i++] = new Notification(type, source, sequenceNumber++, message);
+    }
+    notifyBatch(notifications);
+  }
+
+  @Override
+  public void notifyBatch(Collection<Notification> notifications)
+  {
+    notifyBatch(notifications.toArray(new Notification[notifications.size()]));
+  }
+
+  @Override
+  public void notifyBuffered(String type, String message)
+  {
+    if (bufferFlushTask == null)
+    {
+      startBufferFlushing();
+    }
+
+    Notification[] notifications = threadNotificationBuffer.get().add(this, type, message);
+    if (notifications != null)
+    {
+      notifyBatch(notifications);
+    }
+  }
+
+  @Override
+  public void flushBufferedNotifications()
+  {
+    Notification[] notifications = threadNotificationBuffer.get().drain(this);
+    if (notifications != null)
+    {
+      notifyBatch(notifications);
+    }
+  }
+
+  /**
+   * @return The number of notifications suppressed by {@link EasyBeanNotificationLimit}s.
+   */
+  public long getNotificationsSuppressed()
+  {
+    long suppressed = 0;
+    if (notificationThrottles != null)
+    {
+      for (NotificationThrottle throttle : notificationThrottles.values())
+      {
+        suppressed += throttle.suppressed.get();
+      }
+    }
+    return suppressed;
+  }
+
+  /**
+   * @param type The notification type.
+   * @return The number of notifications of the given type suppressed by {@link EasyBeanNotificationLimit}s.
+   */
+  public long getNotificationsSuppressed(String type)
+  {
+    NotificationThrottle throttle = (notificationThrottles == null) ? null : notificationThrottles.get(type);
+    return (throttle == null) ? 0 : throttle.suppressed.get();
+  }
+
+  void notifyBatch(Notification[] notifications)
+  {
+    if (notificationThrottles != null)
+    {
+      int admitted = 0;
+      for (Notification notification : notifications)
+      {
+        NotificationThrottle throttle = getNotificationThrottle(notification.getType());
+        if ((throttle == null) || throttle.admit(notification))
+        {
+          notifications[admitted++] = notification;
+        }
+      }
+
+      if (admitted < notifications.length)
+      {
+        notifications = Arrays.copyOf(notifications, admitted);
+      }
+    }
+
+    if (notifications.length == 0)
+    {
+      return;
+    }
+    else if (dispatcher == null)
+    {
+      dispatch(notifications);
+    }
+    else
+    {
+      dispatcher.publish(notifications);
+    }
+  }
+
+  void deliver(Notification notification)
+  {
+    if (dispatcher == null)
+    {
+      dispatch(notification);
+    }
+    else
     {
-      notificationListenerDatum.notifyIfNotFiltered(notification);
+      dispatcher.publish(notification);
+    }
+  }
+
+  long nextSequenceNumber()
+  {
+    return sequenceNumberGenerator.incrementAndGet();
+  }
+
+  /*
+   * Reserves count sequence numbers and returns the first.
+   */
+  long nextSequenceNumbers(int count)
+  {
+    return sequenceNumberGenerator.getAndAdd(count) + 1;
+  }
+
+  /**
+   * @return The number of notifications waiting to be dispatched or 0 if this bean isn't annotated with {@link EasyBeanAsyncNotifications}.
+   */
+  public int getNotificationQueueDepth()
+  {
+    return (dispatcher == null) ? 0 : dispatcher.getDepth();
+  }
+
+  /**
+   * @return The number of notifications dropped because the dispatch buffer was full.
+   * @see EasyBeanAsyncNotifications#overflowPolicy()
+   */
+  public long getNotificationsDropped()
+  {
+    return (dispatcher == null) ? 0 : dispatcher.dropped.get();
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException
+  {
+    ensureLoaded();
+    if (!readableAttributeStructures.containsKey(attribute))
+    {
+      if (dispatcher != null)
+      {
+        if (NOTIFICATION_QUEUE_DEPTH.equals(attribute))
+        {
+          return dispatcher.getDepth();
+        }
+        else if (NOTIFICATION_QUEUE_CAPACITY.equals(attribute))
+        {
+          return dispatcher.capacity;
+        }
+        else if (NOTIFICATIONS_PUBLISHED.equals(attribute))
+        {
+          return dispatcher.published.get();
+        }
+        else if (NOTIFICATIONS_DROPPED.equals(attribute))
+        {
+          return dispatcher.dropped.get();
+        }
+      }
+
+      if ((notificationThrottles != null) && NOTIFICATIONS_SUPPRESSED.equals(attribute))
+      {
+        return getNotificationsSuppressed();
+      }
+    }
+
+    return super.getAttribute(attribute);
+  }
+
+  @Override
+  public void unregister(MBeanServer mBeanServer) throws UnexpectedEasyBeanException
+  {
+    super.unregister(mBeanServer);
+    stopBufferFlushing();
+    if (dispatcher != null)
+    {
+      dispatcher.stop();
+    }
+  }
+
+  void dispatch(Notification notification)
+  {
+    NotificationListenerDatum[] notificationListenerData = this.notificationListenerData;
+    for (int i = 0; i < notificationListenerData.length; i++)
+    {
+      notificationListenerData[i].notifyIfNotFiltered(notification);
+    }
+  }
+
+  void dispatch(Notification[] notifications)
+  {
+    Notification batchNotification = null;
+    NotificationListenerDatum[] notificationListenerData = this.notificationListenerData;
+    for (int i = 0; i < notificationListenerData.length; i++)
+    {
+      NotificationListenerDatum notificationListenerDatum = notificationListenerData[i];
+      if (notificationListenerDatum.acceptsBatches)
+      {
+        if (batchNotification == null)
+        {
+          batchNotification = new Notification(EasyBeansBatchFilter.BATCH_NOTIFICATION_TYPE, beanClass.getName(), nextSequenceNumber(), notifications.length + " notifications");
+          batchNotification.setUserData(notifications);
+        }
+        notificationListenerDatum.notifyIfNotFiltered(batchNotification);
+      }
+      else
+      {
+        for (int j = 0; j < notifications.length; j++)
+        {
+          notificationListenerDatum.notifyIfNotFiltered(notifications[j]);
+        }
+      }
+    }
+  }
+
+  synchronized void startBufferFlushing()
+  {
+    if (bufferFlushTask == null)
+    {
+      long flushMillis = Math.max(1, (notificationBufferMeta == null) ? 1000 : notificationBufferMeta.flushMillis());
+      BufferFlushTask task = new BufferFlushTask(this);
+      task.future = SharedScheduler.get().scheduleWithFixedDelay(task, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+      bufferFlushTask = task;
+    }
+  }
+
+  synchronized void stopBufferFlushing()
+  {
+    if (bufferFlushTask != null)
+    {
+      bufferFlushTask.future.cancel(false);
+      bufferFlushTask = null;
+
+      for (NotificationBuffer buffer : notificationBuffers)
+      {
+        Notification[] notifications = buffer.drain(this);
+        if (notifications != null)
+        {
+          notifyBatch(notifications);
+        }
+      }
+    }
+  }
+
+  /*
+   * Sends the notifications of buffers that haven't been flushed in time by their threads (because the threads stopped
+   * notifying) and discards the buffers of threads that have died.
+   */
+  void flushIdleNotificationBuffers()
+  {
+    long now = System.nanoTime();
+    for (Iterator<NotificationBuffer> it = notificationBuffers.iterator(); it.hasNext();)
+    {
+      NotificationBuffer buffer = it.next();
+      Notification[] notifications;
+      if (buffer.owner.isAlive())
+      {
+        notifications = buffer.drainIfStale(this, now);
+      }
+      else
+      {
+        it.remove();
+        notifications = buffer.drain(this);
+      }
+
+      if (notifications != null)
+      {
+        notifyBatch(notifications);
+      }
     }
   }
 
   @Override
   public MBeanNotificationInfo[] getNotificationInfo()
   {
-    return mBeanInfo.getNotifications();
+    return getMBeanInfo().getNotifications();
   }
 
   @Override
   public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) throws IllegalArgumentException
   {
+    Object bean = bean();
     if (bean instanceof NotificationBroadcaster)
     {
       ((NotificationBroadcaster) bean).addNotificationListener(listener, filter, handback);
@@ -94,13 +457,21 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
 
     if (bean instanceof EasyBeansNotifierUser)
     {
-      notificationListenerData.add(new NotificationListenerDatum(listener, filter, handback));
+      synchronized (listenerLock)
+      {
+        NotificationListenerDatum[] currentData = notificationListenerData;
+        NotificationListenerDatum[] updatedData = new NotificationListenerDatum[currentData.length + 1];
+        System.arraycopy(currentData, 0, updatedData, 0, currentData.length);
+        updatedData[currentData.length] = new NotificationListenerDatum(listener, filter, handback);
+        notificationListenerData = updatedData;
+      }
     }
   }
 
   @Override
   public void removeNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) throws ListenerNotFoundException
   {
+    Object bean = bean();
     if (bean instanceof NotificationEmitter)
     {
       ((NotificationEmitter) bean).removeNotificationListener(listener, filter, handback);
@@ -112,13 +483,17 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
 
     if (bean instanceof EasyBeansNotifierUser)
     {
-      for (int i = (notificationListenerData.size() - 1); i >= 0; i--)
+      synchronized (listenerLock)
       {
-        NotificationListenerDatum listenerEntry = (NotificationListenerDatum) notificationListenerData.get(i);
-        if (listenerEntry.equals(listener, filter, handback))
+        List<NotificationListenerDatum> updatedData = new ArrayList<NotificationListenerDatum>(notificationListenerData.length);
+        for (NotificationListenerDatum listenerEntry : notificationListenerData)
         {
-          notificationListenerData.remove(i);
+          if (!listenerEntry.equals(listener, filter, handback))
+          {
+            updatedData.add(listenerEntry);
+          }
         }
+        notificationListenerData = updatedData.toArray(new NotificationListenerDatum[updatedData.size()]);
       }
     }
   }
@@ -126,6 +501,7 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
   @Override
   public void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException
   {
+    Object bean = bean();
     if (bean instanceof NotificationBroadcaster)
     {
       ((NotificationBroadcaster) bean).removeNotificationListener(listener);
@@ -133,13 +509,17 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
 
     if (bean instanceof EasyBeansNotifierUser)
     {
-      for (int i = (notificationListenerData.size() - 1); i >= 0; i--)
+      synchronized (listenerLock)
       {
-        NotificationListenerDatum listenerEntry = (NotificationListenerDatum) notificationListenerData.get(i);
-        if (listenerEntry.equals(listener))
+        List<NotificationListenerDatum> updatedData = new ArrayList<NotificationListenerDatum>(notificationListenerData.length);
+        for (NotificationListenerDatum listenerEntry : notificationListenerData)
         {
-          notificationListenerData.remove(i);
+          if (!listenerEntry.equals(listener))
+          {
+            updatedData.add(listenerEntry);
+          }
         }
+        notificationListenerData = updatedData.toArray(new NotificationListenerDatum[updatedData.size()]);
       }
     }
   }
@@ -147,6 +527,7 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
   @Override
   MBeanNotificationInfo[] loadNotificationInfo()
   {
+    Object bean = bean();
     MBeanNotificationInfo[] notificationInfo = null;
 
     if (bean instanceof NotificationBroadcaster)
@@ -160,7 +541,7 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
     }
     else
     {
-      Annotation[] annotations = bean.getClass().getAnnotations();
+      Annotation[] annotations = beanClass.getAnnotations();
       List<MBeanNotificationInfo> notificationInfoList = new ArrayList<MBeanNotificationInfo>();
 
       for (Annotation annotation : annotations)
@@ -189,17 +570,124 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
     }
   }
 
-  private class NotificationListenerDatum
+  @Override
+  OpenMBeanAttributeInfo[] loadAttributeInfo(OpenMBeanAttributeInfo[] beanAttributeInfo)
   {
-    private NotificationListener listener;
-    private NotificationFilter filter;
-    private Object handback;
+    if (!EasyBeansNotifierUser.class.isAssignableFrom(beanClass))
+    {
+      return beanAttributeInfo;
+    }
+
+    Class<?> clazz = beanClass;
+    List<OpenMBeanAttributeInfo> attributeInfo = new ArrayList<OpenMBeanAttributeInfo>(Arrays.asList(beanAttributeInfo));
+    if (clazz.isAnnotationPresent(EasyBeanAsyncNotifications.class))
+    {
+      addWrapperAttributeInfo(attributeInfo, NOTIFICATION_QUEUE_DEPTH, "The number of notifications waiting to be dispatched.", SimpleType.INTEGER);
+      addWrapperAttributeInfo(attributeInfo, NOTIFICATION_QUEUE_CAPACITY, "The size of the notification buffer.", SimpleType.INTEGER);
+      addWrapperAttributeInfo(attributeInfo, NOTIFICATIONS_PUBLISHED, "The number of notifications placed in the buffer.", SimpleType.LONG);
+      addWrapperAttributeInfo(attributeInfo, NOTIFICATIONS_DROPPED, "The number of notifications dropped because the buffer was full.", SimpleType.LONG);
+    }
+
+    if (clazz.isAnnotationPresent(EasyBeanNotificationLimit.class) || clazz.isAnnotationPresent(EasyBeanNotificationLimits.class))
+    {
+      addWrapperAttributeInfo(attributeInfo, NOTIFICATIONS_SUPPRESSED, "The number of notifications suppressed by notification limits.", SimpleType.LONG);
+    }
+
+    return attributeInfo.toArray(new OpenMBeanAttributeInfo[attributeInfo.size()]);
+  }
+
+  void loadNotificationThrottles() throws InvalidEasyBeanAnnotation
+  {
+    Class<?> clazz = beanClass;
+    List<EasyBeanNotificationLimit> limitMetas = new ArrayList<EasyBeanNotificationLimit>();
+    EasyBeanNotificationLimit limitMeta = clazz.getAnnotation(EasyBeanNotificationLimit.class);
+    if (limitMeta != null)
+    {
+      limitMetas.add(limitMeta);
+    }
+    EasyBeanNotificationLimits limitsMeta = clazz.getAnnotation(EasyBeanNotificationLimits.class);
+    if (limitsMeta != null)
+    {
+      limitMetas.addAll(Arrays.asList(limitsMeta.value()));
+    }
+
+    if (limitMetas.isEmpty())
+    {
+      return;
+    }
+
+    notificationThrottles = new ConcurrentHashMap<String, NotificationThrottle>();
+    for (EasyBeanNotificationLimit meta : limitMetas)
+    {
+      if (meta.types().length == 0)
+      {
+        if (defaultNotificationLimit != null)
+        {
+          throw new InvalidEasyBeanAnnotation(clazz, "Only one EasyBeanNotificationLimit without types is allowed.");
+        }
+        defaultNotificationLimit = meta;
+      }
+      else
+      {
+        for (String type : meta.types())
+        {
+          if (notificationThrottles.containsKey(type))
+          {
+            throw new InvalidEasyBeanAnnotation(clazz, "Notification type " + type + " has more than one EasyBeanNotificationLimit.");
+          }
+          notificationThrottles.put(type, new NotificationThrottle(this, type, meta));
+        }
+      }
+    }
+  }
+
+  /*
+   * Types without their own limit get their own throttle under the default limit until there are MAX_DEFAULT_THROTTLES of
+   * them. Any other type (a bean building types from ids for example) shares the OTHER_NOTIFICATION_TYPES throttle so the
+   * throttles kept don't grow without bound.
+   */
+  NotificationThrottle getNotificationThrottle(String type)
+  {
+    NotificationThrottle throttle = notificationThrottles.get(type);
+    if ((throttle == null) && (defaultNotificationLimit != null))
+    {
+      String throttleType = (defaultThrottleCount.get() < MAX_DEFAULT_THROTTLES) ? type : OTHER_NOTIFICATION_TYPES;
+      throttle = notificationThrottles.get(throttleType);
+      if (throttle == null)
+      {
+        NotificationThrottle newThrottle = new NotificationThrottle(this, throttleType, defaultNotificationLimit);
+        throttle = notificationThrottles.putIfAbsent(throttleType, newThrottle);
+        if (throttle == null)
+        {
+          throttle = newThrottle;
+          defaultThrottleCount.incrementAndGet();
+        }
+      }
+    }
+    return throttle;
+  }
+
+  void addWrapperAttributeInfo(List<OpenMBeanAttributeInfo> attributeInfo, String name, String description, SimpleType type)
+  {
+    if (!readableAttributeStructures.containsKey(name) && !writableAttributeStructures.containsKey(name))
+    {
+      attributeInfo.add(new OpenMBeanAttributeInfoSupport(name, description, type, true, false, false));
+    }
+  }
+
+  private static class NotificationListenerDatum
+  {
+    private final NotificationListener listener;
+    private final NotificationFilter filter;
+    private final Object handback;
+    private final boolean acceptsBatches;
 
     public NotificationListenerDatum(NotificationListener listener, NotificationFilter filter, Object handback)
     {
       this.listener = listener;
       this.filter = filter;
       this.handback = handback;
+      acceptsBatches = filter instanceof EasyBeansBatchFilter;
     }
 
     void notifyIfNotFiltered(Notification notification)
@@ -220,4 +708,34 @@ public class EasyBeanNotificationWrapper extends EasyBeanWrapper implements Noti
       return (this.listener == listener);
     }
   }
+
+  /*
+   * Only weakly references the wrapper so a wrapper that was never unregistered can still be collected (the task then
+   * cancels itself).
+   */
+  static class BufferFlushTask implements Runnable
+  {
+    final WeakReference<EasyBeanNotificationWrapper> wrapperReference;
+
+    volatile ScheduledFuture future;
+
+    BufferFlushTask(EasyBeanNotificationWrapper wrapper)
+    {
+      wrapperReference = new WeakReference<EasyBeanNotificationWrapper>(wrapper);
+    }
+
+    @Override
+    public void run()
+    {
+      EasyBeanNotificationWrapper wrapper = wrapperReference.get();
+      if (wrapper != null)
+      {
+        wrapper.flushIdleNotificationBuffers();
+      }
+      else if (future != null)
+      {
+        future.cancel(false);
+      }
+    }
+  }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Provides the {@link ObjectName} of each bean registered with {@link EasyBeansRegistery#registerAll(java.util.Collection, EasyBeanObjectNamer)}.
+ */
+public interface EasyBeanObjectNamer
+{
+  /**
+   * @param bean The bean being registered.
+   * @return The object name of the bean or {@code null} to use the object name from {@link EasyBeanNameProvider}, {@link EasyBean#objectName()}
+   * or from the bean's class name.
+   * @throws MalformedObjectNameException If the object name for this bean is invalid. Recorded as a failure of this bean.
+   */
+  ObjectName getObjectName(Object bean) throws MalformedObjectNameException;
+}
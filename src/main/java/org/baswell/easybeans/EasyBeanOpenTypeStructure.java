@@ -50,6 +50,8 @@ class EasyBeanOpenTypeStructure
 
   private Method setter;
 
+  private Getter boundGetter;
+
   EasyBeanOpenTypeStructure(Type type)
   {
     this.type = type;
@@ -121,7 +123,9 @@ class EasyBeanOpenTypeStructure
               throw new InvalidEasyBeanAnnotation(rawClass, "Method " + method.getName() + " is annotated with EasyBeanOpenTypeAttribute but does not have a getter signature.");
             }
 
-            attributes.add(new EasyBeanOpenTypeStructure(method, true));
+            EasyBeanOpenTypeStructure attribute = new EasyBeanOpenTypeStructure(method, true);
+            attributeNamesCreated.add(attribute.getItemName().toLowerCase());
+            attributes.add(attribute);
           }
         }
         else if (method.getAnnotation(EasyBeanOpenTypeAttribute.class) != null)
@@ -189,30 +193,58 @@ class EasyBeanOpenTypeStructure
     return getAnnotation(EasyBeanTransient.class) != null;
   }
 
-  Field getField()
+  boolean isPrimitiveArray()
   {
-    return field;
+    return getAnnotation(EasyBeanPrimitiveArray.class) != null;
   }
 
-  public Descriptor getDescriptor()
+  Field getField()
   {
-    return descriptor;
+    return field;
   }
 
-  Object get(Object pojo) throws IllegalAccessException, InvocationTargetException
+  /*
+   * The item name of this attribute in its parent's CompositeType. Fields use the field name, getters the property name
+   * (getStreet is street).
+   */
+  String getItemName()
   {
     if (field != null)
     {
-      return field.get(pojo);
+      return field.getName();
     }
-    else if (getter != null)
+    else
     {
-      return getter.invoke(pojo);
+      String propertyName = getGetterSetterName(method.getName());
+      return propertyName.substring(0, 1).toLowerCase() + propertyName.substring(1);
     }
-    else
+  }
+
+  public Descriptor getDescriptor()
+  {
+    return descriptor;
+  }
+
+  Object get(Object pojo) throws Exception
+  {
+    Getter boundGetter = this.boundGetter;
+    if (boundGetter == null)
     {
-      return null;
+      if (field != null)
+      {
+        boundGetter = this.boundGetter = AccessorBackend.bindGetter(field);
+      }
+      else if (getter != null)
+      {
+        boundGetter = this.boundGetter = AccessorBackend.bindGetter(getter);
+      }
+      else
+      {
+        return null;
+      }
     }
+
+    return boundGetter.get(pojo);
   }
 
   private void loadAttributes()
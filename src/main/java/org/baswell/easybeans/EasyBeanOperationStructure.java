@@ -15,7 +15,6 @@
  */
 package org.baswell.easybeans;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import static org.baswell.easybeans.SharedMethods.*;
@@ -36,6 +35,19 @@ class EasyBeanOperationStructure extends EasyBeanMemberStructure
 
   final String[] parameterDefaultValues;
 
+  final OperationSignature signature;
+
+  /*
+   * The signature with the binary parameter class names JMX clients usually send ([Ljava.lang.String; for String[]).
+   * The same as signature if no parameter is an array or nested class.
+   */
+  final OperationSignature binarySignature;
+
+  /*
+   * Bound on first use so operations that are never invoked (not exposed) don't get bound.
+   */
+  private Invoker invoker;
+
   EasyBeanOperationStructure(Class clazz, Method method)
   {
     super(clazz);
@@ -65,30 +77,18 @@ class EasyBeanOperationStructure extends EasyBeanMemberStructure
 
     typeMapping = mapOperationToOpenType(method);
     descriptor = getDescriptor(method);
+    signature = new OperationSignature(name, method.getParameterTypes());
+    binarySignature = new OperationSignature(name, OperationSignature.getBinaryNames(method.getParameterTypes()));
   }
 
-  boolean signatureMatches(String[] parameterClassNames)
+  Object invoke(Object pojo, Object... parameters) throws Exception
   {
-    Class<?>[] sigClasses = method.getParameterTypes();
-    if (sigClasses.length == parameterClassNames.length)
-    {
-      for (int i = 0; i < sigClasses.length; i++)
-      {
-        if (!classesEquivalent(sigClasses[i], parameterClassNames[i]))
-        {
-          return false;
-        }
-      }
-      return true;
-    }
-    else
+    Invoker invoker = this.invoker;
+    if (invoker == null)
     {
-      return false;
+      invoker = this.invoker = AccessorBackend.bindInvoker(method);
     }
-  }
 
-  Object invoke(Object pojo, Object... parameters) throws IllegalAccessException, InvocationTargetException
-  {
-    return method.invoke(pojo, parameters);
+    return invoker.invoke(pojo, parameters);
   }
 }
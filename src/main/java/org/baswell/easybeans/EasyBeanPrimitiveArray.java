@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Converts the value of an attribute, operation or open type attribute to a primitive array (a primitive {@link javax.management.openmbean.ArrayType})
+ * instead of an array of boxed values. Java primitive arrays (<code>long[]</code>) are always mapped this way, this
+ * annotation is for values that are not declared as one:
+ *
+ * <ul>
+ *   <li>A <code>Collection</code> or <code>Iterable</code> of a boxed primitive type (<code>List&lt;Long&gt;</code> is
+ *   converted to <code>long[]</code>). Null elements are converted to zero (or false).</li>
+ *   <li>A primitive specialized collection that has a public, no argument <code>toArray</code> (or <code>to*Array</code>)
+ *   method that returns a primitive array. The array returned is passed through as is.</li>
+ * </ul>
+ *
+ * Used on a class the annotation applies to every value of that class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.FIELD})
+@Retention(value=RetentionPolicy.RUNTIME)
+public @interface EasyBeanPrimitiveArray
+{}
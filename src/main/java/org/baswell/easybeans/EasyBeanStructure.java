@@ -48,6 +48,8 @@ class EasyBeanStructure
 
   final List<EasyBeanOperationStructure> operations;
 
+  private final Map<EasyBeanExposure, EasyBeanExposureStructure> exposureStructures = new EnumMap<EasyBeanExposure, EasyBeanExposureStructure>(EasyBeanExposure.class);
+
   EasyBeanStructure(Class clazz) throws InvalidEasyBeanAnnotation
   {
     this.clazz = clazz;
@@ -178,6 +180,24 @@ class EasyBeanStructure
     this.operations = Collections.unmodifiableList(operations);
   }
 
+  /*
+   * The MBean info and lookup tables for the given exposure. Loaded on first use and then shared by every wrapper of
+   * this class with the same exposure.
+   */
+  EasyBeanExposureStructure getExposureStructure(EasyBeanExposure exposure) throws InvalidEasyBeanAnnotation
+  {
+    synchronized (exposureStructures)
+    {
+      EasyBeanExposureStructure exposureStructure = exposureStructures.get(exposure);
+      if (exposureStructure == null)
+      {
+        exposureStructure = new EasyBeanExposureStructure(this, exposure);
+        exposureStructures.put(exposure, exposureStructure);
+      }
+      return exposureStructure;
+    }
+  }
+
   static List<Constructor> getPublicNonTransientConstructors(Class clazz)
   {
     List<Constructor> publicConstructors = new ArrayList<Constructor>();
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Process wide cache of EasyBeanStructure keyed by class. Both the class keys and the structure values are weakly held.
+ * A structure references it's own class so a strongly held value would keep the key (and the class loader that loaded
+ * it) from ever being collected. The wrappers using a structure keep it alive so as long as one wrapper of a class is
+ * around all other wrappers of that class share the same structure.
+ */
+class EasyBeanStructureCache
+{
+  private static final Map<Class, WeakReference<EasyBeanStructure>> structures = new WeakHashMap<Class, WeakReference<EasyBeanStructure>>();
+
+  private static final AtomicLong hits = new AtomicLong();
+
+  private static final AtomicLong misses = new AtomicLong();
+
+  static EasyBeanStructure getStructure(Class clazz) throws InvalidEasyBeanAnnotation
+  {
+    EasyBeanStructure structure;
+    synchronized (structures)
+    {
+      structure = dereference(structures.get(clazz));
+    }
+
+    if (structure != null)
+    {
+      hits.incrementAndGet();
+      return structure;
+    }
+
+    misses.incrementAndGet();
+
+    /*
+     * Load outside of the lock so introspection of one class doesn't block lookups for other classes. If another thread
+     * beat us to it use the structure it loaded so all wrappers share the same one.
+     */
+    structure = new EasyBeanStructure(clazz);
+    synchronized (structures)
+    {
+      EasyBeanStructure existingStructure = dereference(structures.get(clazz));
+      if (existingStructure != null)
+      {
+        return existingStructure;
+      }
+
+      structures.put(clazz, new WeakReference<EasyBeanStructure>(structure));
+      return structure;
+    }
+  }
+
+  static long getHits()
+  {
+    return hits.get();
+  }
+
+  static long getMisses()
+  {
+    return misses.get();
+  }
+
+  static void clear()
+  {
+    synchronized (structures)
+    {
+      structures.clear();
+    }
+  }
+
+  private static EasyBeanStructure dereference(WeakReference<EasyBeanStructure> reference)
+  {
+    return (reference == null) ? null : reference.get();
+  }
+}
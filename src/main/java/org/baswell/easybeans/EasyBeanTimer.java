@@ -0,0 +1,358 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long something takes (request latency, query time) into a histogram many threads can update at once.
+ * Recording is lock free, constant time and allocates nothing. Durations from a nanosecond up to hundreds of years are
+ * kept within 1.6% of their recorded value. Exposed as a {@link javax.management.openmbean.CompositeType} attribute
+ * with the items <code>count</code>, <code>min</code>, <code>max</code>, <code>mean</code>, <code>p50</code>,
+ * <code>p90</code>, <code>p99</code> and <code>p999</code>, all but the count reported in the timer's unit.
+ *
+ * <pre>
+ * &#64;EasyBeanAttribute(description = "Time to serve a request in milliseconds.")
+ * public final EasyBeanTimer requestTime = new EasyBeanTimer();
+ *
+ * EasyBeanTimer.Timing timing = requestTime.time();
+ * try
+ * {
+ *   ...
+ * }
+ * finally
+ * {
+ *   timing.close();
+ * }
+ * </pre>
+ *
+ * On Java 7 and above a {@link Timing} can be used in a try-with-resources block. Code that can't afford the allocation of
+ * a Timing can use {@link #start()} and {@link #stop(long)} instead.
+ *
+ * A timer created with <code>resetOnRead</code> is reset each time its attribute is read, so every JMX read reports
+ * the durations recorded since the previous read.
+ */
+public class EasyBeanTimer
+{
+  /*
+   * Durations below 2^SUB_BUCKET_BITS nanoseconds get a bucket each. Every power of two above that is split into
+   * 2^(SUB_BUCKET_BITS - 1) equally sized buckets, which keeps each bucket's width under 1/64 of its values.
+   */
+  static final int SUB_BUCKET_BITS = 7;
+
+  static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+
+  static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final TimeUnit unit;
+
+  private final boolean resetOnRead;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong total = new AtomicLong();
+
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * A timer reporting in milliseconds.
+   */
+  public EasyBeanTimer()
+  {
+    this(TimeUnit.MILLISECONDS, false);
+  }
+
+  /**
+   * @param unit The unit durations are reported to JMX clients in.
+   */
+  public EasyBeanTimer(TimeUnit unit)
+  {
+    this(unit, false);
+  }
+
+  /**
+   * @param unit The unit durations are reported to JMX clients in.
+   * @param resetOnRead If {@code true} the timer is reset each time its attribute is read.
+   */
+  public EasyBeanTimer(TimeUnit unit, boolean resetOnRead)
+  {
+    this.unit = unit;
+    this.resetOnRead = resetOnRead;
+  }
+
+  /**
+   * @return A timing started now. Closing it records the time since it was started.
+   */
+  public Timing time()
+  {
+    return new Timing(System.nanoTime());
+  }
+
+  /**
+   * @return The start time to pass to {@link #stop(long)}.
+   */
+  public long start()
+  {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the time since the given start.
+   *
+   * @param startNanos The value returned from {@link #start()}.
+   * @return The duration recorded in nanoseconds.
+   */
+  public long stop(long startNanos)
+  {
+    long nanos = System.nanoTime() - startNanos;
+    recordNanos(nanos);
+    return nanos;
+  }
+
+  public void record(long duration, TimeUnit unit)
+  {
+    recordNanos(unit.toNanos(duration));
+  }
+
+  public void recordNanos(long nanos)
+  {
+    if (nanos < 0)
+    {
+      nanos = 0;
+    }
+
+    buckets.incrementAndGet(bucketIndex(nanos));
+    total.addAndGet(nanos);
+
+    long currentMin;
+    while ((nanos < (currentMin = min.get())) && !min.compareAndSet(currentMin, nanos));
+
+    long currentMax;
+    while ((nanos > (currentMax = max.get())) && !max.compareAndSet(currentMax, nanos));
+  }
+
+  /**
+   * @return The durations recorded so far. Durations recorded while the snapshot is taken may or may not be included.
+   */
+  public Snapshot snapshot()
+  {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++)
+    {
+      counts[i] = buckets.get(i);
+    }
+    return new Snapshot(counts, total.get(), min.get(), max.get());
+  }
+
+  /**
+   * @return The durations recorded so far and resets the timer. Durations recorded while resetting are either included in
+   * the returned snapshot or remain in the timer, none are lost.
+   */
+  public Snapshot snapshotThenReset()
+  {
+    long min = this.min.getAndSet(Long.MAX_VALUE);
+    long max = this.max.getAndSet(Long.MIN_VALUE);
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++)
+    {
+      counts[i] = buckets.getAndSet(i, 0);
+    }
+    return new Snapshot(counts, total.getAndSet(0), min, max);
+  }
+
+  public void reset()
+  {
+    snapshotThenReset();
+  }
+
+  /**
+   * @return The unit durations are reported to JMX clients in.
+   */
+  public TimeUnit getUnit()
+  {
+    return unit;
+  }
+
+  /**
+   * @return {@code true} if the timer is reset each time its attribute is read.
+   */
+  public boolean isResetOnRead()
+  {
+    return resetOnRead;
+  }
+
+  /*
+   * The snapshot reported to JMX clients.
+   */
+  Snapshot read()
+  {
+    return resetOnRead ? snapshotThenReset() : snapshot();
+  }
+
+  @Override
+  public String toString()
+  {
+    Snapshot snapshot = snapshot();
+    return "count=" + snapshot.getCount() + ", mean=" + snapshot.getMean() + "ns";
+  }
+
+  /*
+   * Durations under 128 nanoseconds index their own bucket. Above that the index is the duration's power of two (shift)
+   * followed by its next six most significant bits (mantissa, between 64 and 127).
+   */
+  static int bucketIndex(long nanos)
+  {
+    int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(nanos)) - (SUB_BUCKET_BITS - 1));
+    return (shift * SUB_BUCKET_HALF_COUNT) + (int)(nanos >>> shift);
+  }
+
+  /*
+   * The largest duration that falls into the given bucket.
+   */
+  static long bucketHighestValue(int index)
+  {
+    if (index < (SUB_BUCKET_HALF_COUNT * 2))
+    {
+      return index;
+    }
+    else
+    {
+      int shift = (index / SUB_BUCKET_HALF_COUNT) - 1;
+      long mantissa = index - (shift * SUB_BUCKET_HALF_COUNT);
+      long highest = ((mantissa + 1) << shift) - 1;
+      return (highest < 0) ? Long.MAX_VALUE : highest;
+    }
+  }
+
+  /**
+   * Started by {@link EasyBeanTimer#time()}, records the time since then when closed.
+   */
+  public class Timing implements Closeable
+  {
+    private final long startNanos;
+
+    private boolean stopped;
+
+    Timing(long startNanos)
+    {
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * Records the time since this timing was started. Only the first call records.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long stop()
+    {
+      long nanos = System.nanoTime() - startNanos;
+      if (!stopped)
+      {
+        stopped = true;
+        recordNanos(nanos);
+      }
+      return nanos;
+    }
+
+    @Override
+    public void close()
+    {
+      stop();
+    }
+  }
+
+  /**
+   * The durations recorded by a timer at a point in time. All durations are in nanoseconds.
+   */
+  public static class Snapshot
+  {
+    private final long[] counts;
+
+    private final long count;
+
+    private final long total;
+
+    private final long min;
+
+    private final long max;
+
+    Snapshot(long[] counts, long total, long min, long max)
+    {
+      this.counts = counts;
+      this.total = total;
+
+      long count = 0;
+      for (long bucketCount : counts)
+      {
+        count += bucketCount;
+      }
+      this.count = count;
+
+      this.min = (count == 0) ? 0 : min;
+      this.max = (count == 0) ? 0 : max;
+    }
+
+    public long getCount()
+    {
+      return count;
+    }
+
+    public long getMin()
+    {
+      return min;
+    }
+
+    public long getMax()
+    {
+      return max;
+    }
+
+    public double getMean()
+    {
+      return (count == 0) ? 0 : (double)total / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The duration at or below which the given percentage of the durations fall, within the precision of the
+     * timer's buckets.
+     */
+    public long getPercentile(double percentile)
+    {
+      if (count == 0)
+      {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long)Math.ceil((Math.min(100, Math.max(0, percentile)) / 100) * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++)
+      {
+        seen += counts[i];
+        if (seen >= rank)
+        {
+          return Math.max(min, Math.min(max, bucketHighestValue(i)));
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+/**
+ * Which elements (or map entries) of an array, collection or map are kept when it has more than an attribute's maximum
+ * number of elements.
+ *
+ * @see EasyBeanAttribute#maxElements()
+ */
+public enum EasyBeanTruncationPolicy
+{
+  /**
+   * The first elements are kept, the rest are dropped. Collections with a known size stop being iterated once the limit
+   * is reached.
+   */
+  TRUNCATE_TAIL,
+
+  /**
+   * The last elements are kept, the first are dropped.
+   */
+  TRUNCATE_HEAD,
+
+  /**
+   * A uniform random sample of the elements is kept.
+   */
+  RESERVOIR_SAMPLE;
+}
@@ -17,13 +17,13 @@ package org.baswell.easybeans;
 
 import javax.management.*;
 import javax.management.openmbean.*;
-import java.lang.annotation.Annotation;
 import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.baswell.easybeans.SharedMethods.*;
-import static org.baswell.easybeans.OpenTypeMapper.*;
 import static org.baswell.easybeans.OpenTypeConverter.*;
 
 /**
@@ -31,17 +31,47 @@ import static org.baswell.easybeans.OpenTypeConverter.*;
  * use {@link EasyBeanNotificationWrapper}
  *
  */
-public class EasyBeanWrapper implements DynamicMBean
+public class EasyBeanWrapper implements DynamicMBean, MBeanRegistration
 {
   Object bean;
+  final Class beanClass;
   EasyBeanExposure exposure;
 
+  /*
+   * Set (and bean cleared) when the bean is registered weakly. See EasyBeansRegistery#registerWeakly(Object).
+   */
+  Reference<Object> beanReference;
+
   MBeanInfo mBeanInfo;
   ObjectName objectName;
 
   Map<String, EasyBeanAttributeStructure> readableAttributeStructures;
   Map<String, EasyBeanAttributeStructure> writableAttributeStructures;
-  Map<String, List<EasyBeanOperationStructure>> operationStructures;
+  Map<OperationSignature, EasyBeanOperationStructure> operationIndex;
+  Map<OperationSignature, AttributeCursor.Operation> cursorOperationIndex;
+  Map<String, EasyBeanAttributeStructure> truncationAttributeIndex;
+
+  Map<String, CachedAttribute> cachedAttributes;
+
+  /*
+   * The open cursors of this wrapper's attributes. Created on first use.
+   */
+  private Map<Long, AttributeCursor> cursors;
+
+  /*
+   * The truncation of the last value read of each attribute that can be truncated. Created on first use.
+   */
+  private Map<String, Truncation> truncations;
+
+  /*
+   * The fields above (except bean, exposure and objectName) are set by load(). Non lazy wrappers load in the constructor,
+   * lazy wrappers on first use. Reading loaded (volatile) before the fields safely publishes them to other threads.
+   */
+  private volatile boolean loaded;
+
+  private volatile Thread registeringThread;
+
+  private final Object loadLock = new Object();
 
   /**
    *
@@ -64,15 +94,30 @@ public class EasyBeanWrapper implements DynamicMBean
    * @throws InvalidEasyBeanOpenType If the given object (or a descendant of this object) cannot be mapped to an OpenType.
    */
   public EasyBeanWrapper(Object bean, EasyBeanExposure exposure) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType
+  {
+    this(bean, exposure, false);
+  }
+
+  /**
+   *
+   * @param bean The bean to wrap as a DynamicMBean.
+   * @param exposure Overrides the EasyBeanExposure annotated by the given bean object.
+   * @param lazy If {@code true} only the ObjectName is resolved now. The bean's structure and MBeanInfo are loaded when first
+   *             used (see {@link EasyBean#lazy()}).
+   * @throws InvalidEasyBeanNameException If the ObjectName used for this bean in invalid.
+   * @throws InvalidEasyBeanAnnotation If an EasyBean annotation is used incorrectly.
+   * @throws InvalidEasyBeanOpenType If the given object (or a descendant of this object) cannot be mapped to an OpenType.
+   */
+  public EasyBeanWrapper(Object bean, EasyBeanExposure exposure, boolean lazy) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType
   {
     this.bean = bean;
-    Class clazz = bean.getClass();
-    EasyBeanStructure beanStructure = new EasyBeanStructure(clazz);
+    Class clazz = beanClass = bean.getClass();
+    EasyBean easyBeanAnnotation = (EasyBean) clazz.getAnnotation(EasyBean.class);
 
     String objectNameString = null;
-    if (hasContent(beanStructure.objectName))
+    if ((easyBeanAnnotation != null) && hasContent(easyBeanAnnotation.objectName()))
     {
-      objectNameString = beanStructure.objectName;
+      objectNameString = easyBeanAnnotation.objectName();
     }
     else
     {
@@ -98,26 +143,111 @@ public class EasyBeanWrapper implements DynamicMBean
       {
         this.exposure = exposure;
       }
-      else if (beanStructure.exposure != null)
+      else if (easyBeanAnnotation != null)
       {
-        this.exposure = beanStructure.exposure;
+        this.exposure = easyBeanAnnotation.exposure();
       }
       else
       {
         this.exposure = EasyBeanExposure.ANNOTATED;
       }
-
-      OpenMBeanConstructorInfo[] constructorInfo = loadConstructorInfo(beanStructure.constructors);
-      OpenMBeanAttributeInfo[] attributeInfo = loadAttributeInfo(beanStructure.attributes);
-      OpenMBeanOperationInfo[] opInfo = loadOperationInfo(beanStructure.operations);
-      MBeanNotificationInfo[] notificationInfo = loadNotificationInfo();
-
-      mBeanInfo = new OpenMBeanInfoSupport(beanStructure.className, beanStructure.description, attributeInfo, constructorInfo, opInfo, notificationInfo, beanStructure.descriptor);
     }
     catch (MalformedObjectNameException monexc)
     {
       throw new InvalidEasyBeanNameException(clazz, objectNameString, monexc);
     }
+
+    if (!lazy && ((easyBeanAnnotation == null) || !easyBeanAnnotation.lazy()))
+    {
+      load();
+    }
+  }
+
+  /**
+   * @return {@code true} if the structure and MBeanInfo of the bean have been loaded.
+   * @see EasyBean#lazy()
+   */
+  public boolean isLoaded()
+  {
+    return loaded;
+  }
+
+  /**
+   * @return {@code true} if the bean was registered weakly and has since been garbage collected. Reading attributes and
+   * invoking operations of a collected bean throws {@link EasyBeanCollectedException}.
+   * @see EasyBeansRegistery#registerWeakly(Object)
+   */
+  public boolean isCollected()
+  {
+    return (bean == null) && (beanReference.get() == null);
+  }
+
+  /*
+   * The wrapped bean, from beanReference if registered weakly.
+   */
+  Object bean() throws EasyBeanCollectedException
+  {
+    Object bean = this.bean;
+    if (bean == null)
+    {
+      bean = beanReference.get();
+      if (bean == null)
+      {
+        throw new EasyBeanCollectedException(beanClass, objectName);
+      }
+    }
+    return bean;
+  }
+
+  /*
+   * True if the given object is the bean of this wrapper.
+   */
+  boolean wraps(Object bean)
+  {
+    return (this.bean == bean) || ((beanReference != null) && (beanReference.get() == bean));
+  }
+
+  /*
+   * Only holds the bean through the given reference from now on. Called before the wrapper is registered.
+   */
+  void holdWeakly(Reference<Object> beanReference)
+  {
+    this.beanReference = beanReference;
+    bean = null;
+  }
+
+  void ensureLoaded() throws InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType
+  {
+    if (!loaded)
+    {
+      load();
+    }
+  }
+
+  void load() throws InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType
+  {
+    synchronized (loadLock)
+    {
+      if (loaded)
+      {
+        return;
+      }
+
+      EasyBeanStructure beanStructure = EasyBeanStructureCache.getStructure(beanClass);
+      EasyBeanExposureStructure exposureStructure = beanStructure.getExposureStructure(exposure);
+      readableAttributeStructures = exposureStructure.readableAttributeStructures;
+      writableAttributeStructures = exposureStructure.writableAttributeStructures;
+      operationIndex = exposureStructure.operationIndex;
+      cursorOperationIndex = exposureStructure.cursorOperationIndex;
+      truncationAttributeIndex = exposureStructure.truncationAttributeIndex;
+      cachedAttributes = loadCachedAttributes(readableAttributeStructures);
+
+      MBeanNotificationInfo[] notificationInfo = loadNotificationInfo();
+      OpenMBeanAttributeInfo[] attributeInfo = loadAttributeInfo(exposureStructure.attributeInfo);
+
+      mBeanInfo = new OpenMBeanInfoSupport(beanStructure.className, beanStructure.description, attributeInfo, exposureStructure.constructorInfo, exposureStructure.operationInfo, notificationInfo, beanStructure.descriptor);
+      loaded = true;
+    }
   }
 
   /**
@@ -141,13 +271,14 @@ public class EasyBeanWrapper implements DynamicMBean
    */
   public void register(MBeanServer mBeanServer) throws ObjectNameAlreadyRegistered, UnexpectedEasyBeanException
   {
+    registeringThread = Thread.currentThread();
     try
     {
       mBeanServer.registerMBean(this, objectName);
     }
     catch (InstanceAlreadyExistsException e)
     {
-      throw new ObjectNameAlreadyRegistered(e, bean.getClass(), objectName);
+      throw new ObjectNameAlreadyRegistered(e, beanClass, objectName);
     }
     catch (MBeanRegistrationException e)
     {
@@ -157,8 +288,35 @@ public class EasyBeanWrapper implements DynamicMBean
     {
       throw new UnexpectedEasyBeanException(e);
     }
+    finally
+    {
+      registeringThread = null;
+    }
+  }
+
+  /*
+   * Past this point the MBeanServer (and the listeners it notifies of the registration on this thread) get the full
+   * MBeanInfo.
+   */
+  @Override
+  public ObjectName preRegister(MBeanServer server, ObjectName name)
+  {
+    registeringThread = null;
+    return (name == null) ? objectName : name;
   }
 
+  @Override
+  public void postRegister(Boolean registrationDone)
+  {}
+
+  @Override
+  public void preDeregister()
+  {}
+
+  @Override
+  public void postDeregister()
+  {}
+
   /**
    * Unregisters this MBean from the platform MBeanServer
    *
@@ -188,20 +346,34 @@ public class EasyBeanWrapper implements DynamicMBean
     {
       throw new UnexpectedEasyBeanException(e);
     }
+    finally
+    {
+      cursors().clear();
+    }
   }
 
   @Override
   public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException
   {
+    ensureLoaded();
     if (!readableAttributeStructures.containsKey(attribute))
     {
-      throw new AttributeNotFoundException("No readable attribute found with name '" + attribute + "'.");
+      EasyBeanAttributeStructure truncatedAttribute = truncationAttributeIndex.get(attribute);
+      if (truncatedAttribute == null)
+      {
+        throw new AttributeNotFoundException("No readable attribute found with name '" + attribute + "'.");
+      }
+      return readTruncation(truncatedAttribute);
+    }
+    else if (isCollected())
+    {
+      throw new EasyBeanCollectedException(beanClass, objectName);
     }
     try
     {
       EasyBeanAttributeStructure beanAttribute = readableAttributeStructures.get(attribute);
-      Object value = beanAttribute.get(bean);
-      return convertToOpenType(value, beanAttribute.typeMapping);
+      CachedAttribute cachedAttribute = cachedAttributes.get(attribute);
+      return (cachedAttribute == null) ? readAttribute(beanAttribute) : cachedAttribute.get(this, beanAttribute);
     }
     catch (Exception exc)
     {
@@ -234,6 +406,15 @@ public class EasyBeanWrapper implements DynamicMBean
   @Override
   public MBeanInfo getMBeanInfo()
   {
+    if (!loaded && (registeringThread == Thread.currentThread()))
+    {
+      /*
+       * The MBeanServer only reads the class name before calling preRegister. Don't load a lazy wrapper just for that.
+       */
+      return new MBeanInfo(beanClass.getCanonicalName(), null, null, null, null, null);
+    }
+
+    ensureLoaded();
     return mBeanInfo;
   }
 
@@ -244,29 +425,37 @@ public class EasyBeanWrapper implements DynamicMBean
   @Override
   public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException
   {
-    if (operationStructures.containsKey(actionName))
+    ensureLoaded();
+    EasyBeanOperationStructure operation = operationIndex.get(new OperationSignature(actionName, signature));
+    if (operation != null)
     {
-      List<EasyBeanOperationStructure> operations = operationStructures.get(actionName);
-
-      for (EasyBeanOperationStructure operation : operations)
+      Object bean = bean();
+      try
+      {
+        return convertToOpenType(operation.invoke(bean, params), operation.typeMapping);
+      }
+      catch (Throwable exc)
       {
-        if (operation.signatureMatches(signature))
+        if (exc instanceof InvocationTargetException)
         {
-          try
-          {
-            return convertToOpenType(operation.invoke(bean, params), operation.typeMapping);
-          }
-          catch (Throwable exc)
-          {
-            if (exc instanceof InvocationTargetException)
-            {
-              exc = ((InvocationTargetException) exc).getTargetException();
-            }
-
-            String line = exc.getStackTrace()[0].toString();
-            throw new RuntimeException("Unable to execute operation " + actionName + " due to error: " + exc.getMessage() + " at line: " + line);
-          }
+          exc = ((InvocationTargetException) exc).getTargetException();
         }
+
+        String line = exc.getStackTrace()[0].toString();
+        throw new RuntimeException("Unable to execute operation " + actionName + " due to error: " + exc.getMessage() + " at line: " + line);
+      }
+    }
+
+    AttributeCursor.Operation cursorOperation = cursorOperationIndex.get(new OperationSignature(actionName, signature));
+    if (cursorOperation != null)
+    {
+      try
+      {
+        return invokeCursorOperation(cursorOperation, params);
+      }
+      catch (Exception exc)
+      {
+        throw new RuntimeException("Unable to execute operation " + actionName + " due to error: " + exc.getMessage());
       }
     }
 
@@ -280,6 +469,7 @@ public class EasyBeanWrapper implements DynamicMBean
   @Override
   public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
   {
+    ensureLoaded();
     String attName = attribute.getName();
     if (!writableAttributeStructures.containsKey(attName))
     {
@@ -287,9 +477,11 @@ public class EasyBeanWrapper implements DynamicMBean
     }
     else
     {
+      Object bean = bean();
       try
       {
         writableAttributeStructures.get(attName).set(bean, attribute.getValue());
+        invalidateCachedAttribute(attName);
       }
       catch (Exception exc)
       {
@@ -326,219 +518,202 @@ public class EasyBeanWrapper implements DynamicMBean
   }
 
 
-  MBeanNotificationInfo[] loadNotificationInfo()
+  /**
+   * Clears the cached value of the given attribute so the next read calls the getter (or reads the field) again. Has
+   * no effect if the attribute isn't cached.
+   *
+   * @param attributeName The attribute name.
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  public void invalidateCachedAttribute(String attributeName)
   {
-    return new MBeanNotificationInfo[0];
-  }
+    if (!loaded)
+    {
+      return;
+    }
 
-  OpenMBeanConstructorInfo[] loadConstructorInfo(List<EasyBeanConstructorStructure> beanConstructors)
-  {
-    List<OpenMBeanConstructorInfo> constructorsInfo = new ArrayList<OpenMBeanConstructorInfo>();
-    
-    for (EasyBeanConstructorStructure beanConstructor : beanConstructors)
+    CachedAttribute cachedAttribute = cachedAttributes.get(attributeName);
+    if (cachedAttribute != null)
     {
-      if (beanConstructor.wasAnnotated || (exposure == EasyBeanExposure.ALL))
-      {
-        OpenMBeanParameterInfo[] paramsInfo = getParameterInfo(bean.getClass(), beanConstructor.constructor.getParameterTypes(), beanConstructor.constructor.getParameterAnnotations(), beanConstructor.parameterNames, beanConstructor.parameterDescriptions, null);
-        if (paramsInfo != null)
-        {
-          constructorsInfo.add(new OpenMBeanConstructorInfoSupport(beanConstructor.name, beanConstructor.description, paramsInfo, beanConstructor.descriptor));
-        }
-      }
+      cachedAttribute.invalidate();
     }
-    
-    return constructorsInfo.toArray(new OpenMBeanConstructorInfo[constructorsInfo.size()]);
   }
-  
-  OpenMBeanAttributeInfo[] loadAttributeInfo(List<EasyBeanAttributeStructure> beanAttributes)
+
+  /**
+   * Clears the cached values of all attributes of this bean.
+   *
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  public void invalidateCachedAttributes()
   {
-    readableAttributeStructures = new HashMap<String, EasyBeanAttributeStructure>();
-    writableAttributeStructures = new HashMap<String, EasyBeanAttributeStructure>();
-    
-    List<OpenMBeanAttributeInfo> attributesInfo = new ArrayList<OpenMBeanAttributeInfo>();
-    
-    for (EasyBeanAttributeStructure beanAttribute : beanAttributes)
+    if (!loaded)
     {
-      if (beanAttribute.typeMapping != null)
-      {
-        boolean isReadable = beanAttribute.hasReadAccess() && (beanAttribute.wasReadAnnotated || (exposure != EasyBeanExposure.ANNOTATED));
-        boolean isWritable = beanAttribute.hasWriteAccess() && (beanAttribute.wasWriteAnnotated || (exposure == EasyBeanExposure.ALL));
-
-        if (isReadable || isWritable)
-        {
-          attributesInfo.add(new OpenMBeanAttributeInfoSupport(beanAttribute.name, beanAttribute.description, (OpenType<Long>) beanAttribute.typeMapping.getOpenType(), isReadable, isWritable, beanAttribute.isIs(), beanAttribute.descriptor));
-
-          if (isReadable)
-          {
-            readableAttributeStructures.put(beanAttribute.name, beanAttribute);
-          }
-
-          if (isWritable)
-          {
-            writableAttributeStructures.put(beanAttribute.name, beanAttribute);
-          }
-        }
-      }
+      return;
     }
 
-    Collections.sort(attributesInfo, new Comparator<OpenMBeanAttributeInfo>()
+    for (CachedAttribute cachedAttribute : cachedAttributes.values())
     {
-      public int compare(OpenMBeanAttributeInfo a1, OpenMBeanAttributeInfo a2)
-      {
-        return a1.getName().compareTo(a2.getName());
-      }
-    });
+      cachedAttribute.invalidate();
+    }
+  }
 
-    return attributesInfo.toArray(new OpenMBeanAttributeInfoSupport[attributesInfo.size()]);
+  /**
+   * @return The number of reads of cached attributes served from the cache.
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  public long getCachedAttributeHits()
+  {
+    long hits = 0;
+    Map<String, CachedAttribute> cachedAttributes = loaded ? this.cachedAttributes : Collections.<String, CachedAttribute>emptyMap();
+    for (CachedAttribute cachedAttribute : cachedAttributes.values())
+    {
+      hits += cachedAttribute.hits.get();
+    }
+    return hits;
   }
 
-  OpenMBeanOperationInfo[] loadOperationInfo(List<EasyBeanOperationStructure> beanOperations)
+  /**
+   * @return The number of reads of cached attributes that had to call the getter (or read the field).
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  public long getCachedAttributeMisses()
   {
-    operationStructures = new HashMap<String, List<EasyBeanOperationStructure>>();
-    List<OpenMBeanOperationInfo> operationsInfo = new ArrayList<OpenMBeanOperationInfo>();
-    
-    for (EasyBeanOperationStructure beanOperation : beanOperations)
+    long misses = 0;
+    Map<String, CachedAttribute> cachedAttributes = loaded ? this.cachedAttributes : Collections.<String, CachedAttribute>emptyMap();
+    for (CachedAttribute cachedAttribute : cachedAttributes.values())
     {
-      if (beanOperation.typeMapping != null)
-      {
-        if (beanOperation.wasAnnotated || (exposure == EasyBeanExposure.ALL))
-        {
-          OpenMBeanParameterInfo[] paramsInfo = getParameterInfo(bean.getClass(), beanOperation.method.getParameterTypes(), beanOperation.method.getParameterAnnotations(), beanOperation.parameterNames, beanOperation.parameterDescriptions, beanOperation.parameterDefaultValues);
-          if (paramsInfo != null)
-          {
-            operationsInfo.add(new OpenMBeanOperationInfoSupport(beanOperation.name, beanOperation.description, paramsInfo, beanOperation.typeMapping.getOpenType(), beanOperation.impact.getMBeanImpact(), beanOperation.descriptor));
-
-            List<EasyBeanOperationStructure> operationsWithSameName;
-            if (operationStructures.containsKey(beanOperation.name))
-            {
-              operationsWithSameName = operationStructures.get(beanOperation.name);
-            }
-            else
-            {
-              operationsWithSameName = new ArrayList<EasyBeanOperationStructure>();
-              operationStructures.put(beanOperation.name, operationsWithSameName);
-            }
-
-            operationsWithSameName.add(beanOperation);
-          }
-        }
-      }
+      misses += cachedAttribute.misses.get();
     }
-    
-    Collections.sort(operationsInfo, new Comparator<OpenMBeanOperationInfo>()
+    return misses;
+  }
+
+  /*
+   * Opens, fetches from or closes a cursor. Idle cursors are closed whenever a cursor is opened or fetched from. No more
+   * than AttributeCursor.MAX_OPEN_CURSORS are open at once, opening another fails until one is closed (or idles out).
+   */
+  Object invokeCursorOperation(AttributeCursor.Operation cursorOperation, Object[] params) throws Exception
+  {
+    Map<Long, AttributeCursor> cursors = cursors();
+    switch (cursorOperation.kind)
     {
-      public int compare(OpenMBeanOperationInfo o1, OpenMBeanOperationInfo o2)
-      {
-        int compare = o1.getName().compareTo(o2.getName());
-        if (compare == 0)
+      case OPEN:
+        synchronized (cursors)
         {
-          int numParams1 = o1.getSignature().length;
-          int numParams2 = o2.getSignature().length;
-          
-          if (numParams1 < numParams2)
-          {
-            return -1;
-          }
-          else if (numParams1 == numParams2)
+          closeIdleCursors(cursors);
+          if (cursors.size() >= AttributeCursor.MAX_OPEN_CURSORS)
           {
-            return 0;
-          }
-          else
-          {
-            return 1;
+            throw new IllegalStateException("Too many open cursors (" + cursors.size() + "), close one before opening another.");
           }
+
+          AttributeCursor cursor = new AttributeCursor(cursorOperation.attribute, cursorOperation.attribute.get(bean()));
+          cursors.put(cursor.id, cursor);
+          return cursor.id;
         }
-        else
+
+      case FETCH:
+        AttributeCursor.checkParameters(params, Long.class, Integer.class);
+        closeIdleCursors(cursors);
+        AttributeCursor cursor = cursors.get(params[0]);
+        if ((cursor == null) || (cursor.attribute != cursorOperation.attribute))
         {
-          return compare;
+          throw new IllegalArgumentException("No open cursor " + params[0] + " over " + cursorOperation.attribute.name + ".");
         }
-      }
-    });
-    
-    return operationsInfo.toArray(new OpenMBeanOperationInfo[operationsInfo.size()]);
+        return cursor.fetch((Integer)params[1]);
+
+      default:
+        AttributeCursor.checkParameters(params, Long.class);
+        cursors.remove(params[0]);
+        return null;
+    }
   }
-  
-  static OpenMBeanParameterInfo[] getParameterInfo(Class beanClass, Class<?>[] paramTypes, Annotation[][] annotations, String[] parameterNames, String[] parameterDescriptions, String[] parameterDefaultValues)
+
+  static void closeIdleCursors(Map<Long, AttributeCursor> cursors)
   {
-    OpenMBeanParameterInfo[] paramsInfo = new OpenMBeanParameterInfo[paramTypes.length];
-    
-    for (int i = 0; i < paramTypes.length; i++)
+    long now = System.currentTimeMillis();
+    for (Iterator<AttributeCursor> iterator = cursors.values().iterator(); iterator.hasNext(); )
     {
-      String name = "arg" + i;
-      OpenTypeMapping typeMapping = mapToOpenType(paramTypes[i]);
-      
-      if (typeMapping == null)
-      {
-        return null;
-      }
-
-      if ((parameterNames != null) && (parameterNames.length > i))
+      if (iterator.next().isIdle(now))
       {
-        name = parameterNames[i];
+        iterator.remove();
       }
+    }
+  }
 
-      String description;
-      if ((parameterDescriptions != null) && (parameterDescriptions.length > i))
-      {
-        description = parameterDescriptions[i];
-      }
-      else
-      {
-        description = name;
-      }
+  synchronized Map<Long, AttributeCursor> cursors()
+  {
+    if (cursors == null)
+    {
+      cursors = new ConcurrentHashMap<Long, AttributeCursor>();
+    }
+    return cursors;
+  }
 
+  Object readAttribute(EasyBeanAttributeStructure beanAttribute) throws Exception
+  {
+    if (!beanAttribute.isTruncatable())
+    {
+      return beanAttribute.converter().convert(beanAttribute.get(bean()));
+    }
 
-      String defaultValueString = null;
-      if ((parameterDefaultValues != null) && (parameterDefaultValues.length > i))
-      {
-        defaultValueString = parameterDefaultValues[i];
-      }
+    Truncation truncation = new Truncation();
+    Object value = beanAttribute.converter().convert(beanAttribute.get(bean()), truncation);
+    truncations().put(beanAttribute.name, truncation);
+    return value;
+  }
 
-      List<Pair<String, Object>> descriptorPairs = new ArrayList<Pair<String, Object>>();
-      for (Annotation annotation : annotations[i])
-      {
-        if (annotation instanceof P)
-        {
-          P jmxParameter = (P)annotation;
-          if (jmxParameter.value().trim().length() > 0) name = jmxParameter.value();
-          if (jmxParameter.description().trim().length() > 0) description = jmxParameter.description();
-          if (jmxParameter.defaultValue().length > 0) defaultValueString = jmxParameter.defaultValue()[0];
+  /*
+   * The truncation of the last value read of the given attribute, all zeros if it hasn't been read.
+   */
+  Object readTruncation(EasyBeanAttributeStructure beanAttribute) throws ReflectionException
+  {
+    Truncation truncation = truncations().get(beanAttribute.name);
+    try
+    {
+      return ((truncation == null) ? new Truncation() : truncation).toCompositeData();
+    }
+    catch (OpenDataException e)
+    {
+      throw new ReflectionException(e);
+    }
+  }
 
-          for (EasyBeanDescriptor easyBeanDescriptor : jmxParameter.descriptor())
-          {
-            int count = Math.min(easyBeanDescriptor.names().length, easyBeanDescriptor.values().length);
-            for (int j = 0; j < count; j++)
-            {
-              descriptorPairs.add(Pair.pair(easyBeanDescriptor.names()[i], (Object)easyBeanDescriptor.values()[i]));
-            }
-          }
-          break;
-        }
-      }
+  synchronized Map<String, Truncation> truncations()
+  {
+    if (truncations == null)
+    {
+      truncations = new ConcurrentHashMap<String, Truncation>();
+    }
+    return truncations;
+  }
 
-      if ((defaultValueString != null) && typeMapping.isSimpleType())
+  static Map<String, CachedAttribute> loadCachedAttributes(Map<String, EasyBeanAttributeStructure> readableAttributeStructures)
+  {
+    Map<String, CachedAttribute> cachedAttributes = null;
+    for (EasyBeanAttributeStructure beanAttribute : readableAttributeStructures.values())
+    {
+      if (beanAttribute.cacheMillis > 0)
       {
-        /*
-         * We've got no way to specify null with annotations, so if the default parameter value is an empty string
-         * and this isn't a String parameter then treat that as null.
-         */
-        Class simpleClass = typeMapping.getSimpleClass();
-        if (hasContent(defaultValueString) || (simpleClass == String.class))
+        if (cachedAttributes == null)
         {
-          descriptorPairs.add(Pair.pair("defaultValue", mapSimpleType(defaultValueString, simpleClass)));
+          cachedAttributes = new HashMap<String, CachedAttribute>();
         }
+        cachedAttributes.put(beanAttribute.name, new CachedAttribute(beanAttribute.cacheMillis));
       }
-      else if (defaultValueString != null)
-      {
-        throw new InvalidEasyBeanAnnotation(beanClass, "Default value " + defaultValueString + " for parameter " + paramTypes[i].getSimpleName() + " must be a simple type.");
-      }
-      Descriptor descriptor = descriptorPairs.isEmpty() ? null : getDescriptorFromPairs(descriptorPairs);
-      /*
-       * The (OpenType<Integer>) cast here is BS to get the compiler not to complain about the constructor being ambiguous.
-       */
-      paramsInfo[i] = new OpenMBeanParameterInfoSupport(name, description, (OpenType<Integer>)typeMapping.getOpenType(), descriptor);
     }
-    
-    return paramsInfo;
+
+    return (cachedAttributes == null) ? Collections.<String, CachedAttribute>emptyMap() : cachedAttributes;
+  }
+
+  MBeanNotificationInfo[] loadNotificationInfo()
+  {
+    return new MBeanNotificationInfo[0];
+  }
+
+  /*
+   * Subclasses can add attributes of the wrapper itself to the attributes of the bean.
+   */
+  OpenMBeanAttributeInfo[] loadAttributeInfo(OpenMBeanAttributeInfo[] beanAttributeInfo)
+  {
+    return beanAttributeInfo;
   }
 }
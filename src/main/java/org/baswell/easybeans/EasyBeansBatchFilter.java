@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Notification;
+import javax.management.NotificationFilter;
+
+/**
+ * Register a listener with this filter to receive batches of notifications sent with {@link EasyBeansExtendedNotifier#notifyBatch(java.util.Collection)}
+ * (or flushed from {@link EasyBeansExtendedNotifier#notifyBuffered(String, String)}) as a single notification of type {@link #BATCH_NOTIFICATION_TYPE}.
+ * The user data of the batch notification is the <code>Notification[]</code> of the batch. Listeners registered without
+ * this filter receive every notification of the batch individually.
+ * <p>
+ * Because the filter is sent to the MBean server this works for remote listeners too.
+ */
+public class EasyBeansBatchFilter implements NotificationFilter
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The type of the notification delivering a batch.
+   */
+  public static final String BATCH_NOTIFICATION_TYPE = "easybeans.notification.batch";
+
+  @Override
+  public boolean isNotificationEnabled(Notification notification)
+  {
+    return true;
+  }
+}
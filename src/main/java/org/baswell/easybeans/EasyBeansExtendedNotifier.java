@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Notification;
+import java.util.Collection;
+
+/**
+ * The notifier {@link org.baswell.easybeans.EasyBeanNotificationWrapper} passes to
+ * {@link EasyBeansNotifierUser#setNotifier(EasyBeansNotifier)} implements this interface as well. Kept apart from
+ * {@link EasyBeansNotifier} so existing implementations of that interface don't break.
+ *
+ * <pre>
+ * public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+ * {
+ *   notifier = (EasyBeansExtendedNotifier)easyBeansNotifier;
+ * }
+ * </pre>
+ */
+public interface EasyBeansExtendedNotifier extends EasyBeansNotifier
+{
+  /**
+   * Sends a notification of the given type for each message. Listeners registered with an {@link EasyBeansBatchFilter}
+   * receive all of them in one batch notification, other listeners receive them one at a time.
+   *
+   * @param type The notification type.
+   * @param messages The notification messages.
+   */
+  void notifyBatch(String type, Collection<String> messages);
+
+  /**
+   * Sends the given notifications. Listeners registered with an {@link EasyBeansBatchFilter} receive all of them in one
+   * batch notification, other listeners receive them one at a time.
+   *
+   * @param notifications The notifications.
+   */
+  void notifyBatch(Collection<Notification> notifications);
+
+  /**
+   * Buffers a notification in a buffer of the calling thread. The buffer is sent as a batch (see {@link #notifyBatch(Collection)})
+   * when it fills up or when its oldest notification gets too old.
+   *
+   * @param type The notification type.
+   * @param message The notification message.
+   * @see EasyBeanNotificationBuffer
+   */
+  void notifyBuffered(String type, String message);
+
+  /**
+   * Sends the notifications buffered by the calling thread now.
+   *
+   * @see #notifyBuffered(String, String)
+   */
+  void flushBufferedNotifications();
+
+  /**
+   * Clears the cached value of the given attribute of your bean so the next read gets the current value.
+   *
+   * @param attributeName The attribute name.
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  void invalidateCachedAttribute(String attributeName);
+
+  /**
+   * Clears the cached values of all attributes of your bean.
+   *
+   * @see EasyBeanAttribute#cacheMillis()
+   */
+  void invalidateCachedAttributes();
+}
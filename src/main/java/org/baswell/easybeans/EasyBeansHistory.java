@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.ObjectName;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.SimpleType;
+
+/**
+ * Samples numeric attributes of beans registered with a {@link EasyBeansRegistery} at a fixed interval and keeps their
+ * history in memory, so short spikes between the polls of a monitoring system are still visible. Samples are compressed
+ * as they are taken (see <a href="http://www.vldb.org/pvldb/vol8/p1816-teller.pdf">Gorilla</a>). Values that change
+ * slowly and are sampled on schedule take a few bits each, so hours of one second samples take kilobytes.
+ *
+ * <pre>
+ * EasyBeansHistory history = new EasyBeansHistory(registry, 1, TimeUnit.SECONDS, 6, TimeUnit.HOURS);
+ * history.track(connectionPool, "ActiveConnections", "IdleConnections");
+ * registry.register(history);
+ * history.start();
+ * </pre>
+ *
+ * The history is itself an easy bean. Once registered its <code>history</code> operation returns the samples of an
+ * attribute between two times as a {@link javax.management.openmbean.TabularData}.
+ * <p>
+ * Samples are stamped with the time they were scheduled for, not the time they were taken, so the times of a series are
+ * evenly spaced and compress to almost nothing. Attributes of beans that are unregistered (or garbage collected when
+ * registered weakly) stop being tracked and their history is dropped.
+ * <p>
+ * Samples are read through the bean's wrapper like any JMX read, so counters and timers created with
+ * <code>resetOnRead</code> are reset by each sample.
+ */
+@EasyBean(description = "History of sampled EasyBean attributes.")
+public class EasyBeansHistory
+{
+  static final Set<SimpleType> NUMERIC_TYPES = new HashSet<SimpleType>(Arrays.asList(new SimpleType[] {SimpleType.BYTE, SimpleType.SHORT,
+      SimpleType.INTEGER, SimpleType.LONG, SimpleType.FLOAT, SimpleType.DOUBLE, SimpleType.BIGDECIMAL, SimpleType.BIGINTEGER}));
+
+  private final EasyBeansRegistery registry;
+
+  private final long intervalMillis;
+
+  private final long retentionMillis;
+
+  private final ConcurrentMap<String, TrackedAttribute> trackedAttributes = new ConcurrentHashMap<String, TrackedAttribute>();
+
+  private ScheduledFuture sampling;
+
+  /**
+   * @param registry The registry the tracked beans are registered with.
+   * @param interval The time between samples.
+   * @param intervalUnit The unit of interval.
+   * @param retention How long samples are kept.
+   * @param retentionUnit The unit of retention.
+   */
+  public EasyBeansHistory(EasyBeansRegistery registry, long interval, TimeUnit intervalUnit, long retention, TimeUnit retentionUnit)
+  {
+    this.registry = registry;
+    intervalMillis = Math.max(1, intervalUnit.toMillis(interval));
+    retentionMillis = retentionUnit.toMillis(retention);
+  }
+
+  /**
+   * Starts sampling the given attributes of the given bean.
+   *
+   * @param bean A bean registered with this history's registry.
+   * @param attributeNames The names of numeric attributes of the bean.
+   * @throws IllegalArgumentException If the bean isn't registered or one of the attributes isn't a readable numeric attribute.
+   */
+  public void track(Object bean, String... attributeNames)
+  {
+    EasyBeanWrapper wrapper = registry.getWrapper(bean);
+    if (wrapper == null)
+    {
+      throw new IllegalArgumentException("The bean " + bean + " is not registered.");
+    }
+
+    Map<String, OpenMBeanAttributeInfo> attributeInfo = new TreeMap<String, OpenMBeanAttributeInfo>();
+    for (MBeanAttributeInfo info : wrapper.getMBeanInfo().getAttributes())
+    {
+      attributeInfo.put(info.getName(), (OpenMBeanAttributeInfo)info);
+    }
+
+    for (String attributeName : attributeNames)
+    {
+      OpenMBeanAttributeInfo info = attributeInfo.get(attributeName);
+      if ((info == null) || !info.isReadable() || !NUMERIC_TYPES.contains(info.getOpenType()))
+      {
+        throw new IllegalArgumentException("The bean " + wrapper.objectName + " has no readable numeric attribute " + attributeName + ".");
+      }
+    }
+
+    for (String attributeName : attributeNames)
+    {
+      TrackedAttribute trackedAttribute = new TrackedAttribute(wrapper, attributeName);
+      trackedAttributes.putIfAbsent(key(wrapper.objectName, attributeName), trackedAttribute);
+    }
+  }
+
+  /**
+   * Stops sampling the attributes of the given bean and drops their history.
+   */
+  public void untrack(Object bean)
+  {
+    for (TrackedAttribute trackedAttribute : trackedAttributes.values())
+    {
+      if (trackedAttribute.wrapper.wraps(bean))
+      {
+        trackedAttributes.remove(key(trackedAttribute.wrapper.objectName, trackedAttribute.attributeName), trackedAttribute);
+      }
+    }
+  }
+
+  /**
+   * Starts sampling on the EasyBeans scheduler thread. Does nothing if already started.
+   */
+  public synchronized void start()
+  {
+    if (sampling == null)
+    {
+      final long firstSampleTime = System.currentTimeMillis() + intervalMillis;
+      sampling = SharedScheduler.get().scheduleAtFixedRate(new Runnable()
+      {
+        long samples;
+
+        @Override
+        public void run()
+        {
+          sample(firstSampleTime + (samples++ * intervalMillis));
+        }
+      }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops sampling. The history taken so far is kept.
+   */
+  public synchronized void stop()
+  {
+    if (sampling != null)
+    {
+      sampling.cancel(false);
+      sampling = null;
+    }
+  }
+
+  /**
+   * @param objectName The object name of a tracked bean.
+   * @param attributeName A tracked attribute of the bean.
+   * @param from The earliest sample time, in milliseconds since the epoch.
+   * @param to The latest sample time, in milliseconds since the epoch.
+   * @return The samples taken between from and to keyed by their time, in milliseconds since the epoch.
+   */
+  @EasyBeanOperation(description = "The samples of a tracked attribute taken between two times, keyed by the time of the sample in milliseconds since the epoch.",
+      parameterNames = {"objectName", "attribute", "from", "to"},
+      parameterDescriptions = {"The object name of the bean", "The attribute name", "The earliest sample time in milliseconds since the epoch", "The latest sample time in milliseconds since the epoch"},
+      impact = OperationImpact.INFO)
+  public SortedMap<Long, Double> history(String objectName, String attributeName, long from, long to)
+  {
+    TrackedAttribute trackedAttribute = trackedAttributes.get(key(objectName, attributeName));
+    if (trackedAttribute == null)
+    {
+      return new TreeMap<Long, Double>();
+    }
+
+    synchronized (trackedAttribute.series)
+    {
+      return trackedAttribute.series.read(from, to);
+    }
+  }
+
+  /**
+   * @return The samples of a tracked attribute taken in the given number of seconds before now.
+   */
+  @EasyBeanOperation(description = "The samples of a tracked attribute taken in the last number of seconds, keyed by the time of the sample in milliseconds since the epoch.",
+      parameterNames = {"objectName", "attribute", "seconds"},
+      parameterDescriptions = {"The object name of the bean", "The attribute name", "The number of seconds before now"},
+      impact = OperationImpact.INFO)
+  public SortedMap<Long, Double> recentHistory(String objectName, String attributeName, long seconds)
+  {
+    long now = System.currentTimeMillis();
+    return history(objectName, attributeName, now - TimeUnit.SECONDS.toMillis(seconds), now);
+  }
+
+  /**
+   * @return The tracked attributes as <code>objectName#attribute</code>.
+   */
+  @EasyBeanAttribute(description = "The tracked attributes as objectName#attribute.")
+  public List<String> getTrackedAttributes()
+  {
+    return new ArrayList<String>(new TreeMap<String, TrackedAttribute>(trackedAttributes).keySet());
+  }
+
+  @EasyBeanAttribute(description = "The number of samples held.")
+  public long getSampleCount()
+  {
+    long count = 0;
+    for (TrackedAttribute trackedAttribute : trackedAttributes.values())
+    {
+      synchronized (trackedAttribute.series)
+      {
+        count += trackedAttribute.series.getSampleCount();
+      }
+    }
+    return count;
+  }
+
+  @EasyBeanAttribute(description = "The bytes used by the compressed samples held.")
+  public long getCompressedSize()
+  {
+    long size = 0;
+    for (TrackedAttribute trackedAttribute : trackedAttributes.values())
+    {
+      synchronized (trackedAttribute.series)
+      {
+        size += trackedAttribute.series.getCompressedSize();
+      }
+    }
+    return size;
+  }
+
+  /*
+   * Samples every tracked attribute at the given time. Attributes of collected or unregistered beans are no longer
+   * tracked, attributes that can't be read are skipped.
+   */
+  void sample(long time)
+  {
+    Set<EasyBeanWrapper> registeredWrappers = Collections.newSetFromMap(new IdentityHashMap<EasyBeanWrapper, Boolean>());
+    registeredWrappers.addAll(registry.getWrappers());
+
+    for (TrackedAttribute trackedAttribute : trackedAttributes.values())
+    {
+      if (trackedAttribute.wrapper.isCollected() || !registeredWrappers.contains(trackedAttribute.wrapper))
+      {
+        trackedAttributes.remove(key(trackedAttribute.wrapper.objectName, trackedAttribute.attributeName), trackedAttribute);
+        continue;
+      }
+
+      Number value;
+      try
+      {
+        value = (Number)trackedAttribute.wrapper.getAttribute(trackedAttribute.attributeName);
+      }
+      catch (Exception e)
+      {
+        continue;
+      }
+
+      synchronized (trackedAttribute.series)
+      {
+        trackedAttribute.series.append(time, (value == null) ? Double.NaN : value.doubleValue());
+        trackedAttribute.series.dropBefore(time - retentionMillis);
+      }
+    }
+  }
+
+  static String key(Object objectName, String attributeName)
+  {
+    return objectName + "#" + attributeName;
+  }
+
+  static class TrackedAttribute
+  {
+    final EasyBeanWrapper wrapper;
+
+    final String attributeName;
+
+    final CompressedSeries series = new CompressedSeries();
+
+    TrackedAttribute(EasyBeanWrapper wrapper, String attributeName)
+    {
+      this.wrapper = wrapper;
+      this.attributeName = attributeName;
+    }
+  }
+}
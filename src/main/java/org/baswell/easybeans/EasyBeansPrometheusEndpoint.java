@@ -0,0 +1,528 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the numeric attributes of the beans registered with a {@link EasyBeansRegistery} in the Prometheus text format,
+ * using the HTTP server built into the JDK. Attributes are read directly through the bean wrappers, without going
+ * through the MBean server or a JMX connector.
+ *
+ * <pre>
+ * EasyBeansPrometheusEndpoint endpoint = new EasyBeansPrometheusEndpoint(registry, 9404);
+ * endpoint.start();
+ * </pre>
+ *
+ * Each numeric (or boolean) attribute is a metric named from the bean's object name domain and the attribute name, with
+ * the key properties of the object name as labels. For the bean <code>com.acme:type=Pool,name=orders</code>:
+ *
+ * <pre>
+ * com_acme_ActiveConnections{name="orders",type="Pool"} 12
+ * com_acme_RequestTime_p99{name="orders",type="Pool"} 43.5
+ * com_acme_QueueSizes_value{key="inbound",name="orders",type="Pool"} 3
+ * </pre>
+ *
+ * Composite attributes become one metric per numeric item. Tabular attributes become one metric per numeric column, with
+ * the index columns of each row as labels. An index label named like a key property of the object name is prefixed with
+ * <code>index_</code>, and a composite item or column metric named like another attribute's metric gets a trailing
+ * <code>_</code>, so no label or series is ever written twice.
+ */
+public class EasyBeansPrometheusEndpoint
+{
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final EasyBeansRegistery registry;
+
+  private final InetSocketAddress address;
+
+  private final String path;
+
+  private final PrometheusTextBuffer buffer = new PrometheusTextBuffer();
+
+  private ScrapePlan plan;
+
+  private HttpServer server;
+
+  /**
+   * An endpoint serving <code>/metrics</code> on the given port of all interfaces.
+   */
+  public EasyBeansPrometheusEndpoint(EasyBeansRegistery registry, int port)
+  {
+    this(registry, new InetSocketAddress(port), "/metrics");
+  }
+
+  /**
+   * @param registry The registry whose beans are served.
+   * @param address The address to listen on.
+   * @param path The path metrics are served from.
+   */
+  public EasyBeansPrometheusEndpoint(EasyBeansRegistery registry, InetSocketAddress address, String path)
+  {
+    this.registry = registry;
+    this.address = address;
+    this.path = path;
+  }
+
+  /**
+   * Starts listening. Does nothing if already started.
+   *
+   * @throws IOException If the server can't be bound to the address.
+   */
+  public synchronized void start() throws IOException
+  {
+    if (server == null)
+    {
+      server = HttpServer.create(address, 0);
+      server.createContext(path, new HttpHandler()
+      {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+          try
+          {
+            if (!"GET".equals(exchange.getRequestMethod()))
+            {
+              exchange.sendResponseHeaders(405, -1);
+            }
+            else
+            {
+              synchronized (EasyBeansPrometheusEndpoint.this)
+              {
+                PrometheusTextBuffer buffer = scrape();
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, buffer.length());
+                buffer.writeTo(exchange.getResponseBody());
+              }
+            }
+          }
+          finally
+          {
+            exchange.close();
+          }
+        }
+      });
+      server.start();
+    }
+  }
+
+  /**
+   * Stops listening. Does nothing if not started.
+   */
+  public synchronized void stop()
+  {
+    if (server != null)
+    {
+      server.stop(0);
+      server = null;
+    }
+  }
+
+  /**
+   * @return The port listened on or -1 if not started.
+   */
+  public synchronized int getPort()
+  {
+    return (server == null) ? -1 : server.getAddress().getPort();
+  }
+
+  /*
+   * Writes every metric to the shared buffer. Attributes are all read first so an attribute (a timer for example) split
+   * over several metrics is only read once per scrape.
+   */
+  synchronized PrometheusTextBuffer scrape()
+  {
+    Collection<EasyBeanWrapper> wrappers = registry.getWrappers();
+    if ((plan == null) || !plan.isCurrent(wrappers))
+    {
+      plan = new ScrapePlan(wrappers);
+    }
+
+    for (int i = 0; i < plan.readings.size(); i++)
+    {
+      plan.values[i] = plan.readings.get(i).read();
+    }
+
+    buffer.reset();
+    for (Family family : plan.families.values())
+    {
+      buffer.append("# TYPE ").append(family.name).append(" untyped\n");
+      for (Sample sample : family.samples)
+      {
+        sample.write(buffer, family.name, plan.values[sample.reading]);
+      }
+    }
+    return buffer;
+  }
+
+  /*
+   * The metrics of a set of wrappers. Built when the wrappers registered change and then reused by each scrape.
+   */
+  static class ScrapePlan
+  {
+    final Map<EasyBeanWrapper, Boolean> wrappers = new IdentityHashMap<EasyBeanWrapper, Boolean>();
+
+    final List<Reading> readings = new ArrayList<Reading>();
+
+    final Map<String, Family> families = new TreeMap<String, Family>();
+
+    final Object[] values;
+
+    ScrapePlan(Collection<EasyBeanWrapper> registeredWrappers)
+    {
+      for (EasyBeanWrapper wrapper : registeredWrappers)
+      {
+        wrappers.put(wrapper, Boolean.TRUE);
+        if (wrapper.isCollected())
+        {
+          continue;
+        }
+
+        MBeanAttributeInfo[] attributeInfos;
+        try
+        {
+          attributeInfos = wrapper.getMBeanInfo().getAttributes();
+        }
+        catch (EasyBeanException e)
+        {
+          continue;
+        }
+
+        String prefix = metricName(wrapper.objectName.getDomain());
+        Set<String> labelNames = new HashSet<String>();
+        byte[] labels = labels(wrapper.objectName, labelNames);
+        Set<String> familyNames = new HashSet<String>();
+
+        /*
+         * Numeric attributes first so they keep their names if a composite item or column metric collides with them.
+         */
+        for (boolean numeric : new boolean[] {true, false})
+        {
+          for (MBeanAttributeInfo attributeInfo : attributeInfos)
+          {
+            if (attributeInfo.isReadable() && (attributeInfo instanceof OpenMBeanAttributeInfo) && (isNumeric(((OpenMBeanAttributeInfo)attributeInfo).getOpenType()) == numeric))
+            {
+              addAttribute(wrapper, attributeInfo.getName(), ((OpenMBeanAttributeInfo)attributeInfo).getOpenType(), prefix + "_" + metricName(attributeInfo.getName()), labels, labelNames, familyNames);
+            }
+          }
+        }
+      }
+      values = new Object[readings.size()];
+    }
+
+    /*
+     * Adds the metrics of an attribute. The label and family names already used by the attribute's bean are given so the
+     * attribute's metrics don't repeat them.
+     */
+    void addAttribute(EasyBeanWrapper wrapper, String attributeName, OpenType openType, String name, byte[] labels, Set<String> labelNames, Set<String> familyNames)
+    {
+      int reading = readings.size();
+      int samplesAdded = 0;
+      if (isNumeric(openType))
+      {
+        family(uniqueFamilyName(name, familyNames)).samples.add(new Sample(reading, labels, null, null, null));
+        samplesAdded++;
+      }
+      else if (openType instanceof CompositeType)
+      {
+        CompositeType compositeType = (CompositeType)openType;
+        for (String item : compositeType.keySet())
+        {
+          if (isNumeric(compositeType.getType(item)))
+          {
+            family(uniqueFamilyName(name + "_" + metricName(item), familyNames)).samples.add(new Sample(reading, labels, item, null, null));
+            samplesAdded++;
+          }
+        }
+      }
+      else if (openType instanceof TabularType)
+      {
+        TabularType tabularType = (TabularType)openType;
+        List<String> indexNames = tabularType.getIndexNames();
+        Set<String> rowLabelNames = new HashSet<String>(labelNames);
+        String[] indexLabelNames = new String[indexNames.size()];
+        for (int i = 0; i < indexLabelNames.length; i++)
+        {
+          indexLabelNames[i] = uniqueLabelName(labelName(indexNames.get(i)), "index_", rowLabelNames);
+        }
+
+        for (String column : tabularType.getRowType().keySet())
+        {
+          if (!indexNames.contains(column) && isNumeric(tabularType.getRowType().getType(column)))
+          {
+            family(uniqueFamilyName(name + "_" + metricName(column), familyNames)).samples.add(new Sample(reading, labels, column, indexNames.toArray(new String[indexNames.size()]), indexLabelNames));
+            samplesAdded++;
+          }
+        }
+      }
+
+      if (samplesAdded > 0)
+      {
+        readings.add(new Reading(wrapper, attributeName));
+      }
+    }
+
+    Family family(String name)
+    {
+      Family family = families.get(name);
+      if (family == null)
+      {
+        families.put(name, family = new Family(name));
+      }
+      return family;
+    }
+
+    boolean isCurrent(Collection<EasyBeanWrapper> registeredWrappers)
+    {
+      int count = 0;
+      for (EasyBeanWrapper wrapper : registeredWrappers)
+      {
+        if (!wrappers.containsKey(wrapper))
+        {
+          return false;
+        }
+        count++;
+      }
+      return count == wrappers.size();
+    }
+  }
+
+  static class Reading
+  {
+    final EasyBeanWrapper wrapper;
+
+    final String attributeName;
+
+    Reading(EasyBeanWrapper wrapper, String attributeName)
+    {
+      this.wrapper = wrapper;
+      this.attributeName = attributeName;
+    }
+
+    /*
+     * The attribute's value or null if it can't be read (the bean has been collected for example).
+     */
+    Object read()
+    {
+      try
+      {
+        return wrapper.getAttribute(attributeName);
+      }
+      catch (Exception e)
+      {
+        return null;
+      }
+    }
+  }
+
+  static class Family
+  {
+    final String name;
+
+    final List<Sample> samples = new ArrayList<Sample>();
+
+    Family(String name)
+    {
+      this.name = name;
+    }
+  }
+
+  /*
+   * One metric of an attribute: the attribute itself, an item of a composite attribute or a column of each row of a
+   * tabular attribute.
+   */
+  static class Sample
+  {
+    final int reading;
+
+    final byte[] labels;
+
+    final String item;
+
+    final String[] indexNames;
+
+    final String[] indexLabelNames;
+
+    Sample(int reading, byte[] labels, String item, String[] indexNames, String[] indexLabelNames)
+    {
+      this.reading = reading;
+      this.labels = labels;
+      this.item = item;
+      this.indexNames = indexNames;
+      this.indexLabelNames = indexLabelNames;
+    }
+
+    void write(PrometheusTextBuffer buffer, String name, Object value)
+    {
+      if (value == null)
+      {
+        return;
+      }
+      else if (indexNames != null)
+      {
+        for (Object row : ((TabularData)value).values())
+        {
+          CompositeData compositeData = (CompositeData)row;
+          buffer.append(name).append('{').append(labels);
+          for (int i = 0; i < indexNames.length; i++)
+          {
+            if ((i > 0) || (labels.length > 0))
+            {
+              buffer.append(',');
+            }
+            buffer.append(indexLabelNames[i]).append("=\"").appendLabelValue(compositeData.get(indexNames[i])).append('"');
+          }
+          buffer.append('}');
+          writeValue(buffer, compositeData.get(item));
+        }
+      }
+      else
+      {
+        buffer.append(name);
+        if (labels.length > 0)
+        {
+          buffer.append('{').append(labels).append('}');
+        }
+        writeValue(buffer, (item == null) ? value : ((CompositeData)value).get(item));
+      }
+    }
+
+    static void writeValue(PrometheusTextBuffer buffer, Object value)
+    {
+      buffer.append(' ');
+      if (value instanceof Boolean)
+      {
+        buffer.append(((Boolean)value) ? 1L : 0L);
+      }
+      else if ((value instanceof Double) || (value instanceof Float) || (value instanceof BigDecimal) || (value instanceof BigInteger))
+      {
+        buffer.append(((Number)value).doubleValue());
+      }
+      else if (value instanceof Number)
+      {
+        buffer.append(((Number)value).longValue());
+      }
+      else
+      {
+        buffer.append("NaN");
+      }
+      buffer.append('\n');
+    }
+  }
+
+  static boolean isNumeric(OpenType openType)
+  {
+    return (openType == SimpleType.BOOLEAN) || EasyBeansHistory.NUMERIC_TYPES.contains(openType);
+  }
+
+  /*
+   * Metric names can only contain letters, digits, underscores and colons, and can't start with a digit.
+   */
+  static String metricName(String name)
+  {
+    StringBuilder metricName = new StringBuilder(name.length() + 1);
+    if ((name.length() == 0) || Character.isDigit(name.charAt(0)))
+    {
+      metricName.append('_');
+    }
+
+    for (int i = 0; i < name.length(); i++)
+    {
+      char c = name.charAt(i);
+      metricName.append((((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '_') || (c == ':')) ? c : '_');
+    }
+    return metricName.toString();
+  }
+
+  /*
+   * Label names are metric names without colons.
+   */
+  static String labelName(String name)
+  {
+    return metricName(name).replace(':', '_');
+  }
+
+  /*
+   * The key properties of the given object name as labels (sorted by name), encoded once per plan. The label names are
+   * added to the given names.
+   */
+  static byte[] labels(ObjectName objectName, Set<String> labelNames)
+  {
+    PrometheusTextBuffer labels = new PrometheusTextBuffer();
+    boolean first = true;
+    for (Map.Entry<String, String> property : new TreeMap<String, String>(objectName.getKeyPropertyList()).entrySet())
+    {
+      if (!first)
+      {
+        labels.append(',');
+      }
+      first = false;
+      labels.append(uniqueLabelName(labelName(property.getKey()), "property_", labelNames)).append("=\"").appendLabelValue(property.getValue()).append('"');
+    }
+    return labels.toByteArray();
+  }
+
+  /*
+   * The given label name, prefixed (as many times as it takes) if it's already one of the given names. The returned name
+   * is added to them.
+   */
+  static String uniqueLabelName(String labelName, String prefix, Set<String> labelNames)
+  {
+    while (!labelNames.add(labelName))
+    {
+      labelName = prefix + labelName;
+    }
+    return labelName;
+  }
+
+  /*
+   * The given metric name, with trailing underscores if it's already one of the given names. The returned name is added to
+   * them.
+   */
+  static String uniqueFamilyName(String name, Set<String> familyNames)
+  {
+    while (!familyNames.add(name))
+    {
+      name += "_";
+    }
+    return name;
+  }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Reads the attributes of every bean in a {@link EasyBeansRegistery} matching an object name pattern in a single JMX
+ * call. A monitoring agent polling thousands of beans makes one round trip instead of one per bean, and the attributes are
+ * read in process directly through the bean wrappers.
+ *
+ * <pre>
+ * registry.register(new EasyBeansQuery(registry));
+ * </pre>
+ *
+ * Registered as <code>org.baswell.easybeans:Name=EasyBeansQuery</code> unless given another object name.
+ * <p>
+ * The <code>aggregate</code> and <code>percentile</code> operations compute statistics of an attribute across all the
+ * matching beans, so only the result travels over the wire. Attributes of many beans are read in parallel.
+ */
+@EasyBean(description = "Reads the attributes of many EasyBeans in one call.")
+public class EasyBeansQuery
+{
+  private final EasyBeansRegistery registry;
+
+  public EasyBeansQuery(EasyBeansRegistery registry)
+  {
+    this.registry = registry;
+  }
+
+  /**
+   * @param objectNamePattern An object name or object name pattern (<code>com.acme:type=Pool,*</code> for example).
+   * @param attributeNames The attributes to read from each matching bean. If empty every readable attribute is read.
+   * @return The attribute values of the matching beans keyed by <code>objectName#attribute</code>.
+   */
+  @EasyBeanOperation(description = "Reads the given attributes (all attributes if none given) of the beans matching an object name pattern. Values are keyed by objectName#attribute.",
+      parameterNames = {"objectNamePattern", "attributes"},
+      parameterDescriptions = {"An object name or object name pattern", "The attributes to read from each bean"},
+      impact = OperationImpact.INFO)
+  public SortedMap<String, Value> read(String objectNamePattern, String[] attributeNames)
+  {
+    SortedMap<String, Value> values = new TreeMap<String, Value>();
+    for (EasyBeanWrapper wrapper : matching(objectNamePattern))
+    {
+      String[] names = ((attributeNames == null) || (attributeNames.length == 0)) ? readableAttributeNames(wrapper) : attributeNames;
+      for (String attributeName : names)
+      {
+        values.put(EasyBeansHistory.key(wrapper.objectName, attributeName), read(wrapper, attributeName));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * The compact form of {@link #read(String, String[])} for numeric attributes.
+   *
+   * @param objectNamePattern An object name or object name pattern (<code>com.acme:type=Pool,*</code> for example).
+   * @param attributeNames The attributes to read from each matching bean. Unlike {@link #read(String, String[])} at least
+   * one must be given, every bean's values are laid out by the same attributes.
+   * @return The object names of the matching beans and the values of their attributes.
+   * @throws IllegalArgumentException If no attributes are given.
+   */
+  @EasyBeanOperation(description = "Reads the given numeric attributes of the beans matching an object name pattern. The values are ordered by object name then attribute, NaN for values that aren't numeric or can't be read.",
+      parameterNames = {"objectNamePattern", "attributes"},
+      parameterDescriptions = {"An object name or object name pattern", "The attributes to read from each bean"},
+      impact = OperationImpact.INFO)
+  public Numbers readNumbers(String objectNamePattern, String[] attributeNames)
+  {
+    if ((attributeNames == null) || (attributeNames.length == 0))
+    {
+      throw new IllegalArgumentException("At least one attribute must be given.");
+    }
+
+    List<EasyBeanWrapper> wrappers = matching(objectNamePattern);
+    String[] objectNames = new String[wrappers.size()];
+    for (int i = 0; i < objectNames.length; i++)
+    {
+      objectNames[i] = wrappers.get(i).objectName.toString();
+    }
+    return new Numbers(objectNames, attributeNames, readNumbers(wrappers, attributeNames));
+  }
+
+  /**
+   * @param objectNamePattern An object name or object name pattern (<code>com.acme:type=Pool,*</code> for example).
+   * @param attributeName A numeric attribute of the matching beans.
+   * @return The count, sum, min, max, average and percentiles of the attribute across the matching beans.
+   */
+  @EasyBeanOperation(description = "The count, sum, min, max, average and percentiles of a numeric attribute across the beans matching an object name pattern. Beans without a numeric value for the attribute are skipped.",
+      parameterNames = {"objectNamePattern", "attribute"},
+      parameterDescriptions = {"An object name or object name pattern", "The numeric attribute to aggregate"},
+      impact = OperationImpact.INFO)
+  public Aggregate aggregate(String objectNamePattern, String attributeName)
+  {
+    List<EasyBeanWrapper> wrappers = matching(objectNamePattern);
+    return new Aggregate(wrappers.size(), sortedValues(wrappers, attributeName));
+  }
+
+  /**
+   * @param objectNamePattern An object name or object name pattern (<code>com.acme:type=Pool,*</code> for example).
+   * @param attributeName A numeric attribute of the matching beans.
+   * @param percentile Between 0 and 100.
+   * @return The value of the attribute at or below which the given percentage of the matching beans' values fall. NaN
+   * if no bean has a numeric value for the attribute.
+   */
+  @EasyBeanOperation(description = "The percentile of a numeric attribute across the beans matching an object name pattern. Beans without a numeric value for the attribute are skipped.",
+      parameterNames = {"objectNamePattern", "attribute", "percentile"},
+      parameterDescriptions = {"An object name or object name pattern", "The numeric attribute", "The percentile, between 0 and 100"},
+      impact = OperationImpact.INFO)
+  public double percentile(String objectNamePattern, String attributeName, double percentile)
+  {
+    return percentile(sortedValues(matching(objectNamePattern), attributeName), percentile);
+  }
+
+  /*
+   * The numeric values of the given attribute of the given wrappers in ascending order.
+   */
+  double[] sortedValues(List<EasyBeanWrapper> wrappers, String attributeName)
+  {
+    double[] values = readNumbers(wrappers, new String[] {attributeName});
+    int count = 0;
+    for (double value : values)
+    {
+      if (!Double.isNaN(value))
+      {
+        values[count++] = value;
+      }
+    }
+    values = Arrays.copyOf(values, count);
+    Arrays.sort(values);
+    return values;
+  }
+
+  /*
+   * Reads the given attributes of the given wrappers in parallel batches. The value of attribute j of wrapper i is at
+   * index (i * attributeNames.length) + j.
+   */
+  double[] readNumbers(final List<EasyBeanWrapper> wrappers, final String[] attributeNames)
+  {
+    final double[] values = new double[wrappers.size() * attributeNames.length];
+    ParallelBatches.run(wrappers.size(), "EasyBeans-Query", new ParallelBatches.Batch()
+    {
+      @Override
+      public void run(int start, int end)
+      {
+        for (int i = start; i < end; i++)
+        {
+          EasyBeanWrapper wrapper = wrappers.get(i);
+          for (int j = 0; j < attributeNames.length; j++)
+          {
+            values[(i * attributeNames.length) + j] = read(wrapper, attributeNames[j]).getNumber();
+          }
+        }
+      }
+    });
+    return values;
+  }
+
+  /*
+   * Nearest rank percentile of the given sorted values.
+   */
+  static double percentile(double[] sortedValues, double percentile)
+  {
+    if (sortedValues.length == 0)
+    {
+      return Double.NaN;
+    }
+    int rank = (int)Math.ceil((Math.min(100, Math.max(0, percentile)) * sortedValues.length) / 100);
+    return sortedValues[Math.max(0, rank - 1)];
+  }
+
+  /*
+   * The wrappers of the registered beans matching the given pattern ordered by object name.
+   */
+  List<EasyBeanWrapper> matching(String objectNamePattern)
+  {
+    ObjectName pattern;
+    try
+    {
+      pattern = new ObjectName(objectNamePattern);
+    }
+    catch (MalformedObjectNameException e)
+    {
+      throw new IllegalArgumentException("Invalid object name pattern " + objectNamePattern + ".", e);
+    }
+
+    List<EasyBeanWrapper> wrappers = new ArrayList<EasyBeanWrapper>();
+    for (EasyBeanWrapper wrapper : registry.getWrappers())
+    {
+      if (!wrapper.isCollected() && pattern.apply(wrapper.objectName))
+      {
+        wrappers.add(wrapper);
+      }
+    }
+
+    Collections.sort(wrappers, new Comparator<EasyBeanWrapper>()
+    {
+      @Override
+      public int compare(EasyBeanWrapper wrapper1, EasyBeanWrapper wrapper2)
+      {
+        return wrapper1.objectName.getCanonicalName().compareTo(wrapper2.objectName.getCanonicalName());
+      }
+    });
+    return wrappers;
+  }
+
+  static String[] readableAttributeNames(EasyBeanWrapper wrapper)
+  {
+    List<String> names = new ArrayList<String>();
+    for (MBeanAttributeInfo attributeInfo : wrapper.getMBeanInfo().getAttributes())
+    {
+      if (attributeInfo.isReadable())
+      {
+        names.add(attributeInfo.getName());
+      }
+    }
+    return names.toArray(new String[names.size()]);
+  }
+
+  static Value read(EasyBeanWrapper wrapper, String attributeName)
+  {
+    try
+    {
+      return new Value(wrapper.getAttribute(attributeName), null);
+    }
+    catch (AttributeNotFoundException e)
+    {
+      return new Value(null, "No readable attribute " + attributeName + ".");
+    }
+    catch (Exception e)
+    {
+      return new Value(null, e.getMessage());
+    }
+  }
+
+  /**
+   * The value of one attribute of one bean.
+   */
+  @EasyBeanOpenType(description = "The value of an attribute.")
+  public static class Value
+  {
+    private final Object value;
+
+    private final String error;
+
+    Value(Object value, String error)
+    {
+      this.value = value;
+      this.error = error;
+    }
+
+    /**
+     * @return The attribute's value as a string. Null if the value is null or couldn't be read.
+     */
+    public String getValue()
+    {
+      return (value == null) ? null : value.toString();
+    }
+
+    /**
+     * @return The attribute's value as a number (booleans as 1 or 0). NaN if the value isn't numeric or couldn't be read.
+     */
+    public double getNumber()
+    {
+      if (value instanceof Number)
+      {
+        return ((Number)value).doubleValue();
+      }
+      else if (value instanceof Boolean)
+      {
+        return ((Boolean)value) ? 1 : 0;
+      }
+      else
+      {
+        return Double.NaN;
+      }
+    }
+
+    /**
+     * @return Why the attribute couldn't be read or null if it was read.
+     */
+    public String getError()
+    {
+      return error;
+    }
+  }
+
+  /**
+   * Statistics of an attribute across many beans.
+   */
+  @EasyBeanOpenType(description = "Statistics of an attribute across many beans.")
+  public static class Aggregate
+  {
+    private final int matched;
+
+    private final double[] sortedValues;
+
+    private final double sum;
+
+    Aggregate(int matched, double[] sortedValues)
+    {
+      this.matched = matched;
+      this.sortedValues = sortedValues;
+
+      double sum = (sortedValues.length == 0) ? Double.NaN : 0;
+      for (double value : sortedValues)
+      {
+        sum += value;
+      }
+      this.sum = sum;
+    }
+
+    /**
+     * @return The number of beans matching the object name pattern.
+     */
+    public int getMatched()
+    {
+      return matched;
+    }
+
+    /**
+     * @return The number of matching beans with a numeric value for the attribute.
+     */
+    public int getCount()
+    {
+      return sortedValues.length;
+    }
+
+    /**
+     * @return The sum of the values, NaN if no matching bean has a numeric value for the attribute.
+     */
+    public double getSum()
+    {
+      return sum;
+    }
+
+    public double getMin()
+    {
+      return (sortedValues.length == 0) ? Double.NaN : sortedValues[0];
+    }
+
+    public double getMax()
+    {
+      return (sortedValues.length == 0) ? Double.NaN : sortedValues[sortedValues.length - 1];
+    }
+
+    public double getAvg()
+    {
+      return (sortedValues.length == 0) ? Double.NaN : sum / sortedValues.length;
+    }
+
+    public double getP50()
+    {
+      return percentile(sortedValues, 50);
+    }
+
+    public double getP90()
+    {
+      return percentile(sortedValues, 90);
+    }
+
+    public double getP99()
+    {
+      return percentile(sortedValues, 99);
+    }
+  }
+
+  /**
+   * The numeric values of the same attributes of many beans.
+   */
+  @EasyBeanOpenType(description = "The numeric values of the same attributes of many beans.")
+  public static class Numbers
+  {
+    private final String[] objectNames;
+
+    private final String[] attributes;
+
+    private final double[] values;
+
+    Numbers(String[] objectNames, String[] attributes, double[] values)
+    {
+      this.objectNames = objectNames;
+      this.attributes = attributes;
+      this.values = values;
+    }
+
+    public String[] getObjectNames()
+    {
+      return objectNames;
+    }
+
+    public String[] getAttributes()
+    {
+      return attributes;
+    }
+
+    /**
+     * @return The value of attribute j of bean i at index <code>(i * attributes.length) + j</code>.
+     */
+    public double[] getValues()
+    {
+      return values;
+    }
+  }
+}
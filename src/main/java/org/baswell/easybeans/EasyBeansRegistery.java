@@ -16,21 +16,34 @@
 package org.baswell.easybeans;
 
 import java.lang.management.ManagementFactory;
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.*;
 
 /**
  * Helper class for registering and unregistering Java beans and JMX MBeans. All beans are registered with
  * {@link java.lang.management.ManagementFactory#getPlatformMBeanServer()}.
+ * <p>
+ * Registered beans are tracked by identity (their equals and hashCode methods aren't used). A registry can be used by
+ * multiple threads at once.
  */
 public class EasyBeansRegistery
 {
   private final MBeanServer mBeanServer;
   
-  private Map<Object, EasyBeanWrapper> registeredBeans = new HashMap<Object, EasyBeanWrapper>();
+  private final ConcurrentMap<IdentityKey, EasyBeanWrapper> registeredBeans = new ConcurrentHashMap<IdentityKey, EasyBeanWrapper>();
+
+  private final AtomicLong reapedCount = new AtomicLong();
 
   public EasyBeansRegistery()
   {
@@ -73,6 +86,66 @@ public class EasyBeansRegistery
      * @throws UnexpectedEasyBeanException If something unexpected occurred.
      */
   public void register(ObjectName objectName, Object bean) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType, ObjectNameAlreadyRegistered, UnexpectedEasyBeanException
+  {
+    EasyBeanWrapper wrapper = wrap(objectName, bean);
+    wrapper.register(mBeanServer);
+    registeredBeans.put(new IdentityKey(bean), wrapper);
+  }
+
+  /**
+   * Registers the given bean but only holds it (in this registry and in the MBean bogbog) through a weak reference. Once
+   * the bean is garbage collected it is unregistered automatically by a background thread. Use this for short lived beans
+   * (per session objects for example) that may never be unregistered. Until it's unregistered, reading an attribute of a
+   * collected bean or invoking one of its operations throws {@link EasyBeanCollectedException}.
+   *
+   * @param bean The bean to register. Cannot be a {@link EasyBeanWrapper}.
+   * @throws InvalidEasyBeanNameException If the ObjectName used for this bean in invalid.
+   * @throws InvalidEasyBeanAnnotation If an EasyBean annotation is used incorrectly.
+   * @throws InvalidEasyBeanOpenType If the given object (or a descendant of this object) cannot be mapped to an OpenType.
+   * @throws ObjectNameAlreadyRegistered If the object name used for this bean is already registered.
+   * @throws UnexpectedEasyBeanException If something unexpected occurred.
+   * @see #getReapedCount()
+   */
+  public void registerWeakly(Object bean) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType, ObjectNameAlreadyRegistered, UnexpectedEasyBeanException
+  {
+    registerWeakly(null, bean);
+  }
+
+  /**
+   * Registers the given bean but only holds it (in this registry and in the MBean bogbog) through a weak reference.
+   *
+   * @param objectName The object name to register this bean with. If {@code null} the object name from {@link EasyBeanNameProvider}, {@link EasyBean#objectName()} or from the bean's class name will be used.
+   * @param bean The bean to register. Cannot be a {@link EasyBeanWrapper}.
+   * @throws InvalidEasyBeanNameException If the ObjectName used for this bean in invalid.
+   * @throws InvalidEasyBeanAnnotation If an EasyBean annotation is used incorrectly.
+   * @throws InvalidEasyBeanOpenType If the given object (or a descendant of this object) cannot be mapped to an OpenType.
+   * @throws ObjectNameAlreadyRegistered If the object name used for this bean is already registered.
+   * @throws UnexpectedEasyBeanException If something unexpected occurred.
+   * @see #registerWeakly(Object)
+   */
+  public void registerWeakly(ObjectName objectName, Object bean) throws InvalidEasyBeanNameException, InvalidEasyBeanAnnotation, InvalidEasyBeanOpenType, ObjectNameAlreadyRegistered, UnexpectedEasyBeanException
+  {
+    if (bean instanceof EasyBeanWrapper)
+    {
+      throw new IllegalArgumentException("A EasyBeanWrapper cannot be registered weakly, register the bean it wraps instead.");
+    }
+
+    EasyBeanWrapper wrapper = wrap(objectName, bean);
+    WeakRegistration registration = new WeakRegistration(bean, wrapper);
+    wrapper.holdWeakly(registration);
+    wrapper.register(mBeanServer);
+    registeredBeans.put(registration.key, wrapper);
+
+    /*
+     * If the bean was collected before it was put in registeredBeans the reaper couldn't remove it.
+     */
+    if (registration.get() == null)
+    {
+      registration.reap();
+    }
+  }
+
+  EasyBeanWrapper wrap(ObjectName objectName, Object bean)
   {
     EasyBeanWrapper wrapper;
 
@@ -98,8 +171,7 @@ public class EasyBeansRegistery
       wrapper.objectName = objectName;
     }
 
-    wrapper.register(mBeanServer);
-    registeredBeans.put(bean, wrapper);
+    return wrapper;
   }
 
   /**
@@ -137,6 +209,62 @@ public class EasyBeansRegistery
     }
   }
 
+  /**
+   * Registers all of the given beans. The wrappers are created and registered in batches by a pool of threads (one per
+   * processor). Beans of the same class share their loaded structure. A bean that can't be registered doesn't stop the
+   * others from being registered, it's reported in the returned result.
+   *
+   * @param beans The beans to register.
+   * @return The number of registered beans and the beans that failed.
+   * @see #register(Object)
+   */
+  public EasyBeansRegistrationResult registerAll(Collection beans)
+  {
+    return registerAll(beans, null);
+  }
+
+  /**
+   * Registers all of the given beans. The wrappers are created and registered in batches by a pool of threads (one per
+   * processor). Beans of the same class share their loaded structure. A bean that can't be registered doesn't stop the
+   * others from being registered, it's reported in the returned result.
+   *
+   * @param beans The beans to register.
+   * @param objectNamer Provides the object name of each bean. If {@code null} the default object name of each bean is used.
+   * @return The number of registered beans and the beans that failed.
+   * @see #register(ObjectName, Object)
+   */
+  public EasyBeansRegistrationResult registerAll(Collection beans, final EasyBeanObjectNamer objectNamer)
+  {
+    return forAll(beans, new BeanAction()
+    {
+      @Override
+      public void apply(Object bean) throws Exception
+      {
+        register((objectNamer == null) ? null : objectNamer.getObjectName(bean), bean);
+      }
+    });
+  }
+
+  /**
+   * Unregisters all of the given beans using a pool of threads (one per processor). A bean that can't be unregistered
+   * doesn't stop the others from being unregistered, it's reported in the returned result.
+   *
+   * @param beans The beans to unregister.
+   * @return The number of unregistered beans and the beans that failed.
+   * @see #unregister(Object)
+   */
+  public EasyBeansRegistrationResult unregisterAll(Collection beans)
+  {
+    return forAll(beans, new BeanAction()
+    {
+      @Override
+      public void apply(Object bean) throws Exception
+      {
+        unregister(bean);
+      }
+    });
+  }
+
   /**
    * Unregisters the given bean from the MBean bogbog.
    *
@@ -145,7 +273,7 @@ public class EasyBeansRegistery
    */
   public void unregister(Object bean) throws UnexpectedEasyBeanException
   {
-    EasyBeanWrapper wrapper = registeredBeans.remove(bean);
+    EasyBeanWrapper wrapper = registeredBeans.remove(new IdentityKey(bean));
     if (wrapper != null)
     {
       wrapper.unregister(mBeanServer);
@@ -153,21 +281,140 @@ public class EasyBeansRegistery
   }
 
   /**
-   * Unregisters all previously registered beans.
+   * Unregisters all previously registered beans. Beans registered by other threads while this runs may or may not be
+   * unregistered.
    */
   public void unregisterAll()
   {
-    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
-    for (EasyBeanWrapper wrapper : registeredBeans.values())
+    for (Map.Entry<IdentityKey, EasyBeanWrapper> entry : registeredBeans.entrySet())
     {
-      try
+      if (registeredBeans.remove(entry.getKey(), entry.getValue()))
       {
-        wrapper.unregister(mBeanServer);
+        try
+        {
+          entry.getValue().unregister(mBeanServer);
+        }
+        catch (Exception exc)
+        {}
       }
-      catch (Exception exc)
-      {}
     }
-    
-    registeredBeans.clear();
+  }
+
+  /*
+   * The wrapper the given bean was registered with or null if it isn't registered through this registry.
+   */
+  EasyBeanWrapper getWrapper(Object bean)
+  {
+    return registeredBeans.get(new IdentityKey(bean));
+  }
+
+  /*
+   * The wrappers of the beans currently registered through this registry. A live view, wrappers registered or
+   * unregistered while iterating may or may not be seen.
+   */
+  Collection<EasyBeanWrapper> getWrappers()
+  {
+    return registeredBeans.values();
+  }
+
+  /**
+   * @return The number of beans currently registered through this registry.
+   */
+  public int getRegisteredCount()
+  {
+    return registeredBeans.size();
+  }
+
+  /**
+   * @return The number of weakly registered beans that were unregistered because they were garbage collected.
+   * @see #registerWeakly(Object)
+   */
+  public long getReapedCount()
+  {
+    return reapedCount.get();
+  }
+
+  /*
+   * The weak reference a weakly registered wrapper holds its bean through. Also the referent of the bean's key in
+   * registeredBeans. Queued with BeanReaper once the bean is collected.
+   */
+  class WeakRegistration extends WeakReference<Object>
+  {
+    final EasyBeanWrapper wrapper;
+
+    final IdentityKey key;
+
+    WeakRegistration(Object bean, EasyBeanWrapper wrapper)
+    {
+      super(bean, BeanReaper.getQueue());
+      this.wrapper = wrapper;
+      key = new IdentityKey(this);
+    }
+
+    void reap()
+    {
+      if (registeredBeans.remove(key, wrapper))
+      {
+        reapedCount.incrementAndGet();
+        try
+        {
+          wrapper.unregister(mBeanServer);
+        }
+        catch (Exception exc)
+        {}
+      }
+    }
+  }
+
+  EasyBeansRegistrationResult forAll(Collection beans, final BeanAction action)
+  {
+    final Object[] beanArray = beans.toArray();
+    final AtomicInteger succeeded = new AtomicInteger();
+    final Queue<EasyBeansRegistrationResult.Failure> failures = new ConcurrentLinkedQueue<EasyBeansRegistrationResult.Failure>();
+
+    ParallelBatches.run(beanArray.length, "EasyBeans-Registration", new ParallelBatches.Batch()
+    {
+      @Override
+      public void run(int start, int end)
+      {
+        for (int i = start; i < end; i++)
+        {
+          try
+          {
+            action.apply(beanArray[i]);
+            succeeded.incrementAndGet();
+          }
+          catch (Exception exc)
+          {
+            failures.add(new EasyBeansRegistrationResult.Failure(beanArray[i], exc));
+          }
+        }
+      }
+    });
+
+    return new EasyBeansRegistrationResult(succeeded.get(), new ArrayList<EasyBeansRegistrationResult.Failure>(failures));
+  }
+
+  interface BeanAction
+  {
+    void apply(Object bean) throws Exception;
+  }
+
+  /**
+   * @return The number of wrappers created for a class whose structure (attributes, operations and their OpenType mappings)
+   * had already been loaded and was shared. This count is for all registries in this process.
+   */
+  public long getStructureCacheHits()
+  {
+    return EasyBeanStructureCache.getHits();
+  }
+
+  /**
+   * @return The number of wrappers created for a class whose structure had to be loaded. This count is for all registries
+   * in this process.
+   */
+  public long getStructureCacheMisses()
+  {
+    return EasyBeanStructureCache.getMisses();
   }
 }
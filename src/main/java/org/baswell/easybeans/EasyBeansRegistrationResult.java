@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of registering or unregistering many beans at once. Failures of individual beans don't stop the others
+ * from being processed, they are collected here instead.
+ *
+ * @see EasyBeansRegistery#registerAll(java.util.Collection, EasyBeanObjectNamer)
+ * @see EasyBeansRegistery#unregisterAll(java.util.Collection)
+ */
+public class EasyBeansRegistrationResult
+{
+  /**
+   * The number of beans successfully processed.
+   */
+  public final int succeeded;
+
+  /**
+   * The beans that failed and why.
+   */
+  public final List<Failure> failures;
+
+  EasyBeansRegistrationResult(int succeeded, List<Failure> failures)
+  {
+    this.succeeded = succeeded;
+    this.failures = Collections.unmodifiableList(failures);
+  }
+
+  /**
+   * @return {@code true} if no bean failed.
+   */
+  public boolean isSuccessful()
+  {
+    return failures.isEmpty();
+  }
+
+  /**
+   * A bean that couldn't be registered or unregistered.
+   */
+  public static class Failure
+  {
+    /**
+     * The bean that failed.
+     */
+    public final Object bean;
+
+    /**
+     * Why it failed.
+     */
+    public final Exception exception;
+
+    Failure(Object bean, Exception exception)
+    {
+      this.bean = bean;
+      this.exception = exception;
+    }
+  }
+}
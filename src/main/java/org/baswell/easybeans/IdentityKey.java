@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.ref.Reference;
+
+/*
+ * Map key comparing the wrapped object by identity (==) and hashing with System.identityHashCode, so user equals/hashCode
+ * implementations are never called. Used to get identity semantics out of a ConcurrentHashMap.
+ *
+ * A key can also hold its object through a Reference. Once the object is collected the key is only equal to itself.
+ */
+class IdentityKey
+{
+  private final Object object;
+
+  private final Reference reference;
+
+  private final int hash;
+
+  IdentityKey(Object object)
+  {
+    this.object = object;
+    reference = null;
+    hash = System.identityHashCode(object);
+  }
+
+  IdentityKey(Reference reference)
+  {
+    object = null;
+    this.reference = reference;
+    hash = System.identityHashCode(reference.get());
+  }
+
+  Object get()
+  {
+    return (reference == null) ? object : reference.get();
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj)
+  {
+    if (obj == this)
+    {
+      return true;
+    }
+    else if (obj instanceof IdentityKey)
+    {
+      Object object = get();
+      return (object != null) && (((IdentityKey) obj).get() == object);
+    }
+    else
+    {
+      return false;
+    }
+  }
+}
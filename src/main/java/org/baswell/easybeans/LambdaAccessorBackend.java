@@ -0,0 +1,323 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/*
+ * Binds getters, setters and operations to Getter, Setter and Invoker implementations spun by LambdaMetafactory. The spun
+ * classes call the method directly so there are no access checks or argument arrays on each call and the JIT can inline through
+ * them. This class references java.lang.invoke so it is only ever loaded by AccessorBackend#loadBackend if the runtime
+ * supports it. Only MethodHandle methods without a polymorphic signature are used since this is compiled at 1.6.
+ *
+ * The metafactory can't spread an argument array so operations are bound to one of the fixed arity Call interfaces
+ * below and adapted to Invoker. Operations with more than MAX_CALL_PARAMETERS parameters, and members the metafactory
+ * can't bind (non-public classes, classes not visible from this class loader) fall back to reflection.
+ */
+class LambdaAccessorBackend extends AccessorBackend
+{
+  static final int MAX_CALL_PARAMETERS = 3;
+
+  static final Class[] CALL_INTERFACES = new Class[] {Call0.class, Call1.class, Call2.class, Call3.class};
+
+  static final Class[] VOID_CALL_INTERFACES = new Class[] {VoidCall0.class, VoidCall1.class, VoidCall2.class, VoidCall3.class};
+
+  interface Call0 { Object call(Object pojo) throws Exception; }
+
+  interface Call1 { Object call(Object pojo, Object p0) throws Exception; }
+
+  interface Call2 { Object call(Object pojo, Object p0, Object p1) throws Exception; }
+
+  interface Call3 { Object call(Object pojo, Object p0, Object p1, Object p2) throws Exception; }
+
+  interface VoidCall0 { void call(Object pojo) throws Exception; }
+
+  interface VoidCall1 { void call(Object pojo, Object p0) throws Exception; }
+
+  interface VoidCall2 { void call(Object pojo, Object p0, Object p1) throws Exception; }
+
+  interface VoidCall3 { void call(Object pojo, Object p0, Object p1, Object p2) throws Exception; }
+
+  private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  private final ReflectionAccessorBackend reflectionBackend = new ReflectionAccessorBackend();
+
+  @Override
+  Getter getter(Method getter)
+  {
+    if (canBind(getter, getter.getReturnType()))
+    {
+      try
+      {
+        MethodHandle implementation = lookup.unreflect(getter);
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Getter.class),
+            MethodType.methodType(Object.class, Object.class), implementation,
+            MethodType.methodType(boxed(getter.getReturnType()), getter.getDeclaringClass()));
+        return (Getter)callSite.getTarget().invokeWithArguments();
+      }
+      catch (Throwable e)
+      {}
+    }
+
+    return reflectionBackend.getter(getter);
+  }
+
+  @Override
+  Setter setter(Method setter)
+  {
+    if (canBind(setter, setter.getParameterTypes()[0]))
+    {
+      try
+      {
+        MethodHandle implementation = lookup.unreflect(setter);
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "set", MethodType.methodType(Setter.class),
+            MethodType.methodType(void.class, Object.class, Object.class), implementation,
+            MethodType.methodType(void.class, setter.getDeclaringClass(), boxed(setter.getParameterTypes()[0])));
+        return (Setter)callSite.getTarget().invokeWithArguments();
+      }
+      catch (Throwable e)
+      {}
+    }
+
+    return reflectionBackend.setter(setter);
+  }
+
+  @Override
+  Invoker invoker(Method method)
+  {
+    Class[] parameterTypes = method.getParameterTypes();
+    if ((parameterTypes.length <= MAX_CALL_PARAMETERS) && canBind(method, method.getReturnType()) && canBind(parameterTypes))
+    {
+      try
+      {
+        boolean isVoid = method.getReturnType() == void.class;
+        Class callInterface = isVoid ? VOID_CALL_INTERFACES[parameterTypes.length] : CALL_INTERFACES[parameterTypes.length];
+
+        Class[] samParameterTypes = new Class[parameterTypes.length + 1];
+        Class[] instantiatedParameterTypes = new Class[parameterTypes.length + 1];
+        samParameterTypes[0] = Object.class;
+        instantiatedParameterTypes[0] = method.getDeclaringClass();
+        for (int i = 0; i < parameterTypes.length; i++)
+        {
+          samParameterTypes[i + 1] = Object.class;
+          instantiatedParameterTypes[i + 1] = boxed(parameterTypes[i]);
+        }
+
+        MethodHandle implementation = lookup.unreflect(method);
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "call", MethodType.methodType(callInterface),
+            MethodType.methodType(isVoid ? void.class : Object.class, samParameterTypes), implementation,
+            MethodType.methodType(isVoid ? void.class : boxed(method.getReturnType()), instantiatedParameterTypes));
+
+        return toInvoker(callSite.getTarget().invokeWithArguments());
+      }
+      catch (Throwable e)
+      {}
+    }
+
+    return reflectionBackend.invoker(method);
+  }
+
+  static Invoker toInvoker(Object call)
+  {
+    if (call instanceof Call0)
+    {
+      final Call0 call0 = (Call0)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          return call0.call(pojo);
+        }
+      };
+    }
+    else if (call instanceof Call1)
+    {
+      final Call1 call1 = (Call1)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          return call1.call(pojo, parameters[0]);
+        }
+      };
+    }
+    else if (call instanceof Call2)
+    {
+      final Call2 call2 = (Call2)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          return call2.call(pojo, parameters[0], parameters[1]);
+        }
+      };
+    }
+    else if (call instanceof Call3)
+    {
+      final Call3 call3 = (Call3)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          return call3.call(pojo, parameters[0], parameters[1], parameters[2]);
+        }
+      };
+    }
+    else if (call instanceof VoidCall0)
+    {
+      final VoidCall0 call0 = (VoidCall0)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          call0.call(pojo);
+          return null;
+        }
+      };
+    }
+    else if (call instanceof VoidCall1)
+    {
+      final VoidCall1 call1 = (VoidCall1)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          call1.call(pojo, parameters[0]);
+          return null;
+        }
+      };
+    }
+    else if (call instanceof VoidCall2)
+    {
+      final VoidCall2 call2 = (VoidCall2)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          call2.call(pojo, parameters[0], parameters[1]);
+          return null;
+        }
+      };
+    }
+    else
+    {
+      final VoidCall3 call3 = (VoidCall3)call;
+      return new Invoker()
+      {
+        public Object invoke(Object pojo, Object[] parameters) throws Exception
+        {
+          call3.call(pojo, parameters[0], parameters[1], parameters[2]);
+          return null;
+        }
+      };
+    }
+  }
+
+  boolean canBind(Class[] classes)
+  {
+    for (Class clazz : classes)
+    {
+      if (!isVisible(clazz))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * The spun class resolves the bean class (and the value class) through the class loader of this class. If EasyBeans
+   * was loaded by a parent class loader (a shared library in a container for instance) the bean class may not be
+   * visible which would only fail on the first call, so check up front.
+   */
+  boolean canBind(Method method, Class valueClass)
+  {
+    Class declaringClass = method.getDeclaringClass();
+    return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers()) && isVisible(declaringClass) && isVisible(valueClass);
+  }
+
+  boolean isVisible(Class clazz)
+  {
+    while (clazz.isArray())
+    {
+      clazz = clazz.getComponentType();
+    }
+
+    if (clazz.isPrimitive())
+    {
+      return true;
+    }
+
+    try
+    {
+      return Class.forName(clazz.getName(), false, LambdaAccessorBackend.class.getClassLoader()) == clazz;
+    }
+    catch (ClassNotFoundException e)
+    {
+      return false;
+    }
+  }
+
+  static Class boxed(Class clazz)
+  {
+    if (!clazz.isPrimitive())
+    {
+      return clazz;
+    }
+    else if (clazz == boolean.class)
+    {
+      return Boolean.class;
+    }
+    else if (clazz == byte.class)
+    {
+      return Byte.class;
+    }
+    else if (clazz == char.class)
+    {
+      return Character.class;
+    }
+    else if (clazz == short.class)
+    {
+      return Short.class;
+    }
+    else if (clazz == int.class)
+    {
+      return Integer.class;
+    }
+    else if (clazz == long.class)
+    {
+      return Long.class;
+    }
+    else if (clazz == float.class)
+    {
+      return Float.class;
+    }
+    else if (clazz == double.class)
+    {
+      return Double.class;
+    }
+    else
+    {
+      return Void.class;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Notification;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Notifications buffered by one thread (see EasyBeansExtendedNotifier#notifyBuffered). Only the type, message and time stamp are
+ * kept until the buffer is drained; the Notification objects and their sequence numbers (one getAndAdd for the whole batch)
+ * are created then. The owning thread and the SharedScheduler (draining idle buffers) are the only two users of the lock
+ * so it's nearly always uncontended.
+ */
+class NotificationBuffer
+{
+  final Thread owner;
+
+  private final String[] types;
+
+  private final String[] messages;
+
+  private final long[] timeStamps;
+
+  private final long flushNanos;
+
+  private int size;
+
+  private long firstBuffered;
+
+  NotificationBuffer(Thread owner, EasyBeanNotificationBuffer bufferMeta)
+  {
+    this.owner = owner;
+    int capacity = (bufferMeta == null) ? 256 : Math.max(1, bufferMeta.size());
+    flushNanos = TimeUnit.MILLISECONDS.toNanos((bufferMeta == null) ? 1000 : Math.max(0, bufferMeta.flushMillis()));
+    types = new String[capacity];
+    messages = new String[capacity];
+    timeStamps = new long[capacity];
+  }
+
+  /*
+   * Returns the drained notifications if this add filled the buffer or the oldest buffered notification is too old,
+   * otherwise null.
+   */
+  synchronized Notification[] add(EasyBeanNotificationWrapper wrapper, String type, String message)
+  {
+    if (size == 0)
+    {
+      firstBuffered = System.nanoTime();
+    }
+
+    types[size] = type;
+    messages[size] = message;
+    timeStamps[size] = System.currentTimeMillis();
+    size++;
+
+    return ((size == types.length) || isStale(System.nanoTime())) ? drain(wrapper) : null;
+  }
+
+  synchronized Notification[] drainIfStale(EasyBeanNotificationWrapper wrapper, long now)
+  {
+    return ((size > 0) && isStale(now)) ? drain(wrapper) : null;
+  }
+
+  synchronized Notification[] drain(EasyBeanNotificationWrapper wrapper)
+  {
+    if (size == 0)
+    {
+      return null;
+    }
+
+    String source = wrapper.beanClass.getName();
+    long sequenceNumber = wrapper.nextSequenceNumbers(size);
+    Notification[] notifications = new Notification[size];
+    for (int i = 0; i < size; i++)
+    {
+      notifications[i] = new Notification(types[i], source, sequenceNumber++, timeStamps[i], messages[i]);
+      types[i] = null;
+      messages[i] = null;
+    }
+    size = 0;
+    return notifications;
+  }
+
+  private boolean isStale(long now)
+  {
+    return (now - firstBuffered) >= flushNanos;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Notification;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bounded ring buffer of notifications (or Notification[] batches) drained by dispatcher threads. The slots are allocated once up front, so publishing
+ * only copies a reference into the buffer. The dispatcher threads are daemons started on the first published notification
+ * and stopped when the wrapper is unregistered (they are restarted if notifications are published again). Notifications
+ * still in the buffer when the dispatcher is stopped are discarded and counted as dropped, as are the notifications of
+ * publishers blocked waiting for room (BLOCK policy) when it's stopped. Each dispatcher thread belongs to the start that
+ * created it and exits once that start is stopped, even if a listener swallowed the interrupt stop sends it.
+ */
+class NotificationDispatcher
+{
+  final int capacity;
+
+  final int threadCount;
+
+  final NotificationOverflowPolicy overflowPolicy;
+
+  final AtomicLong published = new AtomicLong();
+
+  final AtomicLong dropped = new AtomicLong();
+
+  private final EasyBeanNotificationWrapper wrapper;
+
+  private final Object[] ring;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  private final Condition notFull = lock.newCondition();
+
+  private int head;
+
+  private int size;
+
+  /*
+   * Notifications in the buffer (a batch takes one slot but counts all of its notifications).
+   */
+  private int depth;
+
+  private Thread[] threads;
+
+  private boolean stopped;
+
+  NotificationDispatcher(EasyBeanNotificationWrapper wrapper, EasyBeanAsyncNotifications asyncMeta)
+  {
+    this.wrapper = wrapper;
+    capacity = Math.max(1, asyncMeta.bufferSize());
+    threadCount = Math.max(1, asyncMeta.dispatcherThreads());
+    overflowPolicy = asyncMeta.overflowPolicy();
+    ring = new Object[capacity];
+  }
+
+  void publish(Object event)
+  {
+    int count = count(event);
+    lock.lock();
+    try
+    {
+      if (threads == null)
+      {
+        start();
+      }
+
+      if (size == capacity)
+      {
+        switch (overflowPolicy)
+        {
+          case DROP_NEWEST:
+            dropped.addAndGet(count);
+            return;
+
+          case DROP_OLDEST:
+            int oldestCount = count(ring[head]);
+            dropped.addAndGet(oldestCount);
+            depth -= oldestCount;
+            ring[head] = null;
+            head = (head + 1) % capacity;
+            size--;
+            break;
+
+          case BLOCK:
+            try
+            {
+              while ((size == capacity) && !stopped)
+              {
+                notFull.await();
+              }
+            }
+            catch (InterruptedException e)
+            {
+              Thread.currentThread().interrupt();
+              dropped.addAndGet(count);
+              return;
+            }
+
+            if (stopped)
+            {
+              dropped.addAndGet(count);
+              return;
+            }
+            break;
+        }
+      }
+
+      ring[(head + size) % capacity] = event;
+      size++;
+      depth += count;
+      published.addAndGet(count);
+      notEmpty.signal();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  int getDepth()
+  {
+    lock.lock();
+    try
+    {
+      return depth;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  void stop()
+  {
+    lock.lock();
+    try
+    {
+      if (threads != null)
+      {
+        for (Thread thread : threads)
+        {
+          thread.interrupt();
+        }
+        threads = null;
+      }
+
+      stopped = true;
+      dropped.addAndGet(depth);
+      for (int i = 0; i < size; i++)
+      {
+        ring[(head + i) % capacity] = null;
+      }
+      head = size = depth = 0;
+      notFull.signalAll();
+      notEmpty.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /*
+   * The next event for a thread of the given generation (the threads of one start), null once that generation is stopped.
+   */
+  private Object take(Thread[] generation) throws InterruptedException
+  {
+    lock.lockInterruptibly();
+    try
+    {
+      while ((size == 0) && (threads == generation))
+      {
+        notEmpty.await();
+      }
+
+      if (threads != generation)
+      {
+        return null;
+      }
+
+      Object event = ring[head];
+      ring[head] = null;
+      head = (head + 1) % capacity;
+      size--;
+      depth -= count(event);
+      notFull.signal();
+      return event;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private static int count(Object event)
+  {
+    return (event instanceof Notification[]) ? ((Notification[]) event).length : 1;
+  }
+
+  private void start()
+  {
+    stopped = false;
+    final Thread[] generation = threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++)
+    {
+      Thread thread = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          while (!Thread.currentThread().isInterrupted())
+          {
+            Object event;
+            try
+            {
+              event = take(generation);
+            }
+            catch (InterruptedException e)
+            {
+              return;
+            }
+
+            if (event == null)
+            {
+              return;
+            }
+
+            try
+            {
+              if (event instanceof Notification[])
+              {
+                wrapper.dispatch((Notification[]) event);
+              }
+              else
+              {
+                wrapper.dispatch((Notification) event);
+              }
+            }
+            catch (RuntimeException e)
+            {}
+          }
+        }
+      }, "EasyBeans-Notifications-" + wrapper.objectName + "-" + i);
+      thread.setDaemon(true);
+      generation[i] = thread;
+      thread.start();
+    }
+  }
+}
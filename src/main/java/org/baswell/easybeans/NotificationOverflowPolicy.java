@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+/**
+ * What an asynchronous notification dispatcher does with a new notification when its buffer is full.
+ *
+ * @see EasyBeanAsyncNotifications
+ */
+public enum NotificationOverflowPolicy
+{
+  /**
+   * The oldest notification in the buffer is dropped to make room for the new notification.
+   */
+  DROP_OLDEST,
+
+  /**
+   * The new notification is dropped.
+   */
+  DROP_NEWEST,
+
+  /**
+   * The notifying thread blocks until there is room in the buffer. If the wrapper is unregistered while it's blocked the
+   * notification is dropped and the thread returns. Notifications still buffered when the wrapper is unregistered are dropped.
+   */
+  BLOCK;
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import javax.management.Notification;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Coalescing window and token bucket for one notification type (see EasyBeanNotificationLimit). Suppressed notifications
+ * are counted and rolled up into a summary notification. The summary is sent by the SharedScheduler once the window
+ * has ended or a permit is available again, so a burst that stops still gets its summary delivered.
+ */
+class NotificationThrottle
+{
+  static final String[] SUMMARY_ITEM_NAMES = new String[] {"suppressedCount", "firstTimeStamp", "lastTimeStamp", "sampleMessages"};
+
+  static final CompositeType SUMMARY_TYPE;
+
+  static
+  {
+    try
+    {
+      SUMMARY_TYPE = new CompositeType(Notification.class.getName() + "Summary", "Summary of suppressed notifications.", SUMMARY_ITEM_NAMES, SUMMARY_ITEM_NAMES,
+          new OpenType[] {SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, ArrayType.getArrayType(SimpleType.STRING)});
+    }
+    catch (OpenDataException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  final String type;
+
+  final AtomicLong suppressed = new AtomicLong();
+
+  private final EasyBeanNotificationWrapper wrapper;
+
+  private final long coalesceNanos;
+
+  private final double permitsPerNano;
+
+  private final double burst;
+
+  private final int sampleSize;
+
+  private double permits;
+
+  private long lastRefill;
+
+  private boolean windowOpen;
+
+  private long windowEnd;
+
+  private boolean summaryScheduled;
+
+  private long suppressedCount;
+
+  private long firstTimeStamp;
+
+  private long lastTimeStamp;
+
+  private List<String> sampleMessages;
+
+  NotificationThrottle(EasyBeanNotificationWrapper wrapper, String type, EasyBeanNotificationLimit limitMeta)
+  {
+    this.wrapper = wrapper;
+    this.type = type;
+    coalesceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, limitMeta.coalesceMillis()));
+    permitsPerNano = Math.max(0, limitMeta.permitsPerSecond()) / TimeUnit.SECONDS.toNanos(1);
+    burst = Math.max(1, limitMeta.burst());
+    sampleSize = Math.max(0, limitMeta.sampleMessages());
+    permits = burst;
+    lastRefill = System.nanoTime();
+    sampleMessages = new ArrayList<String>(sampleSize);
+  }
+
+  /*
+   * Returns true if the notification should be sent, false if it was suppressed.
+   */
+  synchronized boolean admit(Notification notification)
+  {
+    long now = System.nanoTime();
+    if (windowOpen && (now - windowEnd) < 0)
+    {
+      suppress(notification, windowEnd - now);
+      return false;
+    }
+    else if ((permitsPerNano > 0) && !tryAcquire(now))
+    {
+      suppress(notification, nanosUntilPermit());
+      return false;
+    }
+    else
+    {
+      openWindow(now);
+      return true;
+    }
+  }
+
+  void sendSummary()
+  {
+    Notification summary;
+    synchronized (this)
+    {
+      summaryScheduled = false;
+      if (suppressedCount == 0)
+      {
+        return;
+      }
+
+      long now = System.nanoTime();
+      if (windowOpen && (now - windowEnd) < 0)
+      {
+        scheduleSummary(windowEnd - now);
+        return;
+      }
+      else if ((permitsPerNano > 0) && !tryAcquire(now))
+      {
+        scheduleSummary(nanosUntilPermit());
+        return;
+      }
+
+      openWindow(now);
+
+      String message = "Suppressed " + suppressedCount + " notifications of type " + type + ".";
+      summary = new Notification(type, wrapper.beanClass.getName(), wrapper.nextSequenceNumber(), message);
+      try
+      {
+        summary.setUserData(new CompositeDataSupport(SUMMARY_TYPE, SUMMARY_ITEM_NAMES, new Object[] {suppressedCount, firstTimeStamp, lastTimeStamp, sampleMessages.toArray(new String[sampleMessages.size()])}));
+      }
+      catch (OpenDataException e)
+      {
+        throw new RuntimeException(e);
+      }
+
+      suppressedCount = 0;
+      sampleMessages.clear();
+    }
+
+    wrapper.deliver(summary);
+  }
+
+  private void suppress(Notification notification, long summaryDelayNanos)
+  {
+    suppressed.incrementAndGet();
+    if (suppressedCount++ == 0)
+    {
+      firstTimeStamp = notification.getTimeStamp();
+    }
+    lastTimeStamp = notification.getTimeStamp();
+
+    if (sampleMessages.size() < sampleSize)
+    {
+      sampleMessages.add(notification.getMessage());
+    }
+
+    if (!summaryScheduled)
+    {
+      scheduleSummary(summaryDelayNanos);
+    }
+  }
+
+  private void openWindow(long now)
+  {
+    if (coalesceNanos > 0)
+    {
+      windowOpen = true;
+      windowEnd = now + coalesceNanos;
+    }
+  }
+
+  private boolean tryAcquire(long now)
+  {
+    permits = Math.min(burst, permits + ((now - lastRefill) * permitsPerNano));
+    lastRefill = now;
+    if (permits >= 1)
+    {
+      permits -= 1;
+      return true;
+    }
+    else
+    {
+      return false;
+    }
+  }
+
+  private long nanosUntilPermit()
+  {
+    return (long)Math.ceil((1 - permits) / permitsPerNano);
+  }
+
+  private void scheduleSummary(long delayNanos)
+  {
+    summaryScheduled = true;
+    SharedScheduler.get().schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        sendSummary();
+      }
+    }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+  }
+}
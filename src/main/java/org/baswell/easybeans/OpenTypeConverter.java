@@ -17,10 +17,11 @@ package org.baswell.easybeans;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import javax.management.openmbean.ArrayType;
 import javax.management.openmbean.CompositeData;
@@ -34,185 +35,599 @@ import javax.management.openmbean.TabularDataSupport;
 import javax.management.openmbean.TabularType;
 
 /*
- * Converts Java objects to runtime OpenTypes
+ * Converts Java objects to runtime OpenTypes. Each OpenTypeMapping is compiled once into a tree of converters (see
+ * OpenTypeMapping#getConverter()) so what kind of OpenType is being converted, the composite attribute names and the
+ * accessors for them are all decided up front and not on every conversion. Converters compiled under ConversionLimits
+ * know how deep in the value they are, so the limits are also checked without any bookkeeping on each conversion.
  */
 @SuppressWarnings("unchecked")
-class OpenTypeConverter
+abstract class OpenTypeConverter
 {
   static Object convertToOpenType(Object obj, OpenTypeMapping typeMapping) throws OpenDataException
   {
-    if (typeMapping.isSimpleType())
+    return typeMapping.getConverter().convert(obj);
+  }
+
+  /*
+   * @return The OpenType value of the given object. Null objects are converted to null.
+   */
+  abstract Object convert(Object obj) throws OpenDataException;
+
+  /*
+   * Converters of arrays, collections, maps and composites record anything left out of the given object (or nested in it)
+   * in truncation (which can be null). Nothing else can be truncated.
+   */
+  Object convert(Object obj, Truncation truncation) throws OpenDataException
+  {
+    return convert(obj);
+  }
+
+  static OpenTypeConverter compile(OpenTypeMapping typeMapping)
+  {
+    return compile(typeMapping, ConversionLimits.global, 0);
+  }
+
+  /*
+   * Converters compiled without limits share the converters of nested mappings. Converters compiled with limits get their
+   * own nested converters, compiled one level deeper.
+   */
+  static OpenTypeConverter compile(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
+  {
+    if (typeMapping.hasPresetConverter())
     {
-      if (typeMapping.getOpenType() == SimpleType.STRING)
-      {
-        return (obj == null) ? null : obj.toString();
-      }
-      else
-      {
-        return obj;
-      }
+      return typeMapping.getConverter();
+    }
+    else if (typeMapping.isSimpleType())
+    {
+      return (typeMapping.getOpenType() == SimpleType.STRING) ? new StringConverter() : new SimpleConverter();
+    }
+    else if ((limits != null) && (depth >= limits.maxDepth))
+    {
+      return new CutConverter();
+    }
+    else if (typeMapping.isArrayType() && typeMapping.getArrayType().isPrimitiveArray())
+    {
+      return new PrimitiveArrayConverter(typeMapping, limits, depth);
     }
     else if (typeMapping.isArrayType())
     {
-      return convertToArray(obj, typeMapping);
+      return new ArrayConverter(typeMapping, limits, depth);
     }
     else if (typeMapping.isTabularType())
     {
-      return convertToTable((Map) obj, typeMapping);
+      return new TableConverter(typeMapping, limits, depth);
     }
     else
     {
-      return convertToComposite(obj, typeMapping);
+      return new CompositeConverter(typeMapping, limits, depth);
+    }
+  }
+
+  static OpenTypeConverter compileNested(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
+  {
+    return (limits == null) ? typeMapping.getConverter() : compile(typeMapping, limits, depth + 1);
+  }
+
+  /*
+   * The class of values for the given OpenType.
+   */
+  static Class getOpenTypeClass(OpenType openType)
+  {
+    try
+    {
+      return Class.forName(openType.getClassName());
+    }
+    catch (ClassNotFoundException e)
+    {
+      throw new UnexpectedEasyBeanException(e);
+    }
+  }
+
+  static class SimpleConverter extends OpenTypeConverter
+  {
+    @Override
+    Object convert(Object obj)
+    {
+      return obj;
+    }
+  }
+
+  static class StringConverter extends OpenTypeConverter
+  {
+    @Override
+    Object convert(Object obj)
+    {
+      return (obj == null) ? null : obj.toString();
     }
   }
 
-  static Object convertToArray(Object obj, OpenTypeMapping typeMapping) throws OpenDataException
+  /*
+   * For values nested below the maximum depth of their limits.
+   */
+  static class CutConverter extends OpenTypeConverter
   {
-    OpenTypeMapping elementTypeMapping = typeMapping.getElementTypeMapping();
+    @Override
+    Object convert(Object obj)
+    {
+      return null;
+    }
 
-    if (obj.getClass().isArray())
+    @Override
+    Object convert(Object obj, Truncation truncation)
     {
-      if (elementTypeMapping.isSimpleType())
+      if ((obj != null) && (truncation != null))
       {
-        return obj;
+        truncation.cut();
       }
-      else
+      return null;
+    }
+  }
+
+  /*
+   * Counters are only summed here, when read.
+   */
+  static class CounterConverter extends OpenTypeConverter
+  {
+    @Override
+    Object convert(Object obj)
+    {
+      return (obj == null) ? null : ((EasyBeanCounter)obj).read();
+    }
+  }
+
+  static class GaugeConverter extends OpenTypeConverter
+  {
+    @Override
+    Object convert(Object obj)
+    {
+      return (obj == null) ? null : ((EasyBeanGauge)obj).get();
+    }
+  }
+
+  /*
+   * Timers are snapshot here, when read, and reported in their own unit.
+   */
+  static class TimerConverter extends OpenTypeConverter
+  {
+    @Override
+    Object convert(Object obj) throws OpenDataException
+    {
+      if (obj == null)
       {
-        ArrayType arrayType = typeMapping.getArrayType();
-        int numDimensions = arrayType.getDimension();
+        return null;
+      }
 
-        if (numDimensions == 1)
-        {
-          int length = Array.getLength(obj);
-          CompositeData[] compositeData = new CompositeData[length];
-          for (int i = 0; i < length; i++)
-          {
-            compositeData[i] = convertToComposite(Array.get(obj, i), elementTypeMapping);
-          }
+      EasyBeanTimer timer = (EasyBeanTimer)obj;
+      EasyBeanTimer.Snapshot snapshot = timer.read();
+      double nanosPerUnit = timer.getUnit().toNanos(1);
+      Object[] values = new Object[] {snapshot.getCount(), snapshot.getMin() / nanosPerUnit, snapshot.getMax() / nanosPerUnit,
+          snapshot.getMean() / nanosPerUnit, snapshot.getPercentile(50) / nanosPerUnit, snapshot.getPercentile(90) / nanosPerUnit,
+          snapshot.getPercentile(99) / nanosPerUnit, snapshot.getPercentile(99.9) / nanosPerUnit};
+      return new CompositeDataSupport(OpenTypeMapper.timerMapping.getCompositeType(), OpenTypeMapper.TIMER_ITEM_NAMES, values);
+    }
+  }
+
+  /*
+   * Converts Java arrays and Iterables. A Java array can have multiple dimensions of the element mapping (a List is
+   * always one) so the converter walks down each dimension of the array until it gets to the elements. Under limits each
+   * dimension is truncated on its own.
+   */
+  static class ArrayConverter extends OpenTypeConverter
+  {
+    final ConversionLimits limits;
+
+    final int depth;
+
+    final OpenTypeConverter elementConverter;
+
+    final boolean simpleElements;
+
+    final boolean stringElements;
+
+    /*
+     * The class of the created array's components for each dimension (index 0 is the elements).
+     */
+    final Class[] dimensionComponentClasses;
+
+    ArrayConverter(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
+    {
+      this.limits = limits;
+      this.depth = depth;
+      OpenTypeMapping elementTypeMapping = typeMapping.getElementTypeMapping();
+      elementConverter = compileNested(elementTypeMapping, limits, depth);
+      simpleElements = elementTypeMapping.isSimpleType();
+      stringElements = simpleElements && (elementTypeMapping.getOpenType() == SimpleType.STRING);
+
+      OpenType elementType = elementTypeMapping.getOpenType();
+      int elementDimensions = (elementType instanceof ArrayType) ? ((ArrayType)elementType).getDimension() : 0;
+      int dimensions = typeMapping.getArrayType().getDimension() - elementDimensions;
+
+      dimensionComponentClasses = new Class[dimensions];
+      dimensionComponentClasses[0] = getOpenTypeClass(elementType);
+      for (int i = 1; i < dimensions; i++)
+      {
+        dimensionComponentClasses[i] = Array.newInstance(dimensionComponentClasses[i - 1], 0).getClass();
+      }
+    }
+
+    @Override
+    Object convert(Object obj) throws OpenDataException
+    {
+      return convert(obj, null);
+    }
 
-          return compositeData;
+    @Override
+    Object convert(Object obj, Truncation truncation) throws OpenDataException
+    {
+      if (obj == null)
+      {
+        return null;
+      }
+      else if (obj.getClass().isArray())
+      {
+        return (simpleElements && (limits == null)) ? obj : convertArray(obj, dimensionComponentClasses.length - 1, truncation);
+      }
+      else if ((limits != null) && (obj instanceof Iterable))
+      {
+        Object[] elements = limits.keep((Iterable)obj, truncation, depth == 0);
+        Object array = Array.newInstance(dimensionComponentClasses[0], elements.length);
+        for (int i = 0; i < elements.length; i++)
+        {
+          Array.set(array, i, convertElement(elements[i], truncation));
         }
-        else
+        return array;
+      }
+      else if (obj instanceof Collection)
+      {
+        Collection collection = (Collection)obj;
+        Object array = Array.newInstance(dimensionComponentClasses[0], collection.size());
+        int i = 0;
+        for (Object element : collection)
         {
-          int[] dimensions = new int[numDimensions];
-          for (int i = 0; i < numDimensions; i++)
-          {
-            dimensions[i] = Array.getLength(Array.get(obj, i));
-          }
+          Array.set(array, i++, convertElement(element, null));
+        }
+        return array;
+      }
+      else if (obj instanceof Iterable)
+      {
+        List list = new ArrayList();
+        for (Object element : (Iterable)obj)
+        {
+          list.add(element);
+        }
 
-          Object compositeData = Array.newInstance(CompositeData.class, dimensions);
+        Object array = Array.newInstance(dimensionComponentClasses[0], list.size());
+        for (int i = 0; i < list.size(); i++)
+        {
+          Array.set(array, i, convertElement(list.get(i), null));
+        }
+        return array;
+      }
+      else
+      {
+        return obj; // Should never get here
+      }
+    }
 
-          for (int i = 0; i < numDimensions; i++)
-          {
-            Object indexArray = Array.get(obj, i);
-            int length = Array.getLength(indexArray);
-            Object indexCompositeData = Array.newInstance(CompositeData.class, length);
-            for (int j = 0; j < length; j++)
-            {
-              Array.set(indexCompositeData, j, convertToComposite(Array.get(indexArray, j), elementTypeMapping));
-            }
-            Array.set(compositeData, i, indexCompositeData);
-          }
+    /*
+     * Simple elements are only walked down to under limits. Their arrays keep the class of the array being converted.
+     */
+    Object convertArray(Object obj, int dimension, Truncation truncation) throws OpenDataException
+    {
+      if (obj == null)
+      {
+        return null;
+      }
 
-          return compositeData;
+      int length = Array.getLength(obj);
+      int[] keptIndexes = (limits == null) ? null : limits.keptIndexes(length);
+      int keptLength = (keptIndexes == null) ? length : keptIndexes.length;
+      if (truncation != null)
+      {
+        truncation.record((depth == 0) && (dimension == dimensionComponentClasses.length - 1), length, keptLength);
+      }
+
+      if (simpleElements && (dimension == 0) && (keptIndexes == null))
+      {
+        return obj;
+      }
+
+      Object array = Array.newInstance(simpleElements ? obj.getClass().getComponentType() : dimensionComponentClasses[dimension], keptLength);
+      for (int i = 0; i < keptLength; i++)
+      {
+        Object element = Array.get(obj, (keptIndexes == null) ? i : keptIndexes[i]);
+        if (dimension > 0)
+        {
+          element = convertArray(element, dimension - 1, truncation);
+        }
+        else if (!simpleElements)
+        {
+          element = elementConverter.convert(element, truncation);
         }
+        Array.set(array, i, element);
       }
+      return array;
     }
-    else if (obj instanceof Iterable)
+
+    Object convertElement(Object element, Truncation truncation) throws OpenDataException
     {
-      Iterable iterable = (Iterable)obj;
-      List list = new ArrayList();
-      for (Object listObj : iterable)
+      if (!simpleElements)
+      {
+        return elementConverter.convert(element, truncation);
+      }
+      /*
+       * Generic list are converted to String[] so make sure we put Strings in String[] regardless of what's in the List.
+       */
+      else if (stringElements)
+      {
+        return (element == null) ? null : element.toString();
+      }
+      else
       {
-        list.add(listObj);
+        return element;
       }
+    }
+  }
+
+  /*
+   * Converts to primitive arrays. Primitive arrays of the mapped class are passed through untouched, primitive specialized
+   * collections return their own array and Iterables of boxed values are unboxed straight into the primitive array. Under
+   * limits arrays longer than the limit are copied to a truncated array.
+   */
+  static class PrimitiveArrayConverter extends OpenTypeConverter
+  {
+    final ConversionLimits limits;
+
+    final int depth;
+
+    final Class arrayClass;
+
+    final Class componentClass;
+
+    final Getter primitiveArraySource;
+
+    PrimitiveArrayConverter(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
+    {
+      this.limits = limits;
+      this.depth = depth;
+      arrayClass = getOpenTypeClass(typeMapping.getArrayType());
+      componentClass = arrayClass.getComponentType();
+      primitiveArraySource = (typeMapping.getPrimitiveArraySource() == null) ? null : AccessorBackend.bindGetter(typeMapping.getPrimitiveArraySource());
+    }
 
-      int length = list.size();
-      boolean simpleType = elementTypeMapping.isSimpleType();
-      Object array = Array.newInstance((simpleType ? elementTypeMapping.getSimpleClass() : CompositeData.class), length);
+    @Override
+    Object convert(Object obj) throws OpenDataException
+    {
+      return convert(obj, null);
+    }
 
-      for (int i = 0; i < length; i++)
+    @Override
+    Object convert(Object obj, Truncation truncation) throws OpenDataException
+    {
+      if (obj == null)
+      {
+        return null;
+      }
+      else if (obj.getClass() == arrayClass)
+      {
+        return (limits == null) ? obj : truncate(obj, truncation);
+      }
+      else if (primitiveArraySource != null)
       {
-        Object listObj = list.get(i);
-        if (simpleType)
+        try
         {
-          /*
-           * Generic list are converted to String[] so make sure we put Strings in String[] regardless of what's in the List.
-           */
-          if (elementTypeMapping.getSimpleClass() == String.class)
-          {
-            Array.set(array, i, listObj == null ? null : listObj.toString());
-          }
-          else
+          Object array = primitiveArraySource.get(obj);
+          return ((limits == null) || (array == null)) ? array : truncate(array, truncation);
+        }
+        catch (Exception exc)
+        {
+          throw new RuntimeException(exc);
+        }
+      }
+      else if ((obj instanceof Iterable) && (limits != null))
+      {
+        Object[] elements = limits.keep((Iterable)obj, truncation, depth == 0);
+        Object array = Array.newInstance(componentClass, elements.length);
+        for (int i = 0; i < elements.length; i++)
+        {
+          if (elements[i] != null)
           {
-            Array.set(array, i, listObj);
+            setElement(array, i, elements[i]);
           }
         }
-        else
+        return array;
+      }
+      else if (obj instanceof Iterable)
+      {
+        /*
+         * The size of a Collection is only a hint, it may change while being iterated.
+         */
+        Object array = Array.newInstance(componentClass, (obj instanceof Collection) ? ((Collection)obj).size() : 16);
+        int length = Array.getLength(array);
+        int size = 0;
+        for (Object element : (Iterable)obj)
         {
-          Array.set(array, i, convertToComposite(listObj, elementTypeMapping));
+          if (size == length)
+          {
+            array = copyOf(array, length = Math.max(16, length * 2));
+          }
+
+          if (element != null)
+          {
+            setElement(array, size, element);
+          }
+          size++;
         }
+        return (size == length) ? array : copyOf(array, size);
       }
+      else
+      {
+        return obj; // Should never get here
+      }
+    }
 
-      return array;
+    Object truncate(Object array, Truncation truncation)
+    {
+      int length = Array.getLength(array);
+      int[] keptIndexes = limits.keptIndexes(length);
+      if (truncation != null)
+      {
+        truncation.record(depth == 0, length, (keptIndexes == null) ? length : keptIndexes.length);
+      }
+
+      if (keptIndexes == null)
+      {
+        return array;
+      }
+
+      Object truncated = Array.newInstance(componentClass, keptIndexes.length);
+      for (int i = 0; i < keptIndexes.length; i++)
+      {
+        Array.set(truncated, i, Array.get(array, keptIndexes[i]));
+      }
+      return truncated;
     }
-    else
+
+    Object copyOf(Object array, int length)
+    {
+      Object copy = Array.newInstance(componentClass, length);
+      System.arraycopy(array, 0, copy, 0, Math.min(length, Array.getLength(array)));
+      return copy;
+    }
+
+    static void setElement(Object array, int index, Object element)
     {
-      return obj; // Should never get here
+      if (array instanceof long[])
+      {
+        ((long[])array)[index] = ((Number)element).longValue();
+      }
+      else if (array instanceof int[])
+      {
+        ((int[])array)[index] = ((Number)element).intValue();
+      }
+      else if (array instanceof double[])
+      {
+        ((double[])array)[index] = ((Number)element).doubleValue();
+      }
+      else
+      {
+        Array.set(array, index, element);
+      }
     }
   }
 
-  static TabularData convertToTable(Map map, OpenTypeMapping typeMapping) throws OpenDataException
+  static class TableConverter extends OpenTypeConverter
   {
-    TabularType tabularType = typeMapping.getTabularType();
-    CompositeType rowType = tabularType.getRowType();
+    static final String[] ROW_NAMES = new String[] {"key", "value"};
+
+    final ConversionLimits limits;
+
+    final int depth;
 
-    TabularDataSupport tabularData = new TabularDataSupport(tabularType);
+    final TabularType tabularType;
 
-    OpenTypeMapping keyTypeMapping = typeMapping.getKeyTypeMapping();
-    OpenTypeMapping valueTypeMapping = typeMapping.getValueTypeMapping();
-    String[] rowAttNames = new String[] {"key", "value"};
+    final CompositeType rowType;
 
-    for (Object entryObj : map.entrySet())
+    final OpenTypeConverter keyConverter;
+
+    final OpenTypeConverter valueConverter;
+
+    TableConverter(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
     {
-      Entry entry = (Entry)entryObj;
-      Object key = entry.getKey();
-      Object value = entry.getValue();
+      this.limits = limits;
+      this.depth = depth;
+      tabularType = typeMapping.getTabularType();
+      rowType = tabularType.getRowType();
+      keyConverter = compileNested(typeMapping.getKeyTypeMapping(), limits, depth);
+      valueConverter = compileNested(typeMapping.getValueTypeMapping(), limits, depth);
+    }
 
-      Object mappedKey = convertToOpenType(key, keyTypeMapping);
-      Object mappedValue = convertToOpenType(value, valueTypeMapping);
-      tabularData.put(new CompositeDataSupport(rowType, rowAttNames, new Object[] {mappedKey, mappedValue}));
+    @Override
+    Object convert(Object obj) throws OpenDataException
+    {
+      return convert(obj, null);
     }
 
-    return tabularData;
+    @Override
+    Object convert(Object obj, Truncation truncation) throws OpenDataException
+    {
+      if (obj == null)
+      {
+        return null;
+      }
+
+      Map map = (Map)obj;
+      Collection entries = (limits == null) ? map.entrySet() : Arrays.asList(limits.keep(map.entrySet(), truncation, depth == 0));
+      TabularDataSupport tabularData = new TabularDataSupport(tabularType, Math.max(16, (int)(entries.size() / .75f) + 1), .75f);
+      for (Object entryObj : entries)
+      {
+        Entry entry = (Entry)entryObj;
+        Object mappedKey = keyConverter.convert(entry.getKey(), truncation);
+        Object mappedValue = valueConverter.convert(entry.getValue(), truncation);
+        tabularData.put(new CompositeDataSupport(rowType, ROW_NAMES, new Object[] {mappedKey, mappedValue}));
+      }
+
+      return tabularData;
+    }
   }
 
-  static CompositeData convertToComposite(Object obj, OpenTypeMapping typeMapping) throws OpenDataException
+  /*
+   * The attribute names are in the CompositeType's (sorted) order with the accessor and converter for each attribute
+   * at the same index.
+   */
+  static class CompositeConverter extends OpenTypeConverter
   {
-    CompositeType type = typeMapping.getCompositeType();
-    Set<String> nameSet = type.keySet();
+    final CompositeType compositeType;
+
+    final String[] names;
+
+    final EasyBeanOpenTypeStructure[] attributeStructures;
 
-    List<String> names = new ArrayList<String>();
-    List<Object> values = new ArrayList<Object>();
+    final OpenTypeConverter[] attributeConverters;
 
-    for (String name : nameSet)
+    CompositeConverter(OpenTypeMapping typeMapping, ConversionLimits limits, int depth)
     {
-      try
+      compositeType = typeMapping.getCompositeType();
+      names = compositeType.keySet().toArray(new String[0]);
+      attributeStructures = new EasyBeanOpenTypeStructure[names.length];
+      attributeConverters = new OpenTypeConverter[names.length];
+
+      for (int i = 0; i < names.length; i++)
+      {
+        attributeStructures[i] = typeMapping.getAttributeStructure(names[i]);
+        attributeConverters[i] = compileNested(typeMapping.getAttributeMapping(names[i]), limits, depth);
+      }
+    }
+
+    @Override
+    Object convert(Object obj) throws OpenDataException
+    {
+      return convert(obj, null);
+    }
+
+    @Override
+    Object convert(Object obj, Truncation truncation) throws OpenDataException
+    {
+      if (obj == null)
       {
-        EasyBeanOpenTypeStructure beanAttribute = typeMapping.getAttributeStructure(name);
-        OpenTypeMapping attributeTypeMapping = typeMapping.getAttributeMapping(name);
+        return null;
+      }
 
-        Object value = beanAttribute.get(obj);
-        Object mappedValue = (value == null) ? null : convertToOpenType(value, attributeTypeMapping);
-        names.add(name);
-        values.add(mappedValue);
+      Object[] values = new Object[names.length];
+      try
+      {
+        for (int i = 0; i < names.length; i++)
+        {
+          Object value = attributeStructures[i].get(obj);
+          values[i] = (value == null) ? null : attributeConverters[i].convert(value, truncation);
+        }
       }
       catch (Exception exc)
       {
         throw new RuntimeException(exc);
       }
-    }
 
-    return new CompositeDataSupport(type, names.toArray(new String[names.size()]), values.toArray(new Object[values.size()]));
+      return new CompositeDataSupport(compositeType, names, values);
+    }
   }
 }
@@ -15,6 +15,7 @@
  */
 package org.baswell.easybeans;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -67,8 +68,57 @@ class OpenTypeMapper
     simpleTypeMapping.put(Long.class, new OpenTypeMapping(SimpleType.LONG, Long.class));
     simpleTypeMapping.put(void.class, new OpenTypeMapping(SimpleType.VOID, Void.class));
     simpleTypeMapping.put(Void.class, new OpenTypeMapping(SimpleType.VOID, Void.class));
+    simpleTypeMapping.put(EasyBeanCounter.class, new OpenTypeMapping(SimpleType.LONG, Long.class, new OpenTypeConverter.CounterConverter()));
+    simpleTypeMapping.put(EasyBeanGauge.class, new OpenTypeMapping(SimpleType.DOUBLE, Double.class, new OpenTypeConverter.GaugeConverter()));
   }
 
+  static final String[] TIMER_ITEM_NAMES = new String[] {"count", "min", "max", "mean", "p50", "p90", "p99", "p999"};
+
+  /*
+   * Every EasyBeanTimer maps to the same composite type.
+   */
+  static final OpenTypeMapping timerMapping;
+  static
+  {
+    String[] descriptions = new String[] {"The number of durations recorded", "The shortest duration", "The longest duration",
+        "The mean duration", "The median duration", "The 90th percentile duration", "The 99th percentile duration", "The 99.9th percentile duration"};
+    OpenType[] types = new OpenType[] {SimpleType.LONG, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE};
+    try
+    {
+      timerMapping = new OpenTypeMapping(new CompositeType(EasyBeanTimer.class.getName(), "Durations recorded by an EasyBeanTimer", TIMER_ITEM_NAMES, descriptions, types), new OpenTypeConverter.TimerConverter());
+    }
+    catch (OpenDataException e)
+    {
+      throw new UnexpectedEasyBeanException(e);
+    }
+  }
+
+  /*
+   * Boxed classes to their primitive class for converting Iterables of boxed values to primitive arrays.
+   */
+  static final Map<Class, Class> primitiveClasses = new HashMap<Class, Class>();
+  static
+  {
+    primitiveClasses.put(Boolean.class, boolean.class);
+    primitiveClasses.put(Byte.class, byte.class);
+    primitiveClasses.put(Character.class, char.class);
+    primitiveClasses.put(Double.class, double.class);
+    primitiveClasses.put(Float.class, float.class);
+    primitiveClasses.put(Integer.class, int.class);
+    primitiveClasses.put(Long.class, long.class);
+    primitiveClasses.put(Short.class, short.class);
+  }
+
+  /*
+   * Array, tabular and composite mappings that have already been loaded keyed by raw class and then by the name of the
+   * full (possibly parameterized or generic array) type. Classes are weakly held so a class loader that is no longer used
+   * can be collected. Nothing in the values may reference a class strongly (a Type key would reference its raw class and
+   * keep it from ever being cleared) so the type is keyed by name and mappings, which reference their classes, are weakly
+   * held. The structures using a mapping keep it alive. Types of the same name from different class loaders share a key,
+   * a mapping is only reused for the exact type it was memoized for (see OpenTypeMapping#memoizedType).
+   */
+  static final Map<Class, Map<String, WeakReference<OpenTypeMapping>>> memoizedMappings = new WeakHashMap<Class, Map<String, WeakReference<OpenTypeMapping>>>();
+
   static OpenTypeMapping mapToOpenType(Class clazz)
   {
     return mapOpenType(new EasyBeanOpenTypeStructure(clazz));
@@ -91,10 +141,15 @@ class OpenTypeMapper
 
   static OpenTypeMapping mapOpenType(EasyBeanOpenTypeStructure typeWrapper)
   {
-    return mapOpenType(typeWrapper, new ArrayList<Class>());
+    return mapOpenType(typeWrapper, new ArrayList<Class>(), new HashSet<Class>());
   }
 
-  static OpenTypeMapping mapOpenType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited)
+  /*
+   * The composite classes reached while mapping a type are collected in compositedClassesReached. A mapping only depends
+   * on the classes visited above it (self referencing types are mapped to String) if it reached one of them, so a memoized
+   * mapping can be reused whenever none of the classes it reached are currently being visited.
+   */
+  static OpenTypeMapping mapOpenType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited, Set<Class> compositedClassesReached)
   {
     Class rawClass = typeWrapper.getRawClass();
 
@@ -102,6 +157,10 @@ class OpenTypeMapper
     {
       return null;
     }
+    else if (typeWrapper.isPrimitiveArray())
+    {
+      return mapPrimitiveArrayType(typeWrapper);
+    }
     else if (simpleTypeMapping.containsKey(rawClass))
     {
       return simpleTypeMapping.get(rawClass);
@@ -110,21 +169,104 @@ class OpenTypeMapper
     {
       return simpleTypeMapping.get(String.class);
     }
-    else if (rawClass.isArray() || implementsInterface(rawClass, Iterable.class))
+    else if (extendsClass(rawClass, EasyBeanCounter.class))
+    {
+      return simpleTypeMapping.get(EasyBeanCounter.class);
+    }
+    else if (extendsClass(rawClass, EasyBeanGauge.class))
     {
-      return mapArrayType(typeWrapper, compositedClassesVisited);
+      return simpleTypeMapping.get(EasyBeanGauge.class);
     }
-    else if (implementsInterface(rawClass, Map.class))
+    else if (extendsClass(rawClass, EasyBeanTimer.class))
     {
-      return mapTabularType(typeWrapper, compositedClassesVisited);
+      return timerMapping;
     }
     else
     {
-      return mapCompositeType(typeWrapper, compositedClassesVisited);
+      Type type = typeWrapper.getType();
+      OpenTypeMapping typeMapping = getMemoizedMapping(rawClass, type, compositedClassesVisited);
+      if (typeMapping != null)
+      {
+        compositedClassesReached.addAll(typeMapping.compositedClassesReached);
+        return typeMapping;
+      }
+
+      Set<Class> classesReached = new HashSet<Class>();
+      if (rawClass.isArray() || implementsInterface(rawClass, Iterable.class))
+      {
+        typeMapping = mapArrayType(typeWrapper, compositedClassesVisited, classesReached);
+      }
+      else if (implementsInterface(rawClass, Map.class))
+      {
+        typeMapping = mapTabularType(typeWrapper, compositedClassesVisited, classesReached);
+      }
+      else
+      {
+        typeMapping = mapCompositeType(typeWrapper, compositedClassesVisited, classesReached);
+      }
+      compositedClassesReached.addAll(classesReached);
+
+      if ((typeMapping != null) && !typeMapping.isSimpleType() && Collections.disjoint(classesReached, compositedClassesVisited))
+      {
+        typeMapping.compositedClassesReached = classesReached;
+        memoizeMapping(rawClass, type, typeMapping);
+      }
+
+      return typeMapping;
     }
   }
 
-  static OpenTypeMapping mapArrayType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited)
+  static OpenTypeMapping getMemoizedMapping(Class rawClass, Type type, List<Class> compositedClassesVisited)
+  {
+    WeakReference<OpenTypeMapping> reference;
+    synchronized (memoizedMappings)
+    {
+      Map<String, WeakReference<OpenTypeMapping>> typeMappings = memoizedMappings.get(rawClass);
+      reference = (typeMappings == null) ? null : typeMappings.get(typeName(type));
+    }
+
+    OpenTypeMapping typeMapping = (reference == null) ? null : reference.get();
+    if ((typeMapping != null) && type.equals(typeMapping.memoizedType) && Collections.disjoint(typeMapping.compositedClassesReached, compositedClassesVisited))
+    {
+      return typeMapping;
+    }
+    else
+    {
+      return null;
+    }
+  }
+
+  static void memoizeMapping(Class rawClass, Type type, OpenTypeMapping typeMapping)
+  {
+    typeMapping.memoizedType = type;
+    synchronized (memoizedMappings)
+    {
+      Map<String, WeakReference<OpenTypeMapping>> typeMappings = memoizedMappings.get(rawClass);
+      if (typeMappings == null)
+      {
+        typeMappings = new HashMap<String, WeakReference<OpenTypeMapping>>();
+        memoizedMappings.put(rawClass, typeMappings);
+      }
+      else
+      {
+        for (Iterator<WeakReference<OpenTypeMapping>> iterator = typeMappings.values().iterator(); iterator.hasNext(); )
+        {
+          if (iterator.next().get() == null)
+          {
+            iterator.remove();
+          }
+        }
+      }
+      typeMappings.put(typeName(type), new WeakReference<OpenTypeMapping>(typeMapping));
+    }
+  }
+
+  static String typeName(Type type)
+  {
+    return (type instanceof Class) ? ((Class)type).getName() : type.toString();
+  }
+
+  static OpenTypeMapping mapArrayType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited, Set<Class> compositedClassesReached)
   {
     Type type = typeWrapper.getType();
     Class rawClass = typeWrapper.getRawClass();
@@ -140,12 +282,16 @@ class OpenTypeMapper
         {
           GenericArrayType arrayType = (GenericArrayType)type;
           Type componentType = getArrayComponentType(arrayType);
-          elementTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentType), compositedClassesVisited);
+          elementTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentType), compositedClassesVisited, compositedClassesReached);
+        }
+        else if (getArrayComponentClass(rawClass).isPrimitive())
+        {
+          return new OpenTypeMapping(ArrayType.getPrimitiveArrayType(rawClass), simpleTypeMapping.get(getArrayComponentClass(rawClass)));
         }
         else
         {
           Class componentClass = getArrayComponentClass(rawClass);
-          elementTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentClass), compositedClassesVisited);
+          elementTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentClass), compositedClassesVisited, compositedClassesReached);
         }
 
         if (elementTypeMapping == null)
@@ -174,7 +320,7 @@ class OpenTypeMapper
           componentType = String.class; // If we can't find the component type then we'll just display it as an array of strings
         }
 
-        OpenTypeMapping listTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentType), compositedClassesVisited);
+        OpenTypeMapping listTypeMapping = mapOpenType(new EasyBeanOpenTypeStructure(componentType), compositedClassesVisited, compositedClassesReached);
         if (listTypeMapping == null)
         {
           return null;
@@ -191,7 +337,73 @@ class OpenTypeMapper
     }
   }
 
-  static OpenTypeMapping mapTabularType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited)
+  /*
+   * Types annotated with EasyBeanPrimitiveArray. These aren't memoized since the same type maps differently without the
+   * annotation.
+   */
+  static OpenTypeMapping mapPrimitiveArrayType(EasyBeanOpenTypeStructure typeWrapper)
+  {
+    Type type = typeWrapper.getType();
+    Class rawClass = typeWrapper.getRawClass();
+    Class arrayClass = null;
+    Method primitiveArraySource = null;
+
+    if (rawClass.isArray())
+    {
+      if (getArrayComponentClass(rawClass).isPrimitive())
+      {
+        arrayClass = rawClass;
+      }
+    }
+    else if ((primitiveArraySource = getPrimitiveArraySource(rawClass)) != null)
+    {
+      arrayClass = primitiveArraySource.getReturnType();
+    }
+    else if (implementsInterface(rawClass, Iterable.class) && (type instanceof ParameterizedType))
+    {
+      Type[] typeArgs = ((ParameterizedType)type).getActualTypeArguments();
+      Class primitiveClass = ((typeArgs.length == 1) && (typeArgs[0] instanceof Class)) ? primitiveClasses.get(typeArgs[0]) : null;
+      if (primitiveClass != null)
+      {
+        arrayClass = Array.newInstance(primitiveClass, 0).getClass();
+      }
+    }
+
+    if (arrayClass == null)
+    {
+      throw new InvalidEasyBeanAnnotation(rawClass, "EasyBeanPrimitiveArray is used on type " + type + " that cannot be converted to a primitive array.");
+    }
+
+    return new OpenTypeMapping(ArrayType.getPrimitiveArrayType(arrayClass), simpleTypeMapping.get(getArrayComponentClass(arrayClass)), primitiveArraySource);
+  }
+
+  /*
+   * The public, no argument toArray (or to*Array) method of a primitive specialized collection that returns a one
+   * dimensional primitive array. toArray is preferred over the others.
+   */
+  static Method getPrimitiveArraySource(Class clazz)
+  {
+    Method source = null;
+    for (Method method : clazz.getMethods())
+    {
+      Class returnType = method.getReturnType();
+      if (!Modifier.isStatic(method.getModifiers()) && (method.getParameterTypes().length == 0) && method.getName().startsWith("to")
+          && method.getName().endsWith("Array") && returnType.isArray() && returnType.getComponentType().isPrimitive())
+      {
+        if (method.getName().equals("toArray"))
+        {
+          return method;
+        }
+        else if ((source == null) || (method.getName().compareTo(source.getName()) < 0))
+        {
+          source = method;
+        }
+      }
+    }
+    return source;
+  }
+
+  static OpenTypeMapping mapTabularType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited, Set<Class> compositedClassesReached)
   {
     Type type = typeWrapper.getType();
     Class rawClass = typeWrapper.getRawClass();
@@ -213,8 +425,8 @@ class OpenTypeMapper
       keyValueTypePair = pair((Type) String.class, (Type) String.class);
     }
 
-    OpenTypeMapping keyMapping = mapOpenType(new EasyBeanOpenTypeStructure(keyValueTypePair.x), compositedClassesVisited);
-    OpenTypeMapping valueMapping = mapOpenType(new EasyBeanOpenTypeStructure(keyValueTypePair.y), compositedClassesVisited);
+    OpenTypeMapping keyMapping = mapOpenType(new EasyBeanOpenTypeStructure(keyValueTypePair.x), compositedClassesVisited, compositedClassesReached);
+    OpenTypeMapping valueMapping = mapOpenType(new EasyBeanOpenTypeStructure(keyValueTypePair.y), compositedClassesVisited, compositedClassesReached);
 
     if ((keyMapping == null) || (valueMapping == null))
     {
@@ -237,9 +449,10 @@ class OpenTypeMapper
     }
   }
 
-  static OpenTypeMapping mapCompositeType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited)
+  static OpenTypeMapping mapCompositeType(EasyBeanOpenTypeStructure typeWrapper, List<Class> compositedClassesVisited, Set<Class> compositedClassesReached)
   {
     Class rawClass = typeWrapper.getRawClass();
+    compositedClassesReached.add(rawClass);
 
     /*
      * Prevent infinite loops. Don't have a way to define self referring types.
@@ -260,10 +473,10 @@ class OpenTypeMapper
 
       for (EasyBeanOpenTypeStructure attributeTypeWrapper : typeWrapper.getAttributes())
       {
-        OpenTypeMapping attributeTypeMapping = mapOpenType(attributeTypeWrapper, compositedClassesVisited);
+        OpenTypeMapping attributeTypeMapping = mapOpenType(attributeTypeWrapper, compositedClassesVisited, compositedClassesReached);
         if (attributeTypeMapping != null)
         {
-          String name = attributeTypeWrapper.getField().getName();
+          String name = attributeTypeWrapper.getItemName();
           attributeMappings.put(name, pair(attributeTypeWrapper, attributeTypeMapping));
           attributeNameList.add(name);
           attributeDescriptionList.add(attributeTypeWrapper.getDescription());
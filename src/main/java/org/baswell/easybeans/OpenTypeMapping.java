@@ -15,7 +15,11 @@
  */
 package org.baswell.easybeans;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import javax.management.openmbean.ArrayType;
 import javax.management.openmbean.CompositeType;
@@ -34,12 +38,39 @@ class OpenTypeMapping
   private Class simpleClass;
   
   private OpenTypeMapping elementTypeMapping;
+
+  /*
+   * For primitive arrays converted from a primitive specialized collection, the method that returns the collection's
+   * primitive array.
+   */
+  private Method primitiveArraySource;
   
   private OpenTypeMapping keyTypeMapping;
   
   private OpenTypeMapping valueTypeMapping;
   
   private Map<String, Pair<EasyBeanOpenTypeStructure, OpenTypeMapping>> attributeMappings;
+
+  /*
+   * The composite classes reached while loading this mapping.
+   *
+   * @see OpenTypeMapper#mapOpenType(EasyBeanOpenTypeStructure, java.util.List, java.util.Set)
+   */
+  Set<Class> compositedClassesReached = Collections.emptySet();
+
+  /*
+   * The type this mapping was memoized for.
+   *
+   * @see OpenTypeMapper#memoizedMappings
+   */
+  Type memoizedType;
+
+  private volatile OpenTypeConverter converter;
+
+  /*
+   * True if this mapping's converter was given to it and not compiled.
+   */
+  private boolean presetConverter;
   
   OpenTypeMapping(SimpleType simpleType, Class simpleClass)
   {
@@ -47,11 +78,27 @@ class OpenTypeMapping
     this.simpleClass = simpleClass;
   }
   
+  /*
+   * For Java types converted to a simple type by their own converter (EasyBeanCounter to Long for example).
+   */
+  OpenTypeMapping(SimpleType simpleType, Class simpleClass, OpenTypeConverter converter)
+  {
+    this(simpleType, simpleClass);
+    this.converter = converter;
+    presetConverter = true;
+  }
+
   OpenTypeMapping(ArrayType arrayType, OpenTypeMapping elementTypeMapping)
   {
     openType = arrayType;
     this.elementTypeMapping = elementTypeMapping;
   }
+
+  OpenTypeMapping(ArrayType arrayType, OpenTypeMapping elementTypeMapping, Method primitiveArraySource)
+  {
+    this(arrayType, elementTypeMapping);
+    this.primitiveArraySource = primitiveArraySource;
+  }
   
   OpenTypeMapping(TabularType tabularType, OpenTypeMapping keyTypeMapping, OpenTypeMapping valueTypeMapping)
   {
@@ -66,6 +113,16 @@ class OpenTypeMapping
     this.attributeMappings = attributeMappings;
   }
 
+  /*
+   * For Java types converted to a fixed composite type by their own converter (EasyBeanTimer for example).
+   */
+  OpenTypeMapping(CompositeType compositeType, OpenTypeConverter converter)
+  {
+    openType = compositeType;
+    this.converter = converter;
+    presetConverter = true;
+  }
+
   OpenType getOpenType()
   {
     return openType;
@@ -116,6 +173,11 @@ class OpenTypeMapping
     return elementTypeMapping;
   }
   
+  Method getPrimitiveArraySource()
+  {
+    return primitiveArraySource;
+  }
+
   OpenTypeMapping getKeyTypeMapping()
   {
     return keyTypeMapping;
@@ -140,4 +202,22 @@ class OpenTypeMapping
   {
     return attributeMappings.get(name).y;
   }
+
+  boolean hasPresetConverter()
+  {
+    return presetConverter;
+  }
+
+  /*
+   * The converter for this mapping, compiled on first use. Mappings are shared so this is compiled once per mapping.
+   */
+  OpenTypeConverter getConverter()
+  {
+    OpenTypeConverter converter = this.converter;
+    if (converter == null)
+    {
+      converter = this.converter = OpenTypeConverter.compile(this);
+    }
+    return converter;
+  }
 }
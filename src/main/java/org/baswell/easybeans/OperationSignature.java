@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.Arrays;
+
+import static org.baswell.easybeans.SharedMethods.normalizeClassName;
+
+/*
+ * Key of an operation in the operation index: the operation name and the class names of it's parameters. Primitive
+ * parameter class names are normalized to their wrapper class names so a signature using either one finds the operation.
+ */
+class OperationSignature
+{
+  private final String name;
+
+  private final String[] parameterClassNames;
+
+  private final int hashCode;
+
+  OperationSignature(String name, String[] parameterClassNames)
+  {
+    this.name = name;
+
+    if (parameterClassNames == null)
+    {
+      this.parameterClassNames = new String[0];
+    }
+    else
+    {
+      this.parameterClassNames = new String[parameterClassNames.length];
+      for (int i = 0; i < parameterClassNames.length; i++)
+      {
+        this.parameterClassNames[i] = normalizeClassName(parameterClassNames[i]);
+      }
+    }
+
+    hashCode = (31 * ((name == null) ? 0 : name.hashCode())) + Arrays.hashCode(this.parameterClassNames);
+  }
+
+  OperationSignature(String name, Class[] parameterClasses)
+  {
+    this(name, getCanonicalNames(parameterClasses));
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj)
+  {
+    if (this == obj)
+    {
+      return true;
+    }
+    else if (obj instanceof OperationSignature)
+    {
+      OperationSignature signature = (OperationSignature)obj;
+      return (hashCode == signature.hashCode) && ((name == null) ? signature.name == null : name.equals(signature.name)) && Arrays.equals(parameterClassNames, signature.parameterClassNames);
+    }
+    else
+    {
+      return false;
+    }
+  }
+
+  static String[] getCanonicalNames(Class[] classes)
+  {
+    String[] names = new String[classes.length];
+    for (int i = 0; i < classes.length; i++)
+    {
+      names[i] = classes[i].getCanonicalName();
+    }
+    return names;
+  }
+
+  static String[] getBinaryNames(Class[] classes)
+  {
+    String[] names = new String[classes.length];
+    for (int i = 0; i < classes.length; i++)
+    {
+      names[i] = classes[i].getName();
+    }
+    return names;
+  }
+}
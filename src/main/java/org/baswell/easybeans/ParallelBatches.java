@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Runs the bulk operations of the registry and the query bean over many beans in parallel batches. The items are split in
+ * batches of at least MIN_BATCH_SIZE, about four per thread so uneven batches even out. The calling thread runs the last
+ * batch itself and the daemon threads running the others are started for the call and shut down at its end, so nothing is
+ * left running between calls.
+ */
+class ParallelBatches
+{
+  /*
+   * Below this many items per thread it's not worth starting threads.
+   */
+  static final int MIN_BATCH_SIZE = 64;
+
+  interface Batch
+  {
+    /*
+     * Handles the items from start (inclusive) to end (exclusive). Mustn't throw, each batch handles its own failures.
+     */
+    void run(int start, int end);
+  }
+
+  static void run(int count, final String threadName, final Batch batch)
+  {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), (count / MIN_BATCH_SIZE) + 1);
+    int batchSize = Math.max(MIN_BATCH_SIZE, (count + (threads * 4) - 1) / (threads * 4));
+
+    ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads - 1, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable runnable)
+      {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    }) : null;
+
+    try
+    {
+      List<Future> futures = new ArrayList<Future>();
+      for (int start = 0; start < count; start += batchSize)
+      {
+        final int batchStart = start;
+        final int batchEnd = Math.min(count, start + batchSize);
+        if ((executor == null) || (batchEnd == count))
+        {
+          batch.run(batchStart, batchEnd);
+        }
+        else
+        {
+          futures.add(executor.submit(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              batch.run(batchStart, batchEnd);
+            }
+          }));
+        }
+      }
+
+      for (Future future : futures)
+      {
+        future.get();
+      }
+    }
+    catch (InterruptedException exc)
+    {
+      Thread.currentThread().interrupt();
+      throw new UnexpectedEasyBeanException(exc);
+    }
+    catch (ExecutionException exc)
+    {
+      throw new UnexpectedEasyBeanException(exc.getCause());
+    }
+    finally
+    {
+      if (executor != null)
+      {
+        executor.shutdownNow();
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/*
+ * The UTF-8 bytes of a Prometheus text exposition. Names, labels and numbers are encoded straight into a byte array that
+ * is reused (and only ever grows) from scrape to scrape, so a scrape doesn't build intermediate strings.
+ */
+class PrometheusTextBuffer
+{
+  private byte[] bytes = new byte[8192];
+
+  private int length;
+
+  void reset()
+  {
+    length = 0;
+  }
+
+  int length()
+  {
+    return length;
+  }
+
+  void writeTo(OutputStream outputStream) throws IOException
+  {
+    outputStream.write(bytes, 0, length);
+  }
+
+  byte[] toByteArray()
+  {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  PrometheusTextBuffer append(char c)
+  {
+    ensureCapacity(1);
+    bytes[length++] = (byte)c;
+    return this;
+  }
+
+  /*
+   * For text that is already ASCII (metric names, sanitized label names).
+   */
+  PrometheusTextBuffer append(String ascii)
+  {
+    int stringLength = ascii.length();
+    ensureCapacity(stringLength);
+    for (int i = 0; i < stringLength; i++)
+    {
+      bytes[length++] = (byte)ascii.charAt(i);
+    }
+    return this;
+  }
+
+  PrometheusTextBuffer append(byte[] encoded)
+  {
+    ensureCapacity(encoded.length);
+    System.arraycopy(encoded, 0, bytes, length, encoded.length);
+    length += encoded.length;
+    return this;
+  }
+
+  /*
+   * Appends the given label value escaped and encoded as UTF-8.
+   */
+  PrometheusTextBuffer appendLabelValue(String value)
+  {
+    for (int i = 0; i < value.length(); )
+    {
+      int codePoint = value.codePointAt(i);
+      i += Character.charCount(codePoint);
+
+      if ((codePoint == '\\') || (codePoint == '"'))
+      {
+        append('\\').append((char)codePoint);
+      }
+      else if (codePoint == '\n')
+      {
+        append('\\').append('n');
+      }
+      else if (codePoint < 0x80)
+      {
+        append((char)codePoint);
+      }
+      else if (codePoint < 0x800)
+      {
+        ensureCapacity(2);
+        bytes[length++] = (byte)(0xC0 | (codePoint >> 6));
+        bytes[length++] = (byte)(0x80 | (codePoint & 0x3F));
+      }
+      else if (codePoint < 0x10000)
+      {
+        ensureCapacity(3);
+        bytes[length++] = (byte)(0xE0 | (codePoint >> 12));
+        bytes[length++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[length++] = (byte)(0x80 | (codePoint & 0x3F));
+      }
+      else
+      {
+        ensureCapacity(4);
+        bytes[length++] = (byte)(0xF0 | (codePoint >> 18));
+        bytes[length++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[length++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[length++] = (byte)(0x80 | (codePoint & 0x3F));
+      }
+    }
+    return this;
+  }
+
+  /*
+   * Appends the given value as a label value. Strings and integral numbers are appended without creating a string.
+   */
+  PrometheusTextBuffer appendLabelValue(Object value)
+  {
+    if (value instanceof String)
+    {
+      return appendLabelValue((String)value);
+    }
+    else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte))
+    {
+      return append(((Number)value).longValue());
+    }
+    else
+    {
+      return appendLabelValue(String.valueOf(value));
+    }
+  }
+
+  PrometheusTextBuffer append(long value)
+  {
+    if (value == Long.MIN_VALUE)
+    {
+      return append(Long.toString(value));
+    }
+
+    if (value < 0)
+    {
+      append('-');
+      value = -value;
+    }
+
+    int digits = 1;
+    for (long remaining = value / 10; remaining > 0; remaining /= 10)
+    {
+      digits++;
+    }
+
+    ensureCapacity(digits);
+    for (int i = length + digits - 1; i >= length; i--)
+    {
+      bytes[i] = (byte)('0' + (value % 10));
+      value /= 10;
+    }
+    length += digits;
+    return this;
+  }
+
+  /*
+   * Whole numbers are written as longs without formatting a string. Others fall back to Double.toString.
+   */
+  PrometheusTextBuffer append(double value)
+  {
+    if (Double.isNaN(value))
+    {
+      return append("NaN");
+    }
+    else if (Double.isInfinite(value))
+    {
+      return append((value > 0) ? "+Inf" : "-Inf");
+    }
+    else if ((value == Math.rint(value)) && (Math.abs(value) < 1e15))
+    {
+      return append((long)value);
+    }
+    else
+    {
+      return append(Double.toString(value));
+    }
+  }
+
+  void ensureCapacity(int additional)
+  {
+    if ((length + additional) > bytes.length)
+    {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    try
+    {
+      return new String(bytes, 0, length, "UTF-8");
+    }
+    catch (IOException e)
+    {
+      throw new UnexpectedEasyBeanException(e);
+    }
+  }
+}
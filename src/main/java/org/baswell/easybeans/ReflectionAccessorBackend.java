@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.lang.reflect.Method;
+
+/*
+ * Binds getters, setters and operations with reflection. Used on runtimes without java.lang.invoke.LambdaMetafactory and for members
+ * the metafactory can't bind.
+ */
+class ReflectionAccessorBackend extends AccessorBackend
+{
+  @Override
+  Getter getter(final Method getter)
+  {
+    makeAccessible(getter);
+    return new Getter()
+    {
+      public Object get(Object pojo) throws Exception
+      {
+        return getter.invoke(pojo);
+      }
+    };
+  }
+
+  @Override
+  Setter setter(final Method setter)
+  {
+    makeAccessible(setter);
+    return new Setter()
+    {
+      public void set(Object pojo, Object value) throws Exception
+      {
+        setter.invoke(pojo, value);
+      }
+    };
+  }
+
+  @Override
+  Invoker invoker(final Method method)
+  {
+    makeAccessible(method);
+    return new Invoker()
+    {
+      public Object invoke(Object pojo, Object[] parameters) throws Exception
+      {
+        return method.invoke(pojo, parameters);
+      }
+    };
+  }
+}
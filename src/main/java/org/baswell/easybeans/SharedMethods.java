@@ -272,38 +272,24 @@ class SharedMethods
     }
   }
 
-  static boolean classesEquivalent(Class<?> clazz, String canonicalName)
+  /*
+   * Primitive and wrapper class names are equivalent when matching operation signatures.
+   */
+  static String normalizeClassName(String className)
   {
-    if (clazz.getCanonicalName().equals(canonicalName))
-    {
-      return true;
-    }
-    else if (classEquivalentMap.containsKey(clazz.getCanonicalName()) && classEquivalentMap.containsKey(canonicalName))
-    {
-      return classEquivalentMap.get(clazz.getCanonicalName()) == classEquivalentMap.get(canonicalName);
-    }
-    else
-    {
-      return false;
-    }
+    String equivalentName = (className == null) ? null : classEquivalentMap.get(className);
+    return (equivalentName == null) ? className : equivalentName;
   }
 
-  static private Map<String, Class> classEquivalentMap = new ConcurrentHashMap<String, Class>();
+  static private Map<String, String> classEquivalentMap = new ConcurrentHashMap<String, String>();
   static
   {
-    classEquivalentMap.put(Byte.class.getCanonicalName(), Byte.class);
-    classEquivalentMap.put(byte.class.getCanonicalName(), Byte.class);
-    classEquivalentMap.put(boolean.class.getCanonicalName(), Boolean.class);
-    classEquivalentMap.put(Boolean.class.getCanonicalName(), Boolean.class);
-    classEquivalentMap.put(short.class.getCanonicalName(), Short.class);
-    classEquivalentMap.put(Short.class.getCanonicalName(), Short.class);
-    classEquivalentMap.put(int.class.getCanonicalName(), Integer.class);
-    classEquivalentMap.put(Integer.class.getCanonicalName(), Integer.class);
-    classEquivalentMap.put(long.class.getCanonicalName(), Long.class);
-    classEquivalentMap.put(Long.class.getCanonicalName(), Long.class);
-    classEquivalentMap.put(float.class.getCanonicalName(), Float.class);
-    classEquivalentMap.put(Float.class.getCanonicalName(), Float.class);
-    classEquivalentMap.put(double.class.getCanonicalName(), Double.class);
-    classEquivalentMap.put(Double.class.getCanonicalName(), Double.class);
+    classEquivalentMap.put(byte.class.getCanonicalName(), Byte.class.getCanonicalName());
+    classEquivalentMap.put(boolean.class.getCanonicalName(), Boolean.class.getCanonicalName());
+    classEquivalentMap.put(short.class.getCanonicalName(), Short.class.getCanonicalName());
+    classEquivalentMap.put(int.class.getCanonicalName(), Integer.class.getCanonicalName());
+    classEquivalentMap.put(long.class.getCanonicalName(), Long.class.getCanonicalName());
+    classEquivalentMap.put(float.class.getCanonicalName(), Float.class.getCanonicalName());
+    classEquivalentMap.put(double.class.getCanonicalName(), Double.class.getCanonicalName());
   }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * The single daemon thread used for the delayed and periodic work of the notification wrappers (notification summaries,
+ * flushing idle notification buffers). Created on first use.
+ */
+class SharedScheduler
+{
+  private static ScheduledExecutorService scheduler;
+
+  static synchronized ScheduledExecutorService get()
+  {
+    if (scheduler == null)
+    {
+      scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+      {
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+          Thread thread = new Thread(runnable, "EasyBeans-Scheduler");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return scheduler;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.OpenMBeanAttributeInfoSupport;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+/*
+ * What was left out converting an attribute value under its ConversionLimits. Attributes that can be truncated get a
+ * companion attribute (Orders gets OrdersTruncation) that reports the truncation of the last value read. The sizes are of
+ * the attribute value itself, truncated is set if the value or anything nested in it was left out.
+ */
+class Truncation
+{
+  static final String ATTRIBUTE_SUFFIX = "Truncation";
+
+  static final String[] ITEM_NAMES = new String[] {"originalSize", "size", "truncated"};
+
+  static final CompositeType compositeType;
+  static
+  {
+    String[] descriptions = new String[] {"The number of elements (or map entries) in the value", "The number of elements (or map entries) converted",
+        "True if any elements or nested values were left out"};
+    OpenType[] types = new OpenType[] {SimpleType.LONG, SimpleType.LONG, SimpleType.BOOLEAN};
+    try
+    {
+      compositeType = new CompositeType(Truncation.class.getName(), "The truncation of the last value read of an attribute", ITEM_NAMES, descriptions, types);
+    }
+    catch (OpenDataException e)
+    {
+      throw new UnexpectedEasyBeanException(e);
+    }
+  }
+
+  long originalSize;
+
+  long size;
+
+  boolean truncated;
+
+  /*
+   * Only the sizes of the top (attribute value) array, collection or map are kept.
+   */
+  void record(boolean top, long originalSize, long size)
+  {
+    if (top)
+    {
+      this.originalSize = originalSize;
+      this.size = size;
+    }
+
+    if (size < originalSize)
+    {
+      truncated = true;
+    }
+  }
+
+  /*
+   * A nested value below the maximum depth was left out.
+   */
+  void cut()
+  {
+    truncated = true;
+  }
+
+  CompositeData toCompositeData() throws OpenDataException
+  {
+    return new CompositeDataSupport(compositeType, ITEM_NAMES, new Object[] {originalSize, size, truncated});
+  }
+
+  static String attributeName(EasyBeanAttributeStructure attribute)
+  {
+    return attribute.name + ATTRIBUTE_SUFFIX;
+  }
+
+  /*
+   * Adds the companion attribute of each of the given readable attributes that can be truncated to the given attribute info
+   * and truncationAttributeIndex. Companions are left out if the bean has an attribute of the same name.
+   */
+  static void addAttributeInfo(List<OpenMBeanAttributeInfo> attributesInfo, Map<String, EasyBeanAttributeStructure> readableAttributeStructures, Map<String, EasyBeanAttributeStructure> truncationAttributeIndex)
+  {
+    for (EasyBeanAttributeStructure attribute : readableAttributeStructures.values())
+    {
+      String name = attributeName(attribute);
+      if (attribute.isTruncatable() && !readableAttributeStructures.containsKey(name))
+      {
+        attributesInfo.add(new OpenMBeanAttributeInfoSupport(name, "The truncation of the last value read of " + attribute.name + ".", compositeType, true, false, false));
+        truncationAttributeIndex.put(name, attribute);
+      }
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015 Corey Baswell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.baswell.easybeans.processor;
+
+import org.baswell.easybeans.EasyBeanGeneratedAccessors;
+import org.baswell.easybeans.EasyBeanTransient;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates a reflection free accessor class (see {@link org.baswell.easybeans.EasyBeanGeneratedAccessors})
+ * for every class annotated with {@link org.baswell.easybeans.EasyBean} or {@link org.baswell.easybeans.EasyBeanOpenType}
+ * or with fields or methods annotated with {@link org.baswell.easybeans.EasyBeanAttribute} or {@link org.baswell.easybeans.EasyBeanOperation}.
+ * The generated class is placed in the same package as the bean class and has accessors for the public (non static and
+ * non transient) fields and methods, the only members EasyBeans exposes. {@link org.baswell.easybeans.EasyBeanWrapper}
+ * picks up the generated class at runtime and uses it instead of reflection to get and set attributes and invoke operations.
+ * Members of super classes that weren't processed and members with a field, parameter or return type that can't be
+ * referenced from the bean's package (a private nested class for example) still use reflection.
+ * <p>
+ * The processor isn't registered as a service so it must be enabled explicitly. For example with javac:
+ * <pre>
+ * javac -processor org.baswell.easybeans.processor.EasyBeansProcessor ...
+ * </pre>
+ * with Maven (maven-compiler-plugin):
+ * <pre>
+ * &lt;annotationProcessors&gt;
+ *   &lt;annotationProcessor&gt;org.baswell.easybeans.processor.EasyBeansProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ * or with Gradle:
+ * <pre>
+ * compileJava.options.compilerArgs += ['-processor', 'org.baswell.easybeans.processor.EasyBeansProcessor']
+ * </pre>
+ */
+@SupportedAnnotationTypes({"org.baswell.easybeans.EasyBean", "org.baswell.easybeans.EasyBeanOpenType", "org.baswell.easybeans.EasyBeanAttribute", "org.baswell.easybeans.EasyBeanOperation"})
+public class EasyBeansProcessor extends AbstractProcessor
+{
+  private final Set<String> generatedClasses = new HashSet<String>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+  {
+    Set<TypeElement> beanTypes = new LinkedHashSet<TypeElement>();
+    for (TypeElement annotation : annotations)
+    {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+      {
+        Element typeElement = element;
+        while ((typeElement != null) && !(typeElement instanceof TypeElement))
+        {
+          typeElement = typeElement.getEnclosingElement();
+        }
+
+        if (typeElement != null)
+        {
+          beanTypes.add((TypeElement) typeElement);
+        }
+      }
+    }
+
+    for (TypeElement beanType : beanTypes)
+    {
+      if (isAccessible(beanType) && generatedClasses.add(beanType.getQualifiedName().toString()))
+      {
+        generate(beanType);
+      }
+    }
+
+    /*
+     * Don't claim the EasyBeans annotations. Other processors may want them too.
+     */
+    return false;
+  }
+
+  void generate(TypeElement beanType)
+  {
+    String packageName = processingEnv.getElementUtils().getPackageOf(beanType).getQualifiedName().toString();
+    String binaryName = processingEnv.getElementUtils().getBinaryName(beanType).toString();
+    String generatedSimpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + EasyBeanGeneratedAccessors.GENERATED_CLASS_SUFFIX;
+    String beanTypeName = erasure(beanType.asType());
+    PackageElement beanPackage = processingEnv.getElementUtils().getPackageOf(beanType);
+
+    List<VariableElement> fields = new ArrayList<VariableElement>();
+    for (VariableElement field : ElementFilter.fieldsIn(beanType.getEnclosedElements()))
+    {
+      if (isExposable(field) && isReachable(field.asType(), beanPackage))
+      {
+        fields.add(field);
+      }
+    }
+
+    List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+    for (ExecutableElement method : ElementFilter.methodsIn(beanType.getEnclosedElements()))
+    {
+      if (isExposable(method) && isReachable(method, beanPackage))
+      {
+        methods.add(method);
+      }
+    }
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty())
+    {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+
+    source.append("/*\n * Generated by ").append(EasyBeansProcessor.class.getName()).append(" for ").append(beanTypeName).append(". Do not edit.\n */\n");
+    source.append("@SuppressWarnings(\"unchecked\")\n");
+    source.append("public final class ").append(generatedSimpleName).append(" extends org.baswell.easybeans.EasyBeanGeneratedAccessors\n{\n");
+
+    source.append("  public ").append(generatedSimpleName).append("()\n  {\n    super(new String[] {");
+    for (int i = 0; i < fields.size(); i++)
+    {
+      source.append((i == 0) ? "" : ", ").append('"').append(fields.get(i).getSimpleName()).append('"');
+    }
+    source.append("}, new String[] {");
+    for (int i = 0; i < methods.size(); i++)
+    {
+      source.append((i == 0) ? "" : ", ").append('"').append(methodKey(methods.get(i))).append('"');
+    }
+    source.append("});\n  }\n\n");
+
+    source.append("  @Override\n  protected Object get(Object bean, int field) throws Exception\n  {\n    switch (field)\n    {\n");
+    for (int i = 0; i < fields.size(); i++)
+    {
+      source.append("      case ").append(i).append(": return ((").append(beanTypeName).append(") bean).").append(fields.get(i).getSimpleName()).append(";\n");
+    }
+    source.append("      default: throw new IllegalArgumentException(\"No field with index \" + field);\n    }\n  }\n\n");
+
+    source.append("  @Override\n  protected void set(Object bean, int field, Object value) throws Exception\n  {\n    switch (field)\n    {\n");
+    for (int i = 0; i < fields.size(); i++)
+    {
+      VariableElement field = fields.get(i);
+      if (!field.getModifiers().contains(Modifier.FINAL))
+      {
+        source.append("      case ").append(i).append(": ((").append(beanTypeName).append(") bean).").append(field.getSimpleName()).append(" = (").append(castType(field.asType())).append(") value; return;\n");
+      }
+    }
+    source.append("      default: throw new IllegalArgumentException(\"No writable field with index \" + field);\n    }\n  }\n\n");
+
+    source.append("  @Override\n  protected Object invoke(Object bean, int method, Object[] parameters) throws Exception\n  {\n    switch (method)\n    {\n");
+    for (int i = 0; i < methods.size(); i++)
+    {
+      ExecutableElement method = methods.get(i);
+      StringBuilder call = new StringBuilder("((").append(beanTypeName).append(") bean).").append(method.getSimpleName()).append('(');
+      List<? extends VariableElement> parameters = method.getParameters();
+      for (int j = 0; j < parameters.size(); j++)
+      {
+        call.append((j == 0) ? "" : ", ").append('(').append(castType(parameters.get(j).asType())).append(") parameters[").append(j).append(']');
+      }
+      call.append(')');
+
+      source.append("      case ").append(i).append(": ");
+      if (method.getReturnType().getKind() == TypeKind.VOID)
+      {
+        source.append(call).append("; return null;\n");
+      }
+      else
+      {
+        source.append("return ").append(call).append(";\n");
+      }
+    }
+    source.append("      default: throw new IllegalArgumentException(\"No method with index \" + method);\n    }\n  }\n}\n");
+
+    try
+    {
+      JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? generatedSimpleName : packageName + "." + generatedSimpleName, beanType);
+      Writer writer = sourceFile.openWriter();
+      try
+      {
+        writer.write(source.toString());
+      }
+      finally
+      {
+        writer.close();
+      }
+    }
+    catch (IOException e)
+    {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to generate EasyBeans accessors: " + e.getMessage(), beanType);
+    }
+  }
+
+  /*
+   * Must match EasyBeanGeneratedAccessors.methodKey (canonical names of the erased parameter types).
+   */
+  String methodKey(ExecutableElement method)
+  {
+    StringBuilder key = new StringBuilder(method.getSimpleName()).append('(');
+    List<? extends VariableElement> parameters = method.getParameters();
+    for (int i = 0; i < parameters.size(); i++)
+    {
+      key.append((i == 0) ? "" : ",").append(erasure(parameters.get(i).asType()));
+    }
+    return key.append(')').toString();
+  }
+
+  String castType(TypeMirror type)
+  {
+    if (type.getKind().isPrimitive())
+    {
+      return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+    }
+    else
+    {
+      return erasure(type);
+    }
+  }
+
+  String erasure(TypeMirror type)
+  {
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  /*
+   * EasyBeans only exposes public instance members (see EasyBeanStructure and EasyBeanOpenTypeStructure).
+   */
+  static boolean isExposable(Element member)
+  {
+    Set<Modifier> modifiers = member.getModifiers();
+    return modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) && (member.getAnnotation(EasyBeanTransient.class) == null);
+  }
+
+  boolean isReachable(ExecutableElement method, PackageElement fromPackage)
+  {
+    if (!isReachable(method.getReturnType(), fromPackage))
+    {
+      return false;
+    }
+
+    for (VariableElement parameter : method.getParameters())
+    {
+      if (!isReachable(parameter.asType(), fromPackage))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * If the (erased) type can be referenced from a class in the given package. Protected nested classes are only reachable
+   * from their own package since the generated class doesn't extend anything they're nested in.
+   */
+  boolean isReachable(TypeMirror type, PackageElement fromPackage)
+  {
+    TypeMirror erasedType = processingEnv.getTypeUtils().erasure(type);
+    if (erasedType.getKind() == TypeKind.ARRAY)
+    {
+      return isReachable(((ArrayType) erasedType).getComponentType(), fromPackage);
+    }
+    else if (erasedType.getKind() != TypeKind.DECLARED)
+    {
+      return true;
+    }
+
+    Element element = ((DeclaredType) erasedType).asElement();
+    while (element instanceof TypeElement)
+    {
+      Set<Modifier> modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(element).equals(fromPackage)))
+      {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
+  }
+
+  /*
+   * The generated class lives in the same package so only private classes (or classes nested in private classes) and
+   * local or anonymous classes can't be referenced.
+   */
+  static boolean isAccessible(TypeElement type)
+  {
+    if (type.getKind() != ElementKind.CLASS)
+    {
+      return false;
+    }
+
+    Element element = type;
+    while (element instanceof TypeElement)
+    {
+      TypeElement typeElement = (TypeElement) element;
+      if (typeElement.getModifiers().contains(Modifier.PRIVATE) || (typeElement.getNestingKind() == NestingKind.LOCAL) || (typeElement.getNestingKind() == NestingKind.ANONYMOUS))
+      {
+        return false;
+      }
+      element = typeElement.getEnclosingElement();
+    }
+    return true;
+  }
+}
@@ -0,0 +1,111 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestAccessorBackend
+{
+  @Test
+  public void testSelectedBackend() throws Exception
+  {
+    if ("reflection".equalsIgnoreCase(System.getProperty(AccessorBackend.ACCESSORS_PROPERTY)))
+    {
+      assertTrue(AccessorBackend.backend instanceof ReflectionAccessorBackend);
+    }
+    else
+    {
+      assertTrue(AccessorBackend.backend instanceof LambdaAccessorBackend);
+    }
+    testBackend(AccessorBackend.backend);
+  }
+
+  @Test
+  public void testLambdaBackend() throws Exception
+  {
+    testBackend(new LambdaAccessorBackend());
+  }
+
+  @Test
+  public void testReflectionBackend() throws Exception
+  {
+    testBackend(new ReflectionAccessorBackend());
+  }
+
+  @Test
+  public void testNonPublicClass() throws Exception
+  {
+    Getter getter = AccessorBackend.backend.getter(HiddenBean.class.getMethod("getName"));
+    assertEquals("HIDDEN", getter.get(new HiddenBean()));
+  }
+
+  void testBackend(AccessorBackend backend) throws Exception
+  {
+    AccessorBean bean = new AccessorBean();
+
+    Getter getter = backend.getter(AccessorBean.class.getMethod("getCount"));
+    Setter setter = backend.setter(AccessorBean.class.getMethod("setCount", int.class));
+    setter.set(bean, 42);
+    assertEquals(42, getter.get(bean));
+
+    Getter fieldGetter = backend.getter(AccessorBean.class.getField("name"));
+    Setter fieldSetter = backend.setter(AccessorBean.class.getField("name"));
+    fieldSetter.set(bean, "NAME");
+    assertEquals("NAME", fieldGetter.get(bean));
+
+    Invoker invoker = backend.invoker(AccessorBean.class.getMethod("add", int.class, long.class));
+    assertEquals(45L, invoker.invoke(bean, new Object[] {1, 2L}));
+
+    Invoker voidInvoker = backend.invoker(AccessorBean.class.getMethod("reset"));
+    assertNull(voidInvoker.invoke(bean, new Object[0]));
+    assertEquals(0, getter.get(bean));
+
+    try
+    {
+      backend.getter(AccessorBean.class.getMethod("getFailure")).get(bean);
+      fail("Expected exception from getter.");
+    }
+    catch (Exception e)
+    {}
+  }
+
+  public static class AccessorBean
+  {
+    public String name;
+
+    private int count;
+
+    public int getCount()
+    {
+      return count;
+    }
+
+    public void setCount(int count)
+    {
+      this.count = count;
+    }
+
+    public long add(int a, long b)
+    {
+      return count + a + b;
+    }
+
+    public void reset()
+    {
+      count = 0;
+    }
+
+    public String getFailure()
+    {
+      throw new IllegalStateException("FAILURE");
+    }
+  }
+
+  private static class HiddenBean
+  {
+    public String getName()
+    {
+      return "HIDDEN";
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestAsyncNotifications
+{
+  @Test
+  public void testDropOldest() throws Exception
+  {
+    DropOldestSender sender = new DropOldestSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    BlockingListener listener = new BlockingListener(3);
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notify("TEST", "1");
+    assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+
+    sender.notifier.notify("TEST", "2");
+    sender.notifier.notify("TEST", "3");
+    sender.notifier.notify("TEST", "4");
+    sender.notifier.notify("TEST", "5");
+
+    assertEquals(2, wrapper.getAttribute("NotificationQueueDepth"));
+    assertEquals(2, wrapper.getAttribute("NotificationQueueCapacity"));
+    assertEquals(2L, wrapper.getAttribute("NotificationsDropped"));
+    assertEquals(5L, wrapper.getAttribute("NotificationsPublished"));
+
+    listener.release.countDown();
+    assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+    assertEquals("1", listener.messages.get(0));
+    assertEquals("4", listener.messages.get(1));
+    assertEquals("5", listener.messages.get(2));
+    assertEquals(0, wrapper.getNotificationQueueDepth());
+
+    wrapper.unregister();
+  }
+
+  @Test
+  public void testDropNewest() throws Exception
+  {
+    DropNewestSender sender = new DropNewestSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    BlockingListener listener = new BlockingListener(3);
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notify("TEST", "1");
+    assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+
+    sender.notifier.notify("TEST", "2");
+    sender.notifier.notify("TEST", "3");
+    sender.notifier.notify("TEST", "4");
+    assertEquals(1, wrapper.getNotificationsDropped());
+
+    listener.release.countDown();
+    assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+    assertEquals("1", listener.messages.get(0));
+    assertEquals("2", listener.messages.get(1));
+    assertEquals("3", listener.messages.get(2));
+
+    wrapper.unregister();
+  }
+
+  @Test
+  public void testBlockedPublisherReleasedOnStop() throws Exception
+  {
+    final BlockSender sender = new BlockSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    BlockingListener listener = new BlockingListener(1);
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notify("TEST", "1");
+    assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+    sender.notifier.notify("TEST", "2");
+
+    Thread publisher = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        sender.notifier.notify("TEST", "3");
+      }
+    });
+    publisher.start();
+    for (int i = 0; (i < 100) && (publisher.getState() != Thread.State.WAITING); i++)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(Thread.State.WAITING, publisher.getState());
+
+    wrapper.unregister();
+    publisher.join(5000);
+    assertFalse(publisher.isAlive());
+    assertEquals(0, wrapper.getNotificationQueueDepth());
+    assertEquals(2L, wrapper.getNotificationsDropped());
+  }
+
+  @Test
+  public void testDispatcherExitsWhenListenerSwallowsInterrupt() throws Exception
+  {
+    BlockSender sender = new BlockSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    BlockingListener listener = new BlockingListener(1);
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notify("TEST", "1");
+    assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+
+    // The listener swallows the interrupt stop sends its dispatcher thread
+    wrapper.unregister();
+    listener.thread.join(5000);
+    assertFalse(listener.thread.isAlive());
+  }
+
+  @Test
+  public void testSynchronousWithoutAnnotation() throws Exception
+  {
+    SyncSender sender = new SyncSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    BlockingListener listener = new BlockingListener(1);
+    listener.release.countDown();
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notify("TEST", "1");
+    assertEquals(0, listener.received.getCount());
+    assertEquals(Thread.currentThread(), listener.thread);
+  }
+
+  static class BlockingListener implements NotificationListener
+  {
+    final CountDownLatch entered = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final CountDownLatch received;
+
+    final List<String> messages = new ArrayList<String>();
+
+    Thread thread;
+
+    BlockingListener(int expected)
+    {
+      received = new CountDownLatch(expected);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback)
+    {
+      thread = Thread.currentThread();
+      entered.countDown();
+      try
+      {
+        release.await();
+      }
+      catch (InterruptedException e)
+      {}
+
+      synchronized (messages)
+      {
+        messages.add(notification.getMessage());
+      }
+      received.countDown();
+    }
+  }
+
+  @EasyBeanAsyncNotifications(bufferSize = 2, overflowPolicy = NotificationOverflowPolicy.DROP_OLDEST)
+  public static class DropOldestSender implements EasyBeansNotifierUser
+  {
+    EasyBeansNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = easyBeansNotifier;
+    }
+  }
+
+  @EasyBeanAsyncNotifications(bufferSize = 2, overflowPolicy = NotificationOverflowPolicy.DROP_NEWEST)
+  public static class DropNewestSender implements EasyBeansNotifierUser
+  {
+    EasyBeansNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = easyBeansNotifier;
+    }
+  }
+
+  @EasyBeanAsyncNotifications(bufferSize = 1, overflowPolicy = NotificationOverflowPolicy.BLOCK)
+  public static class BlockSender implements EasyBeansNotifierUser
+  {
+    EasyBeansNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = easyBeansNotifier;
+    }
+  }
+
+  public static class SyncSender implements EasyBeansNotifierUser
+  {
+    EasyBeansNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = easyBeansNotifier;
+    }
+  }
+}
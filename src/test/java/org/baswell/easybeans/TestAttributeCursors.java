@@ -0,0 +1,218 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanOperationInfo;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestAttributeCursors
+{
+  static final String[] OPEN_SIGNATURE = new String[0];
+
+  static final String[] FETCH_SIGNATURE = new String[] {long.class.getName(), int.class.getName()};
+
+  @Test
+  public void testMapCursor() throws Exception
+  {
+    LargeBean bean = new LargeBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Set<String> operationNames = new HashSet<String>();
+    for (MBeanOperationInfo operationInfo : wrapper.getMBeanInfo().getOperations())
+    {
+      operationNames.add(operationInfo.getName());
+    }
+    assertTrue(operationNames.contains("openEntriesCursor"));
+    assertTrue(operationNames.contains("fetchEntriesCursor"));
+    assertTrue(operationNames.contains("closeCursor"));
+    assertFalse(operationNames.contains("openSmallCursor"));
+
+    Long cursor = (Long)wrapper.invoke("openEntriesCursor", new Object[0], OPEN_SIGNATURE);
+    Set<String> keys = new HashSet<String>();
+    TabularData page;
+    do
+    {
+      page = (TabularData)wrapper.invoke("fetchEntriesCursor", new Object[] {cursor, 300}, FETCH_SIGNATURE);
+      assertTrue(page.size() <= 300);
+      for (Object row : page.values())
+      {
+        CompositeData compositeData = (CompositeData)row;
+        assertEquals(bean.entries.get(compositeData.get("key")), compositeData.get("value"));
+        keys.add((String)compositeData.get("key"));
+      }
+    }
+    while (page.size() == 300);
+    assertEquals(bean.entries.keySet(), keys);
+
+    wrapper.invoke("closeCursor", new Object[] {cursor}, new String[] {long.class.getName()});
+    try
+    {
+      wrapper.invoke("fetchEntriesCursor", new Object[] {cursor, 300}, FETCH_SIGNATURE);
+      fail();
+    }
+    catch (RuntimeException e)
+    {}
+  }
+
+  @Test
+  public void testArrayCursors() throws Exception
+  {
+    LargeBean bean = new LargeBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Long cursor = (Long)wrapper.invoke("openNamesCursor", new Object[0], OPEN_SIGNATURE);
+    List<String> names = new ArrayList<String>();
+    String[] page;
+    while ((page = (String[])wrapper.invoke("fetchNamesCursor", new Object[] {cursor, 64}, FETCH_SIGNATURE)).length > 0)
+    {
+      for (String name : page)
+      {
+        names.add(name);
+      }
+    }
+    assertEquals(bean.names, names);
+
+    cursor = (Long)wrapper.invoke("openSamplesCursor", new Object[0], OPEN_SIGNATURE);
+    assertArrayEquals(new int[] {0, 1, 2}, (int[])wrapper.invoke("fetchSamplesCursor", new Object[] {cursor, 3}, FETCH_SIGNATURE));
+    assertArrayEquals(new int[] {3, 4}, (int[])wrapper.invoke("fetchSamplesCursor", new Object[] {cursor, 3}, FETCH_SIGNATURE));
+    assertEquals(0, ((int[])wrapper.invoke("fetchSamplesCursor", new Object[] {cursor, 3}, FETCH_SIGNATURE)).length);
+
+    // A cursor of one attribute can't be fetched through another
+    try
+    {
+      wrapper.invoke("fetchNamesCursor", new Object[] {cursor, 3}, FETCH_SIGNATURE);
+      fail();
+    }
+    catch (RuntimeException e)
+    {}
+  }
+
+  @Test
+  public void testLimitedPrimitiveSpecializedCursor() throws Exception
+  {
+    LargeBean bean = new LargeBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Long cursor = (Long)wrapper.invoke("openSpecializedCursor", new Object[0], OPEN_SIGNATURE);
+    List<Integer> values = new ArrayList<Integer>();
+    int[] page;
+    while ((page = (int[])wrapper.invoke("fetchSpecializedCursor", new Object[] {cursor, 64}, FETCH_SIGNATURE)).length > 0)
+    {
+      assertTrue(page.length <= 10);
+      for (int value : page)
+      {
+        values.add(value);
+      }
+    }
+    assertEquals(100, values.size());
+    for (int i = 0; i < values.size(); i++)
+    {
+      assertEquals(i, values.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testCursorLimits() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new LargeBean());
+
+    List<Long> cursors = new ArrayList<Long>();
+    for (int i = 0; i < AttributeCursor.MAX_OPEN_CURSORS; i++)
+    {
+      cursors.add((Long)wrapper.invoke("openNamesCursor", new Object[0], OPEN_SIGNATURE));
+    }
+
+    try
+    {
+      wrapper.invoke("openNamesCursor", new Object[0], OPEN_SIGNATURE);
+      fail();
+    }
+    catch (RuntimeException e)
+    {
+      assertTrue(e.getMessage().contains("Too many open cursors"));
+    }
+
+    wrapper.invoke("closeCursor", new Object[] {cursors.get(0)}, new String[] {long.class.getName()});
+    assertNotNull(wrapper.invoke("openNamesCursor", new Object[0], OPEN_SIGNATURE));
+
+    try
+    {
+      wrapper.invoke("fetchNamesCursor", new Object[] {cursors.get(1), null}, FETCH_SIGNATURE);
+      fail();
+    }
+    catch (RuntimeException e)
+    {
+      assertTrue(e.getMessage().contains("Expected parameter 2 to be of type Integer"));
+    }
+
+    try
+    {
+      wrapper.invoke("fetchNamesCursor", new Object[] {cursors.get(1)}, FETCH_SIGNATURE);
+      fail();
+    }
+    catch (RuntimeException e)
+    {
+      assertTrue(e.getMessage().contains("Expected 2 parameter(s) but got 1"));
+    }
+
+    wrapper.register();
+    wrapper.unregister();
+    assertTrue(wrapper.cursors().isEmpty());
+  }
+
+  @Test(expected = InvalidEasyBeanAnnotation.class)
+  public void testInvalidCursor() throws Exception
+  {
+    new EasyBeanWrapper(new InvalidBean());
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class LargeBean
+  {
+    @EasyBeanAttribute(cursor = true)
+    public Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+
+    @EasyBeanAttribute(cursor = true)
+    public List<String> names = new ArrayList<String>();
+
+    @EasyBeanAttribute(cursor = true)
+    public int[] samples = new int[] {0, 1, 2, 3, 4};
+
+    @EasyBeanPrimitiveArray
+    @EasyBeanAttribute(cursor = true, maxElements = 10)
+    public TestOpenTypeConverter.IntList specialized;
+
+    public List<String> small = new ArrayList<String>();
+
+    public LargeBean()
+    {
+      for (int i = 0; i < 10000; i++)
+      {
+        entries.put("key" + i, i);
+        names.add("name" + i);
+      }
+
+      int[] values = new int[100];
+      for (int i = 0; i < values.length; i++)
+      {
+        values[i] = i;
+      }
+      specialized = new TestOpenTypeConverter.IntList(values);
+    }
+  }
+
+  public static class InvalidBean
+  {
+    @EasyBeanAttribute(cursor = true)
+    public int count;
+  }
+}
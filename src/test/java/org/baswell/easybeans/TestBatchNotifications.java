@@ -0,0 +1,102 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestBatchNotifications
+{
+  @Test
+  public void testBatch() throws Exception
+  {
+    BufferedSender sender = new BufferedSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    CollectingListener batchListener = new CollectingListener(1);
+    CollectingListener listener = new CollectingListener(3);
+    wrapper.addNotificationListener(batchListener, new EasyBeansBatchFilter(), null);
+    wrapper.addNotificationListener(listener, null, null);
+
+    sender.notifier.notifyBatch("TEST", Arrays.asList("1", "2", "3"));
+
+    assertEquals(3, listener.notifications.size());
+    assertEquals("1", listener.notifications.get(0).getMessage());
+    assertEquals("3", listener.notifications.get(2).getMessage());
+    assertEquals(listener.notifications.get(0).getSequenceNumber() + 2, listener.notifications.get(2).getSequenceNumber());
+
+    assertEquals(1, batchListener.notifications.size());
+    Notification batch = batchListener.notifications.get(0);
+    assertEquals(EasyBeansBatchFilter.BATCH_NOTIFICATION_TYPE, batch.getType());
+    Notification[] entries = (Notification[]) batch.getUserData();
+    assertEquals(3, entries.length);
+    assertSame(listener.notifications.get(1), entries[1]);
+  }
+
+  @Test
+  public void testBuffered() throws Exception
+  {
+    BufferedSender sender = new BufferedSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    CollectingListener batchListener = new CollectingListener(3);
+    wrapper.addNotificationListener(batchListener, new EasyBeansBatchFilter(), null);
+
+    sender.notifier.notifyBuffered("TEST", "1");
+    sender.notifier.notifyBuffered("TEST", "2");
+    assertEquals(0, batchListener.notifications.size());
+    sender.notifier.notifyBuffered("TEST", "3");
+    assertEquals(1, batchListener.notifications.size());
+    assertEquals(3, ((Notification[]) batchListener.notifications.get(0).getUserData()).length);
+
+    sender.notifier.notifyBuffered("TEST", "4");
+    sender.notifier.flushBufferedNotifications();
+    assertEquals(2, batchListener.notifications.size());
+
+    sender.notifier.notifyBuffered("TEST", "5");
+    assertTrue(batchListener.received.await(5, TimeUnit.SECONDS));
+    Notification[] entries = (Notification[]) batchListener.notifications.get(2).getUserData();
+    assertEquals("5", entries[0].getMessage());
+
+    wrapper.unregister();
+  }
+
+  static class CollectingListener implements NotificationListener
+  {
+    final List<Notification> notifications = new ArrayList<Notification>();
+
+    final CountDownLatch received;
+
+    CollectingListener(int expected)
+    {
+      received = new CountDownLatch(expected);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback)
+    {
+      synchronized (notifications)
+      {
+        notifications.add(notification);
+      }
+      received.countDown();
+    }
+  }
+
+  @EasyBeanNotificationBuffer(size = 3, flushMillis = 200)
+  public static class BufferedSender implements EasyBeansNotifierUser
+  {
+    EasyBeansExtendedNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = (EasyBeansExtendedNotifier)easyBeansNotifier;
+    }
+  }
+}
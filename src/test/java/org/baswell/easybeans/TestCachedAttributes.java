@@ -0,0 +1,112 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.Attribute;
+
+import static org.junit.Assert.*;
+
+public class TestCachedAttributes
+{
+  @Test
+  public void testCachedAttribute() throws Exception
+  {
+    CachedBean bean = new CachedBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    assertEquals(1, wrapper.getAttribute("Computed"));
+    assertEquals(1, wrapper.getAttribute("Computed"));
+    assertEquals(1, wrapper.getCachedAttributeMisses());
+    assertEquals(1, wrapper.getCachedAttributeHits());
+
+    wrapper.invalidateCachedAttribute("Computed");
+    assertEquals(2, wrapper.getAttribute("Computed"));
+
+    assertEquals(1, wrapper.getAttribute("Uncached"));
+    assertEquals(2, wrapper.getAttribute("Uncached"));
+    assertEquals(2, wrapper.getCachedAttributeMisses());
+  }
+
+  @Test
+  public void testExpiration() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new CachedBean());
+
+    assertEquals("A", wrapper.getAttribute("Name"));
+    wrapper.setAttribute(new Attribute("Name", "B"));
+    assertEquals("B", wrapper.getAttribute("Name"));
+
+    ((CachedBean)wrapper.bean).name = "C";
+    assertEquals("B", wrapper.getAttribute("Name"));
+    wrapper.invalidateCachedAttribute("Name");
+    assertEquals("C", wrapper.getAttribute("Name"));
+
+    // Only ever waits longer than the cache time, so it can't fail on a slow machine
+    assertEquals("A", wrapper.getAttribute("Expiring"));
+    ((CachedBean)wrapper.bean).expiring = "B";
+    Thread.sleep(20);
+    assertEquals("B", wrapper.getAttribute("Expiring"));
+  }
+
+  @Test
+  public void testNotifierInvalidation() throws Exception
+  {
+    CachedNotifierBean bean = new CachedNotifierBean();
+    new EasyBeanNotificationWrapper(bean);
+
+    assertEquals(1, bean.notifierWrapper().getAttribute("Computed"));
+    assertEquals(1, bean.notifierWrapper().getAttribute("Computed"));
+    bean.notifier.invalidateCachedAttributes();
+    assertEquals(2, bean.notifierWrapper().getAttribute("Computed"));
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class CachedBean
+  {
+    int computed;
+
+    int uncached;
+
+    @EasyBeanAttribute(cacheMillis = 60000)
+    public String name = "A";
+
+    @EasyBeanAttribute(cacheMillis = 1)
+    public String expiring = "A";
+
+    @EasyBeanAttribute(cacheMillis = 60000)
+    public int getComputed()
+    {
+      return ++computed;
+    }
+
+    public int getUncached()
+    {
+      return ++uncached;
+    }
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class CachedNotifierBean implements EasyBeansNotifierUser
+  {
+    EasyBeansExtendedNotifier notifier;
+
+    int computed;
+
+    @EasyBeanAttribute(cacheMillis = 60000)
+    public int getComputed()
+    {
+      return ++computed;
+    }
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = (EasyBeansExtendedNotifier)easyBeansNotifier;
+    }
+
+    EasyBeanWrapper notifierWrapper()
+    {
+      return (EasyBeanWrapper)notifier;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestConversionLimits
+{
+  @Test
+  public void testTruncation() throws Exception
+  {
+    LimitedBean bean = new LimitedBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Set<String> attributeNames = new HashSet<String>();
+    for (MBeanAttributeInfo attributeInfo : wrapper.getMBeanInfo().getAttributes())
+    {
+      attributeNames.add(attributeInfo.getName());
+    }
+    assertTrue(attributeNames.contains("FirstTruncation"));
+    assertTrue(attributeNames.contains("NestedTruncation"));
+    assertFalse(attributeNames.contains("UnlimitedTruncation"));
+
+    CompositeData truncation = (CompositeData)wrapper.getAttribute("FirstTruncation");
+    assertEquals(0L, truncation.get("originalSize"));
+    assertEquals(false, truncation.get("truncated"));
+
+    assertArrayEquals(new Integer[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, (Integer[])wrapper.getAttribute("First"));
+    truncation = (CompositeData)wrapper.getAttribute("FirstTruncation");
+    assertEquals(1000L, truncation.get("originalSize"));
+    assertEquals(10L, truncation.get("size"));
+    assertEquals(true, truncation.get("truncated"));
+
+    assertArrayEquals(new Integer[] {995, 996, 997, 998, 999}, (Integer[])wrapper.getAttribute("Last"));
+    assertArrayEquals(new String[] {"c", "d"}, (String[])wrapper.getAttribute("LastNames"));
+
+    int[] sample = (int[])wrapper.getAttribute("Sample");
+    assertEquals(10, sample.length);
+    for (int i = 1; i < sample.length; i++)
+    {
+      assertTrue(sample[i] > sample[i - 1]);
+    }
+
+    assertEquals(5, ((TabularData)wrapper.getAttribute("Table")).size());
+    assertEquals(100L, ((CompositeData)wrapper.getAttribute("TableTruncation")).get("originalSize"));
+
+    String[][] nested = (String[][])wrapper.getAttribute("Nested");
+    assertEquals(2, nested.length);
+    assertNull(nested[0]);
+    truncation = (CompositeData)wrapper.getAttribute("NestedTruncation");
+    assertEquals(2L, truncation.get("originalSize"));
+    assertEquals(2L, truncation.get("size"));
+    assertEquals(true, truncation.get("truncated"));
+
+    bean.first = new ArrayList<Integer>(Arrays.asList(1, 2, 3));
+    assertEquals(3, ((Integer[])wrapper.getAttribute("First")).length);
+    assertEquals(false, ((CompositeData)wrapper.getAttribute("FirstTruncation")).get("truncated"));
+
+    assertEquals(1000, ((String[])wrapper.getAttribute("Unlimited")).length);
+  }
+
+  @Test
+  public void testGlobalLimits()
+  {
+    assertNull(ConversionLimits.loadGlobal(null, null, "reservoir_sample"));
+
+    ConversionLimits limits = ConversionLimits.loadGlobal("100", null, "reservoir");
+    assertEquals(100, limits.maxElements);
+    assertEquals(Integer.MAX_VALUE, limits.maxDepth);
+    assertEquals(EasyBeanTruncationPolicy.TRUNCATE_TAIL, limits.policy);
+
+    limits = ConversionLimits.loadGlobal(" 100 ", "3", "truncate_head");
+    assertEquals(100, limits.maxElements);
+    assertEquals(3, limits.maxDepth);
+    assertEquals(EasyBeanTruncationPolicy.TRUNCATE_HEAD, limits.policy);
+
+    for (String maxElements : new String[] {"10k", "0", "-5"})
+    {
+      try
+      {
+        ConversionLimits.loadGlobal(maxElements, null, null);
+        fail();
+      }
+      catch (IllegalArgumentException e)
+      {
+        assertTrue(e.getMessage().contains(ConversionLimits.MAX_ELEMENTS_PROPERTY));
+      }
+    }
+  }
+
+  @Test
+  public void testKeep()
+  {
+    final List<Integer> values = new ArrayList<Integer>();
+    for (int i = 0; i < 1000; i++)
+    {
+      values.add(i);
+    }
+    Iterable<Integer> iterable = new Iterable<Integer>()
+    {
+      public Iterator<Integer> iterator()
+      {
+        return values.iterator();
+      }
+    };
+
+    Truncation truncation = new Truncation();
+    assertEquals(Arrays.asList(0, 1, 2), Arrays.asList(new ConversionLimits(3, Integer.MAX_VALUE, EasyBeanTruncationPolicy.TRUNCATE_TAIL).keep(iterable, truncation, true)));
+    assertEquals(1000L, truncation.originalSize);
+    assertEquals(Arrays.asList(997, 998, 999), Arrays.asList(new ConversionLimits(3, Integer.MAX_VALUE, EasyBeanTruncationPolicy.TRUNCATE_HEAD).keep(iterable, truncation, true)));
+    assertEquals(values, Arrays.asList(new ConversionLimits(1000, Integer.MAX_VALUE, EasyBeanTruncationPolicy.TRUNCATE_HEAD).keep(iterable, truncation, true)));
+
+    Object[] sample = new ConversionLimits(100, Integer.MAX_VALUE, EasyBeanTruncationPolicy.RESERVOIR_SAMPLE).keep(iterable, truncation, true);
+    assertEquals(100, new HashSet<Object>(Arrays.asList(sample)).size());
+    assertEquals(100L, truncation.size);
+
+    assertNull(new ConversionLimits(10, Integer.MAX_VALUE, EasyBeanTruncationPolicy.TRUNCATE_TAIL).keptIndexes(10));
+    int[] indexes = new ConversionLimits(10, Integer.MAX_VALUE, EasyBeanTruncationPolicy.RESERVOIR_SAMPLE).keptIndexes(1000);
+    assertEquals(10, new HashSet<Integer>(toList(indexes)).size());
+  }
+
+  @Test(expected = InvalidEasyBeanAnnotation.class)
+  public void testInvalidLimits() throws Exception
+  {
+    new EasyBeanWrapper(new InvalidBean());
+  }
+
+  static List<Integer> toList(int[] values)
+  {
+    List<Integer> list = new ArrayList<Integer>();
+    for (int value : values)
+    {
+      list.add(value);
+    }
+    return list;
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class LimitedBean
+  {
+    @EasyBeanAttribute(maxElements = 10)
+    public List<Integer> first = new ArrayList<Integer>();
+
+    @EasyBeanAttribute(maxElements = 5, truncation = EasyBeanTruncationPolicy.TRUNCATE_HEAD)
+    public Set<Integer> last = new LinkedHashSet<Integer>();
+
+    @EasyBeanAttribute(maxElements = 2, truncation = EasyBeanTruncationPolicy.TRUNCATE_HEAD)
+    public String[] lastNames = new String[] {"a", "b", "c", "d"};
+
+    @EasyBeanAttribute(maxElements = 10, truncation = EasyBeanTruncationPolicy.RESERVOIR_SAMPLE)
+    public int[] sample = new int[1000];
+
+    @EasyBeanAttribute(maxElements = 5)
+    public Map<String, Integer> table = new HashMap<String, Integer>();
+
+    @EasyBeanAttribute(maxDepth = 1)
+    public List<List<String>> nested = new ArrayList<List<String>>();
+
+    public List<String> unlimited = new ArrayList<String>();
+
+    public LimitedBean()
+    {
+      for (int i = 0; i < 1000; i++)
+      {
+        first.add(i);
+        last.add(i);
+        sample[i] = i;
+        unlimited.add("value" + i);
+      }
+
+      for (int i = 0; i < 100; i++)
+      {
+        table.put("key" + i, i);
+      }
+
+      nested.add(Arrays.asList("a", "b"));
+      nested.add(Arrays.asList("c"));
+    }
+  }
+
+  public static class InvalidBean
+  {
+    @EasyBeanAttribute(maxElements = 0)
+    public List<String> names;
+  }
+}
@@ -0,0 +1,166 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.SimpleType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestCountersAndGauges
+{
+  @Test
+  public void testAttributes() throws Exception
+  {
+    MetricsBean bean = new MetricsBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Map<String, OpenMBeanAttributeInfo> attributeInfo = new HashMap<String, OpenMBeanAttributeInfo>();
+    for (MBeanAttributeInfo info : wrapper.getMBeanInfo().getAttributes())
+    {
+      attributeInfo.put(info.getName(), (OpenMBeanAttributeInfo)info);
+    }
+
+    assertEquals(SimpleType.LONG, attributeInfo.get("Requests").getOpenType());
+    assertEquals(SimpleType.LONG, attributeInfo.get("Errors").getOpenType());
+    assertEquals(SimpleType.DOUBLE, attributeInfo.get("Utilization").getOpenType());
+    assertEquals(SimpleType.DOUBLE, attributeInfo.get("Computed").getOpenType());
+    assertFalse(attributeInfo.get("Utilization").isWritable());
+
+    bean.requests.add(5);
+    bean.errors.increment();
+    bean.utilization.set(0.25);
+    assertEquals(5L, wrapper.getAttribute("Requests"));
+    assertEquals(1L, wrapper.getAttribute("Errors"));
+    assertEquals(0.25, wrapper.getAttribute("Utilization"));
+    assertEquals(42.0, wrapper.getAttribute("Computed"));
+
+    bean.requests.increment();
+    bean.errors.increment();
+    bean.errors.increment();
+    assertEquals(6L, wrapper.getAttribute("Requests"));
+    assertEquals(2L, wrapper.getAttribute("Errors"));
+    assertEquals(0L, wrapper.getAttribute("Errors"));
+  }
+
+  @Test
+  public void testContendedCounter() throws Exception
+  {
+    final EasyBeanCounter counter = new EasyBeanCounter();
+    final EasyBeanGauge gauge = new EasyBeanGauge();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 8; i++)
+    {
+      executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          for (int j = 0; j < 100000; j++)
+          {
+            counter.increment();
+            gauge.add(1);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    assertEquals(800000, counter.sum());
+    assertEquals(800000, gauge.get(), 0);
+    assertEquals(800000, counter.sumThenReset());
+    assertEquals(0, counter.sum());
+  }
+
+  @Test
+  public void testTimer() throws Exception
+  {
+    MetricsBean bean = new MetricsBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    OpenMBeanAttributeInfo info = null;
+    for (MBeanAttributeInfo attributeInfo : wrapper.getMBeanInfo().getAttributes())
+    {
+      if (attributeInfo.getName().equals("Latency"))
+      {
+        info = (OpenMBeanAttributeInfo)attributeInfo;
+      }
+    }
+    assertNotNull(info);
+    assertFalse(info.isWritable());
+    CompositeType compositeType = (CompositeType)info.getOpenType();
+    assertEquals(8, compositeType.keySet().size());
+    assertTrue(compositeType.containsKey("p999"));
+
+    for (int i = 1; i <= 1000; i++)
+    {
+      bean.latency.record(i, TimeUnit.MILLISECONDS);
+    }
+
+    CompositeData data = (CompositeData)wrapper.getAttribute("Latency");
+    assertEquals(1000L, data.get("count"));
+    assertEquals(1.0, (Double)data.get("min"), 0);
+    assertEquals(1000.0, (Double)data.get("max"), 0);
+    assertEquals(500.5, (Double)data.get("mean"), 0.001);
+    assertEquals(500, (Double)data.get("p50"), 500 * 0.016);
+    assertEquals(900, (Double)data.get("p90"), 900 * 0.016);
+    assertEquals(990, (Double)data.get("p99"), 990 * 0.016);
+    assertEquals(999, (Double)data.get("p999"), 999 * 0.016);
+
+    // Reset on read, the next read only sees what was recorded since
+    data = (CompositeData)wrapper.getAttribute("Latency");
+    assertEquals(0L, data.get("count"));
+    bean.latency.time().close();
+    data = (CompositeData)wrapper.getAttribute("Latency");
+    assertEquals(1L, data.get("count"));
+  }
+
+  @Test
+  public void testTimerBuckets()
+  {
+    long previousHighest = -1;
+    for (int i = 0; i < EasyBeanTimer.BUCKET_COUNT; i++)
+    {
+      long highest = EasyBeanTimer.bucketHighestValue(i);
+      assertTrue(highest > previousHighest);
+      assertEquals(i, EasyBeanTimer.bucketIndex(highest));
+      assertEquals(i, EasyBeanTimer.bucketIndex(previousHighest + 1));
+      previousHighest = highest;
+    }
+    assertEquals(Long.MAX_VALUE, previousHighest);
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class MetricsBean
+  {
+    public final EasyBeanCounter requests = new EasyBeanCounter();
+
+    public final EasyBeanCounter errors = new EasyBeanCounter(true);
+
+    public EasyBeanGauge utilization = new EasyBeanGauge();
+
+    public final EasyBeanTimer latency = new EasyBeanTimer(TimeUnit.MILLISECONDS, true);
+
+    public EasyBeanGauge getComputed()
+    {
+      return new EasyBeanGauge()
+      {
+        @Override
+        public double get()
+        {
+          return 42;
+        }
+      };
+    }
+  }
+}
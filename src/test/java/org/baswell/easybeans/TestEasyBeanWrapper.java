@@ -2,8 +2,17 @@ package org.baswell.easybeans;
 
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerFactory;
+import javax.management.MBeanServerNotification;
 import javax.management.MalformedObjectNameException;
+import javax.management.Notification;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -70,9 +79,79 @@ public class TestEasyBeanWrapper
 
   }
 
+  @Test
+  public void testSharedStructure()
+  {
+    EasyBeansRegistery registry = new EasyBeansRegistery();
+    long hits = registry.getStructureCacheHits();
+
+    EasyBeanWrapper wrapperOne = new EasyBeanWrapper(new AnnotatedExposureBean());
+    EasyBeanWrapper wrapperTwo = new EasyBeanWrapper(new AnnotatedExposureBean());
+
+    assertTrue(registry.getStructureCacheHits() > hits);
+    assertSame(wrapperOne.readableAttributeStructures, wrapperTwo.readableAttributeStructures);
+    assertSame(wrapperOne.writableAttributeStructures, wrapperTwo.writableAttributeStructures);
+    assertSame(wrapperOne.operationIndex, wrapperTwo.operationIndex);
+
+    EasyBeanWrapper wrapperThree = new EasyBeanWrapper(new AnnotatedExposureBean(), EasyBeanExposure.ANNOTATED);
+    assertNotSame(wrapperOne.readableAttributeStructures, wrapperThree.readableAttributeStructures);
+  }
+
+  @Test
+  public void testLazy() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new LazyBean());
+    assertFalse(wrapper.isLoaded());
+    assertEquals("lazy:name=Bean", wrapper.objectName.toString());
+
+    wrapper.register(mBeanServer);
+    assertTrue(mBeanServer.isRegistered(wrapper.objectName));
+    assertFalse(wrapper.isLoaded());
+
+    assertEquals(7, mBeanServer.getAttribute(wrapper.objectName, "Value"));
+    assertTrue(wrapper.isLoaded());
+    assertEquals(1, mBeanServer.getMBeanInfo(wrapper.objectName).getAttributes().length);
+
+    EasyBeanWrapper eagerWrapper = new EasyBeanWrapper(new AnnotatedExposureBean(), null, false);
+    assertTrue(eagerWrapper.isLoaded());
+    EasyBeanWrapper lazyWrapper = new EasyBeanWrapper(new AnnotatedExposureBean(), null, true);
+    assertFalse(lazyWrapper.isLoaded());
+    assertEquals(eagerWrapper.getMBeanInfo().getAttributes().length, lazyWrapper.getMBeanInfo().getAttributes().length);
+  }
+
+  @Test
+  public void testLazyRegistrationNotification() throws Exception
+  {
+    final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    final EasyBeanWrapper wrapper = new EasyBeanWrapper(new LazyBean());
+    final List<Integer> attributeCounts = new ArrayList<Integer>();
+    mBeanServer.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, new NotificationListener()
+    {
+      @Override
+      public void handleNotification(Notification notification, Object handback)
+      {
+        if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType()))
+        {
+          attributeCounts.add(wrapper.getMBeanInfo().getAttributes().length);
+        }
+      }
+    }, null, null);
+
+    wrapper.register(mBeanServer);
+    assertEquals(Arrays.asList(1), attributeCounts);
+  }
+
   class NameFromClassName
   {}
 
+  @EasyBean(objectName = "lazy:name=Bean", lazy = true)
+  public static class LazyBean
+  {
+    @EasyBeanAttribute
+    public int value = 7;
+  }
+
   @EasyBean(objectName = "hello:type=A,name=Bar", description = "HELLO WORLD")
   class EasyBeanAnnotated
   {}
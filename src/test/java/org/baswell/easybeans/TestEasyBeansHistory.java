@@ -0,0 +1,155 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestEasyBeansHistory
+{
+  @Test
+  public void testCompressedSeries()
+  {
+    CompressedSeries series = new CompressedSeries();
+    SortedMap<Long, Double> expected = new TreeMap<Long, Double>();
+    Random random = new Random(7);
+
+    long time = 1000000;
+    double[] specialValues = new double[] {0, -0.0, Double.NaN, Double.MAX_VALUE, Double.MIN_VALUE, Double.NEGATIVE_INFINITY, -1};
+    for (int i = 0; i < 5000; i++)
+    {
+      int gap = random.nextInt(10);
+      time += (gap == 0) ? random.nextInt(Integer.MAX_VALUE) : (gap < 5) ? 1000 : 1 + random.nextInt(5000);
+      double value = (i % 100 == 0) ? specialValues[(i / 100) % specialValues.length] : (i % 3 == 0) ? random.nextGaussian() : i / 10;
+      series.append(time, value);
+      expected.put(time, value);
+    }
+
+    assertEquals(5000, series.getSampleCount());
+    assertEquals(expected, series.read(Long.MIN_VALUE, Long.MAX_VALUE));
+
+    Long from = (Long)expected.keySet().toArray()[1500];
+    Long to = (Long)expected.keySet().toArray()[3500];
+    assertEquals(expected.subMap(from, to + 1), series.read(from, to));
+
+    series.dropBefore(to);
+    assertEquals(expected.tailMap(to), series.read(to, Long.MAX_VALUE));
+    assertTrue(series.getSampleCount() < 5000);
+  }
+
+  @Test
+  public void testCompression()
+  {
+    CompressedSeries series = new CompressedSeries();
+    long time = System.currentTimeMillis();
+    for (int i = 0; i < 6 * 60 * 60; i++)
+    {
+      series.append(time + (i * 1000), 40 + (i / 600));
+    }
+
+    // Six hours of one second samples in a few kilobytes instead of 16 bytes each
+    assertTrue(series.getCompressedSize() < 6 * 1024);
+  }
+
+  @Test
+  public void testHistory() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+
+    PoolBean pool = new PoolBean();
+    registry.register(new ObjectName("test:Name=Pool"), pool);
+
+    EasyBeansHistory history = new EasyBeansHistory(registry, 1, TimeUnit.SECONDS, 1, TimeUnit.HOURS);
+    history.track(pool, "ActiveConnections");
+    try
+    {
+      history.track(pool, "Name");
+      fail();
+    }
+    catch (IllegalArgumentException e)
+    {}
+    registry.register(new ObjectName("test:Name=History"), history);
+
+    for (int i = 0; i < 100; i++)
+    {
+      pool.activeConnections = i % 7;
+      history.sample(i * 1000L);
+    }
+
+    TabularData tabularData = (TabularData)mBeanServer.invoke(new ObjectName("test:Name=History"), "history", new Object[] {"test:Name=Pool", "ActiveConnections", 10000L, 19000L},
+        new String[] {String.class.getName(), String.class.getName(), long.class.getName(), long.class.getName()});
+    assertEquals(10, tabularData.size());
+    for (Object row : tabularData.values())
+    {
+      CompositeData compositeData = (CompositeData)row;
+      assertEquals((((Long)compositeData.get("key")) / 1000) % 7, (Double)compositeData.get("value"), 0);
+    }
+
+    assertEquals(100L, mBeanServer.getAttribute(new ObjectName("test:Name=History"), "SampleCount"));
+
+    history.untrack(pool);
+    assertEquals(0L, history.getSampleCount());
+  }
+
+  @Test
+  public void testUnregisteredBeansDropped() throws Exception
+  {
+    EasyBeansRegistery registry = new EasyBeansRegistery(MBeanServerFactory.newMBeanServer());
+    PoolBean pool = new PoolBean();
+    PoolBean otherPool = new PoolBean();
+    registry.register(new ObjectName("test:Name=Pool"), pool);
+    registry.register(new ObjectName("test:Name=OtherPool"), otherPool);
+
+    EasyBeansHistory history = new EasyBeansHistory(registry, 1, TimeUnit.SECONDS, 1, TimeUnit.HOURS);
+    history.track(pool, "ActiveConnections");
+    history.track(otherPool, "ActiveConnections");
+    history.sample(1000L);
+    assertEquals(2, history.getTrackedAttributes().size());
+
+    registry.unregister(otherPool);
+    history.sample(2000L);
+    assertEquals(Arrays.asList("test:Name=Pool#ActiveConnections"), history.getTrackedAttributes());
+    assertEquals(2L, history.getSampleCount());
+  }
+
+  @Test
+  public void testScheduledSampleTimes() throws Exception
+  {
+    EasyBeansRegistery registry = new EasyBeansRegistery(MBeanServerFactory.newMBeanServer());
+    PoolBean pool = new PoolBean();
+    registry.register(new ObjectName("test:Name=Pool"), pool);
+
+    EasyBeansHistory history = new EasyBeansHistory(registry, 5, TimeUnit.MILLISECONDS, 1, TimeUnit.HOURS);
+    history.track(pool, "ActiveConnections");
+    history.start();
+    Thread.sleep(200);
+    history.stop();
+
+    SortedMap<Long, Double> samples = history.recentHistory("test:Name=Pool", "ActiveConnections", 60);
+    assertTrue(samples.size() > 1);
+    long firstTime = samples.firstKey();
+    for (long time : samples.keySet())
+    {
+      assertEquals(0, (time - firstTime) % 5);
+    }
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class PoolBean
+  {
+    public int activeConnections;
+
+    public String name = "pool";
+  }
+}
@@ -0,0 +1,128 @@
+package org.baswell.easybeans;
+
+import org.baswell.easybeans.processor.EasyBeansProcessor;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.*;
+
+public class TestEasyBeansProcessor
+{
+  static final String BEAN_SOURCE =
+      "package generated.test;\n" +
+      "import org.baswell.easybeans.*;\n" +
+      "import java.util.List;\n" +
+      "@EasyBean(objectName = \"generated:name=Bean\")\n" +
+      "public class GeneratedBean\n" +
+      "{\n" +
+      "  @EasyBeanAttribute public int count = 3;\n" +
+      "  @EasyBeanAttribute public final String name = \"bean\";\n" +
+      "  List<String> items;\n" +
+      "  private long hidden;\n" +
+      "  @EasyBeanAttribute public double getRatio() { return count / 2.0; }\n" +
+      "  @EasyBeanOperation public long add(int a, long b) { return count + a + b; }\n" +
+      "  @EasyBeanOperation public void reset() { count = 0; }\n" +
+      "  public String join(String[] values, List<String> more) { return values.length + \":\" + more; }\n" +
+      "  public static class Nested\n" +
+      "  {\n" +
+      "    @EasyBeanAttribute public int value = 9;\n" +
+      "  }\n" +
+      "}\n";
+
+  static final String HIDDEN_TYPES_SOURCE =
+      "package generated.test;\n" +
+      "import org.baswell.easybeans.*;\n" +
+      "@EasyBean(objectName = \"generated:name=HiddenTypesBean\")\n" +
+      "public class HiddenTypesBean\n" +
+      "{\n" +
+      "  @EasyBeanAttribute public int count = 1;\n" +
+      "  State state;\n" +
+      "  public State publicState;\n" +
+      "  void apply(State s) {}\n" +
+      "  public void applyPublic(State s) {}\n" +
+      "  public State[] states() { return null; }\n" +
+      "  public String name() { return \"hidden\"; }\n" +
+      "  private static class State\n" +
+      "  {\n" +
+      "    public int value;\n" +
+      "  }\n" +
+      "}\n";
+
+  @Test
+  public void testGeneratedAccessors() throws Exception
+  {
+    File directory = compile("GeneratedBean", BEAN_SOURCE);
+    File sourceDirectory = new File(directory, "generated/test");
+    assertTrue(new File(sourceDirectory, "GeneratedBean" + EasyBeanGeneratedAccessors.GENERATED_CLASS_SUFFIX + ".java").exists());
+    assertTrue(new File(sourceDirectory, "GeneratedBean_Nested" + EasyBeanGeneratedAccessors.GENERATED_CLASS_SUFFIX + ".java").exists());
+
+    URLClassLoader classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+    Class beanClass = classLoader.loadClass("generated.test.GeneratedBean");
+    Object bean = beanClass.newInstance();
+
+    assertNotNull(EasyBeanGeneratedAccessors.forClass(beanClass));
+    assertSame(EasyBeanGeneratedAccessors.class, AccessorBackend.bindGetter(beanClass.getField("count")).getClass().getEnclosingClass());
+    assertSame(EasyBeanGeneratedAccessors.class, AccessorBackend.bindInvoker(beanClass.getMethod("add", int.class, long.class)).getClass().getEnclosingClass());
+
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+    assertEquals(3, wrapper.getAttribute("Count"));
+    assertEquals("bean", wrapper.getAttribute("Name"));
+    assertEquals(1.5, wrapper.getAttribute("Ratio"));
+    wrapper.setAttribute(new Attribute("Count", 5));
+    assertEquals(5, wrapper.getAttribute("Count"));
+    assertEquals(11L, wrapper.invoke("add", new Object[] {2, 4L}, new String[] {"int", "long"}));
+    wrapper.invoke("reset", new Object[0], new String[0]);
+    assertEquals(0, wrapper.getAttribute("Count"));
+
+    EasyBeanWrapper nestedWrapper = new EasyBeanWrapper(classLoader.loadClass("generated.test.GeneratedBean$Nested").newInstance());
+    assertEquals(9, nestedWrapper.getAttribute("Value"));
+  }
+
+  @Test
+  public void testUnreachableMemberTypes() throws Exception
+  {
+    File directory = compile("HiddenTypesBean", HIDDEN_TYPES_SOURCE);
+
+    URLClassLoader classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+    Class beanClass = classLoader.loadClass("generated.test.HiddenTypesBean");
+    Class stateClass = classLoader.loadClass("generated.test.HiddenTypesBean$State");
+    assertNotNull(EasyBeanGeneratedAccessors.forClass(beanClass));
+
+    assertNotNull(EasyBeanGeneratedAccessors.getter(beanClass.getField("count")));
+    assertNotNull(EasyBeanGeneratedAccessors.invoker(beanClass.getMethod("name")));
+    assertNull(EasyBeanGeneratedAccessors.getter(beanClass.getField("publicState")));
+    assertNull(EasyBeanGeneratedAccessors.invoker(beanClass.getMethod("applyPublic", stateClass)));
+    assertNull(EasyBeanGeneratedAccessors.invoker(beanClass.getMethod("states")));
+
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(beanClass.newInstance());
+    assertEquals(1, wrapper.getAttribute("Count"));
+  }
+
+  /*
+   * Compiles the given source with the processor. Fails if it (or the generated source) doesn't compile.
+   */
+  static File compile(String className, String source) throws Exception
+  {
+    File directory = File.createTempFile("easybeans", "processor");
+    directory.delete();
+    File sourceDirectory = new File(directory, "generated/test");
+    sourceDirectory.mkdirs();
+    File sourceFile = new File(sourceDirectory, className + ".java");
+    FileWriter writer = new FileWriter(sourceFile);
+    writer.write(source);
+    writer.close();
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    String classPath = new File(EasyBeanWrapper.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    int result = compiler.run(null, null, null, "-classpath", classPath, "-processor", EasyBeansProcessor.class.getName(), "-d", directory.getPath(), "-s", directory.getPath(), sourceFile.getPath());
+    assertEquals(0, result);
+    return directory;
+  }
+}
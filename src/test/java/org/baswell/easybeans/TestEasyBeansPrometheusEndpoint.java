@@ -0,0 +1,147 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestEasyBeansPrometheusEndpoint
+{
+  @Test
+  public void testScrape() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    PoolBean orders = new PoolBean();
+    PoolBean billing = new PoolBean();
+    registry.register(new ObjectName("com.acme:type=Pool,name=orders"), orders);
+    registry.register(new ObjectName("com.acme:type=Pool,name=\"bill\\\"ing\""), billing);
+
+    orders.activeConnections = 12;
+    orders.load = 0.5;
+    orders.queueSizes.put("inbound", 3L);
+    orders.requestTime.record(40, TimeUnit.MILLISECONDS);
+
+    EasyBeansPrometheusEndpoint endpoint = new EasyBeansPrometheusEndpoint(registry, 0);
+    String text = endpoint.scrape().toString();
+
+    assertTrue(text.contains("# TYPE com_acme_ActiveConnections untyped\n"));
+    assertTrue(text.contains("com_acme_ActiveConnections{name=\"orders\",type=\"Pool\"} 12\n"));
+    assertTrue(text.contains("com_acme_ActiveConnections{name=\"\\\"bill\\\\\\\"ing\\\"\",type=\"Pool\"} 0\n"));
+    assertTrue(text.contains("com_acme_Load{name=\"orders\",type=\"Pool\"} 0.5\n"));
+    assertTrue(text.contains("com_acme_Open{name=\"orders\",type=\"Pool\"} 1\n"));
+    assertTrue(text.contains("com_acme_QueueSizes_value{name=\"orders\",type=\"Pool\",key=\"inbound\"} 3\n"));
+    assertTrue(text.contains("com_acme_RequestTime_count{name=\"orders\",type=\"Pool\"} 1\n"));
+    assertTrue(text.contains("com_acme_RequestTime_max{name=\"orders\",type=\"Pool\"} 40\n"));
+    assertFalse(text.contains("Name"));
+
+    // Every family's samples are together
+    assertEquals(text.indexOf("com_acme_ActiveConnections{"), text.indexOf("# TYPE com_acme_ActiveConnections untyped\n") + "# TYPE com_acme_ActiveConnections untyped\n".length());
+    assertEquals(2, text.split("com_acme_ActiveConnections\\{").length - 1);
+
+    registry.unregister(billing);
+    orders.activeConnections = 13;
+    text = endpoint.scrape().toString();
+    assertEquals(1, text.split("com_acme_ActiveConnections\\{").length - 1);
+    assertTrue(text.contains("com_acme_ActiveConnections{name=\"orders\",type=\"Pool\"} 13\n"));
+  }
+
+  @Test
+  public void testCollisions() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    CollidingBean bean = new CollidingBean();
+    bean.queueSizes.put("inbound", 3L);
+    bean.shards.put(7, 2L);
+    registry.register(new ObjectName("com.acme:type=Pool,key=orders"), bean);
+
+    String text = new EasyBeansPrometheusEndpoint(registry, 0).scrape().toString();
+    assertTrue(text.contains("com_acme_QueueSizes_value{key=\"orders\",type=\"Pool\",index_key=\"inbound\"} 3\n"));
+    assertTrue(text.contains("com_acme_Shards_value{key=\"orders\",type=\"Pool\",index_key=\"7\"} 2\n"));
+    assertTrue(text.contains("com_acme_Stats_count{key=\"orders\",type=\"Pool\"} 5\n"));
+    assertTrue(text.contains("com_acme_Stats_count_{key=\"orders\",type=\"Pool\"} 9\n"));
+    assertEquals(1, text.split("com_acme_Stats_count\\{").length - 1);
+  }
+
+  @Test
+  public void testHttp() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    PoolBean pool = new PoolBean();
+    pool.activeConnections = 7;
+    registry.register(new ObjectName("com.acme:type=Pool"), pool);
+
+    EasyBeansPrometheusEndpoint endpoint = new EasyBeansPrometheusEndpoint(registry, new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), "/metrics");
+    endpoint.start();
+    try
+    {
+      HttpURLConnection connection = (HttpURLConnection)new URL("http://127.0.0.1:" + endpoint.getPort() + "/metrics").openConnection();
+      assertEquals(200, connection.getResponseCode());
+      assertEquals(EasyBeansPrometheusEndpoint.CONTENT_TYPE, connection.getContentType());
+
+      InputStream inputStream = connection.getInputStream();
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      byte[] bytes = new byte[1024];
+      int read;
+      while ((read = inputStream.read(bytes)) != -1)
+      {
+        body.write(bytes, 0, read);
+      }
+      inputStream.close();
+
+      assertTrue(body.toString("UTF-8").contains("com_acme_ActiveConnections{type=\"Pool\"} 7\n"));
+    }
+    finally
+    {
+      endpoint.stop();
+    }
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class PoolBean
+  {
+    public int activeConnections;
+
+    public double load;
+
+    public boolean open = true;
+
+    public String name = "pool";
+
+    public Map<String, Long> queueSizes = new HashMap<String, Long>();
+
+    public final EasyBeanTimer requestTime = new EasyBeanTimer();
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class CollidingBean
+  {
+    public Map<String, Long> queueSizes = new HashMap<String, Long>();
+
+    public Map<Integer, Long> shards = new HashMap<Integer, Long>();
+
+    public Stats stats = new Stats();
+
+    public int stats_count = 5;
+  }
+
+  @EasyBeanOpenType
+  public static class Stats
+  {
+    public int count = 9;
+  }
+}
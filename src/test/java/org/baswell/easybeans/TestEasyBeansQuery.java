@@ -0,0 +1,133 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.Assert.*;
+
+public class TestEasyBeansQuery
+{
+  static final String[] SIGNATURE = new String[] {String.class.getName(), String[].class.getName()};
+
+  @Test
+  public void testRead() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    for (int i = 0; i < 10; i++)
+    {
+      PoolBean pool = new PoolBean();
+      pool.activeConnections = i;
+      registry.register(new ObjectName("com.acme:type=Pool,name=pool" + i), pool);
+    }
+    registry.register(new ObjectName("com.acme:type=Cache"), new PoolBean());
+
+    ObjectName queryName = new ObjectName("org.baswell.easybeans:Name=EasyBeansQuery");
+    registry.register(new EasyBeansQuery(registry));
+    assertTrue(mBeanServer.isRegistered(queryName));
+
+    TabularData tabularData = (TabularData)mBeanServer.invoke(queryName, "read", new Object[] {"com.acme:type=Pool,*", new String[] {"ActiveConnections", "Name", "Missing"}}, SIGNATURE);
+    assertEquals(30, tabularData.size());
+
+    CompositeData row = tabularData.get(new Object[] {"com.acme:type=Pool,name=pool3#ActiveConnections"});
+    CompositeData value = (CompositeData)row.get("value");
+    assertEquals("3", value.get("value"));
+    assertEquals(3.0, (Double)value.get("number"), 0);
+    assertNull(value.get("error"));
+
+    value = (CompositeData)tabularData.get(new Object[] {"com.acme:type=Pool,name=pool3#Name"}).get("value");
+    assertEquals("pool", value.get("value"));
+    assertTrue(Double.isNaN((Double)value.get("number")));
+
+    value = (CompositeData)tabularData.get(new Object[] {"com.acme:type=Pool,name=pool3#Missing"}).get("value");
+    assertNull(value.get("value"));
+    assertNotNull(value.get("error"));
+
+    // No attributes reads all of them
+    tabularData = (TabularData)mBeanServer.invoke(queryName, "read", new Object[] {"com.acme:type=Cache", new String[0]}, SIGNATURE);
+    assertEquals(2, tabularData.size());
+  }
+
+  @Test
+  public void testReadNumbers() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    for (int i = 0; i < 3; i++)
+    {
+      PoolBean pool = new PoolBean();
+      pool.activeConnections = i * 10;
+      registry.register(new ObjectName("com.acme:type=Pool,name=pool" + i), pool);
+    }
+    ObjectName queryName = new ObjectName("test:Name=Query");
+    registry.register(queryName, new EasyBeansQuery(registry));
+
+    CompositeData numbers = (CompositeData)mBeanServer.invoke(queryName, "readNumbers", new Object[] {"com.acme:*", new String[] {"ActiveConnections", "Name"}}, SIGNATURE);
+    assertArrayEquals(new String[] {"com.acme:type=Pool,name=pool0", "com.acme:type=Pool,name=pool1", "com.acme:type=Pool,name=pool2"}, (String[])numbers.get("objectNames"));
+    double[] values = (double[])numbers.get("values");
+    assertEquals(6, values.length);
+    assertEquals(20.0, values[4], 0);
+    assertTrue(Double.isNaN(values[5]));
+
+    EasyBeansQuery query = new EasyBeansQuery(registry);
+    for (String[] attributeNames : new String[][] {null, new String[0]})
+    {
+      try
+      {
+        query.readNumbers("com.acme:*", attributeNames);
+        fail();
+      }
+      catch (IllegalArgumentException e)
+      {}
+    }
+  }
+
+  @Test
+  public void testAggregate() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    for (int i = 1; i <= 2000; i++)
+    {
+      PoolBean pool = new PoolBean();
+      pool.activeConnections = i;
+      registry.register(new ObjectName("com.acme:type=Pool,name=pool" + i), pool);
+    }
+    registry.register(new ObjectName("com.acme:type=Other"), new Object());
+    ObjectName queryName = new ObjectName("test:Name=Query");
+    registry.register(queryName, new EasyBeansQuery(registry));
+
+    CompositeData aggregate = (CompositeData)mBeanServer.invoke(queryName, "aggregate", new Object[] {"com.acme:*", "ActiveConnections"}, new String[] {String.class.getName(), String.class.getName()});
+    assertEquals(2001, aggregate.get("matched"));
+    assertEquals(2000, aggregate.get("count"));
+    assertEquals(2001000.0, (Double)aggregate.get("sum"), 0);
+    assertEquals(1.0, (Double)aggregate.get("min"), 0);
+    assertEquals(2000.0, (Double)aggregate.get("max"), 0);
+    assertEquals(1000.5, (Double)aggregate.get("avg"), 0);
+    assertEquals(1000.0, (Double)aggregate.get("p50"), 0);
+    assertEquals(1800.0, (Double)aggregate.get("p90"), 0);
+    assertEquals(1980.0, (Double)aggregate.get("p99"), 0);
+
+    Object percentile = mBeanServer.invoke(queryName, "percentile", new Object[] {"com.acme:*", "ActiveConnections", 99.9}, new String[] {String.class.getName(), String.class.getName(), double.class.getName()});
+    assertEquals(1998.0, (Double)percentile, 0);
+
+    aggregate = (CompositeData)mBeanServer.invoke(queryName, "aggregate", new Object[] {"none:*", "ActiveConnections"}, new String[] {String.class.getName(), String.class.getName()});
+    assertEquals(0, aggregate.get("count"));
+    assertTrue(Double.isNaN((Double)aggregate.get("sum")));
+    assertTrue(Double.isNaN((Double)aggregate.get("min")));
+    assertTrue(Double.isNaN((Double)aggregate.get("avg")));
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class PoolBean
+  {
+    public int activeConnections;
+
+    public String name = "pool";
+  }
+}
@@ -0,0 +1,191 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TestEasyBeansRegistery
+{
+  @Test
+  public void testIdentitySemantics() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+
+    EqualBean beanA = new EqualBean();
+    EqualBean beanB = new EqualBean();
+    registry.register(new ObjectName("test:Name=A"), beanA);
+    registry.register(new ObjectName("test:Name=B"), beanB);
+    assertEquals(2, registry.getRegisteredCount());
+
+    registry.unregister(beanA);
+    assertFalse(mBeanServer.isRegistered(new ObjectName("test:Name=A")));
+    assertTrue(mBeanServer.isRegistered(new ObjectName("test:Name=B")));
+    assertEquals(1, registry.getRegisteredCount());
+  }
+
+  @Test
+  public void testConcurrentRegistration() throws Exception
+  {
+    final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    final EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 8; i++)
+    {
+      final int thread = i;
+      executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            for (int j = 0; j < 200; j++)
+            {
+              EqualBean bean = new EqualBean();
+              registry.register(new ObjectName("test:Thread=" + thread + ",Bean=" + j), bean);
+              if ((j % 2) == 0)
+              {
+                registry.unregister(bean);
+              }
+            }
+          }
+          catch (Throwable e)
+          {
+            failure.set(e);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    assertNull(failure.get());
+    assertEquals(800, registry.getRegisteredCount());
+    assertEquals(800, mBeanServer.queryNames(new ObjectName("test:*"), null).size());
+
+    registry.unregisterAll();
+    assertEquals(0, registry.getRegisteredCount());
+    assertEquals(0, mBeanServer.queryNames(new ObjectName("test:*"), null).size());
+  }
+
+  @Test
+  public void testRegisterAll() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+
+    List<EqualBean> beans = new ArrayList<EqualBean>();
+    for (int i = 0; i < 1000; i++)
+    {
+      EqualBean bean = new EqualBean();
+      bean.value = i;
+      beans.add(bean);
+    }
+
+    EasyBeansRegistrationResult result = registry.registerAll(beans, new EasyBeanObjectNamer()
+    {
+      @Override
+      public ObjectName getObjectName(Object bean) throws MalformedObjectNameException
+      {
+        int value = ((EqualBean) bean).value;
+        return (value == 500) ? new ObjectName("bad") : new ObjectName("test:Bean=" + (value == 501 ? 0 : value));
+      }
+    });
+
+    assertEquals(998, result.succeeded);
+    assertEquals(2, result.failures.size());
+    assertEquals(998, registry.getRegisteredCount());
+    assertEquals(998, mBeanServer.queryNames(new ObjectName("test:*"), null).size());
+
+    result = registry.unregisterAll(beans);
+    assertTrue(result.isSuccessful());
+    assertEquals(0, registry.getRegisteredCount());
+    assertEquals(0, mBeanServer.queryNames(new ObjectName("test:*"), null).size());
+  }
+
+  @Test
+  public void testWeakRegistration() throws Exception
+  {
+    MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    EasyBeansRegistery registry = new EasyBeansRegistery(mBeanServer);
+
+    EqualBean kept = new EqualBean();
+    registry.registerWeakly(new ObjectName("test:Name=Kept"), kept);
+    registry.registerWeakly(new ObjectName("test:Name=Dropped"), new EqualBean());
+    assertEquals(2, registry.getRegisteredCount());
+
+    for (int i = 0; (i < 100) && (registry.getReapedCount() == 0); i++)
+    {
+      System.gc();
+      Thread.sleep(50);
+    }
+
+    assertEquals(1, registry.getReapedCount());
+    assertEquals(1, registry.getRegisteredCount());
+    assertFalse(mBeanServer.isRegistered(new ObjectName("test:Name=Dropped")));
+    assertEquals(0, mBeanServer.getAttribute(new ObjectName("test:Name=Kept"), "Value"));
+
+    registry.unregister(kept);
+    assertEquals(0, registry.getRegisteredCount());
+    assertFalse(mBeanServer.isRegistered(new ObjectName("test:Name=Kept")));
+  }
+
+  @Test
+  public void testCollectedBean() throws Exception
+  {
+    EqualBean bean = new EqualBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+    wrapper.holdWeakly(new WeakReference<Object>(bean));
+    assertEquals(0, wrapper.getAttribute("Value"));
+
+    bean = null;
+    for (int i = 0; (i < 100) && !wrapper.isCollected(); i++)
+    {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertTrue(wrapper.isCollected());
+
+    try
+    {
+      wrapper.getAttribute("Value");
+      fail();
+    }
+    catch (EasyBeanCollectedException e)
+    {}
+  }
+
+  @EasyBean
+  public static class EqualBean
+  {
+    @EasyBeanAttribute
+    public int value;
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      return obj instanceof EqualBean;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package org.baswell.easybeans;
+
+import org.junit.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestNotificationLimits
+{
+  @Test
+  public void testCoalescing() throws Exception
+  {
+    LimitedSender sender = new LimitedSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    CollectingListener listener = new CollectingListener(2);
+    wrapper.addNotificationListener(listener, null, null);
+
+    for (int i = 0; i < 100; i++)
+    {
+      sender.notifier.notify("FLAP", "down " + i);
+    }
+
+    assertEquals(1, listener.notifications.size());
+    assertEquals("down 0", listener.notifications.get(0).getMessage());
+    assertEquals(99, wrapper.getNotificationsSuppressed("FLAP"));
+    assertEquals(99L, wrapper.getAttribute("NotificationsSuppressed"));
+
+    assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+    Notification summary = listener.notifications.get(1);
+    assertEquals("FLAP", summary.getType());
+    CompositeData summaryData = (CompositeData) summary.getUserData();
+    assertEquals(99L, summaryData.get("suppressedCount"));
+    String[] samples = (String[]) summaryData.get("sampleMessages");
+    assertEquals(2, samples.length);
+    assertEquals("down 1", samples[0]);
+    assertEquals("down 2", samples[1]);
+  }
+
+  @Test
+  public void testRateLimit() throws Exception
+  {
+    LimitedSender sender = new LimitedSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    CollectingListener listener = new CollectingListener(3);
+    wrapper.addNotificationListener(listener, null, null);
+
+    for (int i = 0; i < 5; i++)
+    {
+      sender.notifier.notify("OTHER", "message " + i);
+    }
+
+    assertEquals(2, listener.notifications.size());
+    assertEquals(3, wrapper.getNotificationsSuppressed("OTHER"));
+
+    assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+    CompositeData summaryData = (CompositeData) listener.notifications.get(2).getUserData();
+    assertEquals(3L, summaryData.get("suppressedCount"));
+  }
+
+  @Test
+  public void testDynamicTypesShareThrottle() throws Exception
+  {
+    LimitedSender sender = new LimitedSender();
+    EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    CollectingListener listener = new CollectingListener(Integer.MAX_VALUE);
+    wrapper.addNotificationListener(listener, null, null);
+
+    for (int i = 0; i < EasyBeanNotificationWrapper.MAX_DEFAULT_THROTTLES + 100; i++)
+    {
+      sender.notifier.notify("ORDER." + i, "message");
+      sender.notifier.notify("ORDER." + i, "message");
+      sender.notifier.notify("ORDER." + i, "message");
+    }
+
+    assertSame(wrapper.getNotificationThrottle("ORDER.1000"), wrapper.getNotificationThrottle("ORDER.2000"));
+    assertEquals(EasyBeanNotificationWrapper.OTHER_NOTIFICATION_TYPES, wrapper.getNotificationThrottle("ORDER.1000").type);
+    assertNotSame(wrapper.getNotificationThrottle("ORDER.1"), wrapper.getNotificationThrottle("ORDER.2"));
+    assertEquals(1, wrapper.getNotificationsSuppressed("ORDER.1"));
+    assertTrue(wrapper.getNotificationsSuppressed(EasyBeanNotificationWrapper.OTHER_NOTIFICATION_TYPES) > 0);
+  }
+
+  @Test(expected = InvalidEasyBeanAnnotation.class)
+  public void testDuplicateType() throws Exception
+  {
+    new EasyBeanNotificationWrapper(DuplicateSender.class.newInstance());
+  }
+
+  static class CollectingListener implements NotificationListener
+  {
+    final List<Notification> notifications = new ArrayList<Notification>();
+
+    final CountDownLatch received;
+
+    CollectingListener(int expected)
+    {
+      received = new CountDownLatch(expected);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback)
+    {
+      synchronized (notifications)
+      {
+        notifications.add(notification);
+      }
+      received.countDown();
+    }
+  }
+
+  @EasyBeanNotificationLimits({@EasyBeanNotificationLimit(types = "FLAP", coalesceMillis = 100, sampleMessages = 2),
+                               @EasyBeanNotificationLimit(permitsPerSecond = 20, burst = 2)})
+  public static class LimitedSender implements EasyBeansNotifierUser
+  {
+    EasyBeansNotifier notifier;
+
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {
+      notifier = easyBeansNotifier;
+    }
+  }
+
+  @EasyBeanNotificationLimits({@EasyBeanNotificationLimit(types = "FLAP", coalesceMillis = 100),
+                               @EasyBeanNotificationLimit(types = "FLAP", permitsPerSecond = 20)})
+  public static class DuplicateSender implements EasyBeansNotifierUser
+  {
+    @Override
+    public void setNotifier(EasyBeansNotifier easyBeansNotifier)
+    {}
+  }
+}
@@ -32,6 +32,51 @@ public class TestNotifications
     assertEquals("HELLO", listener.notification.getMessage());
   }
 
+  @org.junit.Test
+  public void testConcurrentListenerUpdates() throws Exception
+  {
+    NotificationSender sender = new NotificationSender();
+    final EasyBeanNotificationWrapper wrapper = new EasyBeanNotificationWrapper(sender);
+    TestNotificationListener listener = new TestNotificationListener();
+    wrapper.addNotificationListener(listener, null, null);
+
+    final Throwable[] failure = new Throwable[1];
+    Thread updater = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          for (int i = 0; i < 10000; i++)
+          {
+            TestNotificationListener other = new TestNotificationListener();
+            wrapper.addNotificationListener(other, null, null);
+            wrapper.removeNotificationListener(other);
+          }
+        }
+        catch (Throwable e)
+        {
+          failure[0] = e;
+        }
+      }
+    });
+    updater.start();
+
+    while (updater.isAlive())
+    {
+      sender.easyBeansNotifier.notify("TEST", "HELLO");
+    }
+    updater.join();
+
+    assertNull(failure[0]);
+
+    wrapper.removeNotificationListener(listener, null, null);
+    listener.reset();
+    sender.easyBeansNotifier.notify("TEST", "HELLO");
+    assertNull(listener.notification);
+  }
+
   class NotificationSender implements EasyBeansNotifierUser
   {
     EasyBeansNotifier easyBeansNotifier;
@@ -0,0 +1,209 @@
+package org.baswell.easybeans;
+
+import org.baswell.easybeans.beans.TestTypesBean;
+import org.junit.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TestOpenTypeConverter
+{
+  @Test
+  public void testComposite() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new TestTypesBean());
+
+    CompositeData selfReference = (CompositeData)wrapper.getAttribute("SelfReference");
+    assertEquals("A", selfReference.get("a"));
+    assertEquals(1, selfReference.get("b"));
+    assertEquals(true, selfReference.get("c"));
+    assertEquals("A: B, b: 2, c: false", selfReference.get("self"));
+
+    CompositeData[] selfReferences = (CompositeData[])wrapper.getAttribute("SelfReferences");
+    assertEquals(3, selfReferences.length);
+    assertEquals("A", selfReferences[2].get("a"));
+  }
+
+  @Test
+  public void testPrimitiveArrays() throws Exception
+  {
+    PrimitiveArraysBean bean = new PrimitiveArraysBean();
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(bean);
+
+    Map<String, OpenType> types = new HashMap<String, OpenType>();
+    for (MBeanAttributeInfo attributeInfo : wrapper.getMBeanInfo().getAttributes())
+    {
+      types.put(attributeInfo.getName(), ((OpenMBeanAttributeInfo)attributeInfo).getOpenType());
+    }
+
+    assertEquals(ArrayType.getPrimitiveArrayType(long[].class), types.get("Histogram"));
+    assertSame(bean.histogram, wrapper.getAttribute("Histogram"));
+
+    assertEquals(ArrayType.getPrimitiveArrayType(int[][].class), types.get("Matrix"));
+    assertSame(bean.matrix, wrapper.getAttribute("Matrix"));
+
+    assertEquals(ArrayType.getPrimitiveArrayType(long[].class), types.get("Samples"));
+    assertArrayEquals(new long[] {1, 0, 3}, (long[])wrapper.getAttribute("Samples"));
+
+    assertEquals(ArrayType.getPrimitiveArrayType(double[].class), types.get("Values"));
+    assertArrayEquals(new double[] {1.5, 2.5}, (double[])wrapper.getAttribute("Values"), 0);
+
+    assertEquals(ArrayType.getPrimitiveArrayType(int[].class), types.get("Specialized"));
+    assertArrayEquals(new int[] {4, 5}, (int[])wrapper.getAttribute("Specialized"));
+
+    assertEquals(new ArrayType(1, SimpleType.LONG), types.get("Boxed"));
+  }
+
+  @Test
+  public void testGetterComposite() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new GetterBean());
+
+    CompositeData contact = (CompositeData)wrapper.getAttribute("Contact");
+    assertEquals("Name", contact.get("name"));
+    assertEquals("Street", ((CompositeData)contact.get("address")).get("street"));
+  }
+
+  @Test
+  public void testTable() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new TestTypesBean());
+
+    TabularData table = (TabularData)wrapper.getAttribute("SelfReferenceMap");
+    assertEquals(3, table.size());
+    CompositeData row = table.get(new Object[] {"TWO"});
+    assertEquals(2, ((CompositeData[])row.get("value")).length);
+  }
+
+  @Test
+  public void testArrays() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new ArraysBean());
+
+    assertArrayEquals(new String[] {"ONE", "TWO"}, (String[])wrapper.getAttribute("Strings"));
+    assertArrayEquals(new String[] {"ONE", "2"}, (String[])wrapper.getAttribute("Objects"));
+    assertArrayEquals(new String[][] {{"A"}, {"B", "C"}}, (String[][])wrapper.getAttribute("Lists"));
+
+    CompositeData[][] addresses = (CompositeData[][])wrapper.getAttribute("Addresses");
+    assertEquals(2, addresses.length);
+    assertEquals(1, addresses[0].length);
+    assertEquals(2, addresses[1].length);
+    assertEquals("Second", addresses[1][1].get("street"));
+
+    assertNull(wrapper.getAttribute("Empty"));
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class ArraysBean
+  {
+    public List<String> getStrings()
+    {
+      return Arrays.asList("ONE", "TWO");
+    }
+
+    public List<Object> getObjects()
+    {
+      return new LinkedList<Object>(Arrays.<Object>asList("ONE", 2));
+    }
+
+    public List<List<String>> getLists()
+    {
+      return Arrays.asList(Arrays.asList("A"), Arrays.asList("B", "C"));
+    }
+
+    public Address[][] getAddresses()
+    {
+      return new Address[][] {{new Address("First")}, {new Address("First"), new Address("Second")}};
+    }
+
+    public List<Address> getEmpty()
+    {
+      return null;
+    }
+  }
+
+  @EasyBeanOpenType
+  public static class Address
+  {
+    public String street;
+
+    public Address(String street)
+    {
+      this.street = street;
+    }
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class GetterBean
+  {
+    public Contact getContact()
+    {
+      return new Contact();
+    }
+  }
+
+  @EasyBeanOpenType
+  public static class Contact
+  {
+    public String getName()
+    {
+      return "Name";
+    }
+
+    public Address getAddress()
+    {
+      return new Address("Street");
+    }
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class PrimitiveArraysBean
+  {
+    public final long[] histogram = new long[] {1, 2, 3};
+
+    public final int[][] matrix = new int[][] {{1}, {2, 3}};
+
+    @EasyBeanPrimitiveArray
+    public final List<Long> samples = Arrays.asList(1L, null, 3L);
+
+    @EasyBeanPrimitiveArray
+    public Iterable<Double> getValues()
+    {
+      return new LinkedHashSet<Double>(Arrays.asList(1.5, 2.5));
+    }
+
+    @EasyBeanPrimitiveArray
+    public IntList getSpecialized()
+    {
+      return new IntList(4, 5);
+    }
+
+    public List<Long> getBoxed()
+    {
+      return Arrays.asList(1L, 2L);
+    }
+  }
+
+  public static class IntList
+  {
+    final int[] values;
+
+    public IntList(int... values)
+    {
+      this.values = values;
+    }
+
+    public int[] toIntArray()
+    {
+      return values.clone();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package org.baswell.easybeans;
+
+import org.baswell.easybeans.beans.CollectableHolder;
+import org.baswell.easybeans.beans.CollectableType;
+import org.baswell.easybeans.beans.TestTypesBean;
+import org.junit.Test;
+
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.SimpleType;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+
+import static org.baswell.easybeans.OpenTypeMapper.*;
+import static org.junit.Assert.*;
+
+public class TestOpenTypeMapper
+{
+  @Test
+  public void testMemoizedMappings() throws Exception
+  {
+    OpenTypeMapping listMapping = mapToOpenType(Holder.class.getField("listOne"));
+    assertSame(listMapping, mapToOpenType(Holder.class.getField("listTwo")));
+    assertSame(listMapping.getOpenType(), mapToOpenType(OtherHolder.class.getField("list")).getOpenType());
+
+    OpenTypeMapping mapMapping = mapToOpenType(Holder.class.getField("map"));
+    assertNotSame(listMapping, mapMapping);
+    assertSame(mapMapping, mapToOpenType(OtherHolder.class.getField("map")));
+  }
+
+  @Test
+  public void testSelfReference() throws Exception
+  {
+    OpenTypeMapping selfMapping = mapToOpenType(TestTypesBean.SelfReferece.class);
+    CompositeType compositeType = selfMapping.getCompositeType();
+    assertEquals(SimpleType.STRING, compositeType.getType("self"));
+
+    OpenTypeMapping listMapping = mapToOpenType(Holder.class.getField("listOne"));
+    CompositeType elementType = (CompositeType)listMapping.getElementTypeMapping().getOpenType();
+    assertEquals(SimpleType.STRING, elementType.getType("self"));
+
+    assertSame(selfMapping, mapToOpenType(TestTypesBean.SelfReferece.class));
+  }
+
+  @Test
+  public void testClassLoaderCollected() throws Exception
+  {
+    ClassLoader classLoader = new IsolatingClassLoader();
+    Class holderClass = classLoader.loadClass(CollectableHolder.class.getName());
+    assertNotSame(CollectableHolder.class, holderClass);
+    assertNotNull(mapToOpenType(holderClass.getField("items")));
+    assertNotNull(mapToOpenType(classLoader.loadClass(CollectableType.class.getName())));
+
+    WeakReference<ClassLoader> classLoaderReference = new WeakReference<ClassLoader>(classLoader);
+    classLoader = null;
+    holderClass = null;
+    for (int i = 0; (i < 100) && (classLoaderReference.get() != null); i++)
+    {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertNull(classLoaderReference.get());
+  }
+
+  /*
+   * Loads its own copy of the Collectable classes.
+   */
+  static class IsolatingClassLoader extends ClassLoader
+  {
+    IsolatingClassLoader()
+    {
+      super(TestOpenTypeMapper.class.getClassLoader());
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+      if (!name.startsWith(CollectableHolder.class.getPackage().getName() + ".Collectable"))
+      {
+        return super.loadClass(name, resolve);
+      }
+
+      Class<?> clazz = findLoadedClass(name);
+      if (clazz == null)
+      {
+        try
+        {
+          InputStream input = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          int read;
+          while ((read = input.read(buffer)) != -1)
+          {
+            bytes.write(buffer, 0, read);
+          }
+          input.close();
+          clazz = defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        }
+        catch (Exception e)
+        {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+      return clazz;
+    }
+  }
+
+  public static class Holder
+  {
+    public List<TestTypesBean.SelfReferece> listOne;
+
+    public List<TestTypesBean.SelfReferece> listTwo;
+
+    public Map<String, Integer> map;
+  }
+
+  public static class OtherHolder
+  {
+    public List<TestTypesBean.SelfReferece> list;
+
+    public Map<String, Integer> map;
+  }
+}
@@ -0,0 +1,75 @@
+package org.baswell.easybeans;
+
+import org.baswell.easybeans.beans.TestOperationsBean;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class TestOperations
+{
+  @Test
+  public void testSignatures() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new TestOperationsBean());
+
+    assertEquals("HELLO A\nHELLO A", wrapper.invoke("tellMeHello", new Object[] {"A", 2}, new String[] {"java.lang.String", "int"}));
+    assertEquals("HELLO B", wrapper.invoke("tellMeHello", new Object[] {"B", 1}, new String[] {"java.lang.String", "java.lang.Integer"}));
+    assertNull(wrapper.invoke("stop", new Object[] {"password"}, new String[] {"java.lang.String"}));
+
+    try
+    {
+      wrapper.invoke("tellMeHello", new Object[] {"A"}, new String[] {"java.lang.String"});
+      fail("Expected NoSuchElementException");
+    }
+    catch (NoSuchElementException e)
+    {}
+  }
+
+  @Test
+  public void testOverloads() throws Exception
+  {
+    EasyBeanWrapper wrapper = new EasyBeanWrapper(new OverloadedBean());
+
+    assertEquals("none", wrapper.invoke("describe", null, null));
+    assertEquals("int 1", wrapper.invoke("describe", new Object[] {1}, new String[] {"int"}));
+    assertEquals("String 1", wrapper.invoke("describe", new Object[] {"1"}, new String[] {"java.lang.String"}));
+    assertEquals("4 10", wrapper.invoke("describe", new Object[] {1, 2L, 3, 4}, new String[] {"int", "long", "int", "java.lang.Integer"}));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testOperationException() throws Exception
+  {
+    new EasyBeanWrapper(new OverloadedBean()).invoke("fail", new Object[0], new String[0]);
+  }
+
+  @EasyBean(exposure = EasyBeanExposure.ALL)
+  public static class OverloadedBean
+  {
+    public String describe()
+    {
+      return "none";
+    }
+
+    public String describe(int value)
+    {
+      return "int " + value;
+    }
+
+    public String describe(String value)
+    {
+      return "String " + value;
+    }
+
+    public String describe(int a, long b, int c, Integer d)
+    {
+      return "4 " + (a + b + c + d);
+    }
+
+    public void fail()
+    {
+      throw new IllegalStateException("FAIL");
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package org.baswell.easybeans.beans;
+
+import org.baswell.easybeans.EasyBeanOpenType;
+
+import java.util.List;
+
+/*
+ * Loaded by its own class loader in TestOpenTypeMapper#testClassLoaderCollected().
+ */
+@EasyBeanOpenType
+public class CollectableHolder
+{
+  public List<CollectableType> items;
+}